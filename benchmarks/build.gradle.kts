@@ -0,0 +1,29 @@
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+group = "it.unibo.ares"
+version = "1.0.0"
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jmh(project(":core"))
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    // i boid usano la Vector API solo se il modulo è presente
+    jvmArgsAppend.add("--add-modules=jdk.incubator.vector")
+    warmupIterations.set(3)
+    iterations.set(5)
+    // throughput e allocation rate di ogni benchmark
+    benchmarkMode.set(listOf("thrpt"))
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
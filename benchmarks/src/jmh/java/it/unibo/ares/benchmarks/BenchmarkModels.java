@@ -0,0 +1,127 @@
+package it.unibo.ares.benchmarks;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.model.BoidsModelFactory;
+import it.unibo.ares.core.model.FireSpreadModelFactory;
+import it.unibo.ares.core.model.Model;
+import it.unibo.ares.core.model.ModelFactory;
+import it.unibo.ares.core.model.PredatorPreyModelFactory;
+import it.unibo.ares.core.model.SchellingModelFactory;
+import it.unibo.ares.core.model.SimpleModelFactory;
+import it.unibo.ares.core.model.SugarscapeModelFactory;
+import it.unibo.ares.core.model.VirusModelFactory;
+import it.unibo.ares.core.utils.parameters.Parameter;
+import it.unibo.ares.core.utils.state.State;
+
+/**
+ * Builds the models of the benchmarks, with the same parameters for every run
+ * so that the numbers of different runs can be compared; the positions of the
+ * agents are still chosen at random by the models.
+ */
+final class BenchmarkModels {
+    private static final Map<String, Supplier<ModelFactory>> FACTORIES = Map.of(
+            "Schelling", SchellingModelFactory::new,
+            "Boids", BoidsModelFactory::new,
+            "FireSpread", FireSpreadModelFactory::new,
+            "PredatorPrey", PredatorPreyModelFactory::new,
+            "VirusDiffusion", VirusModelFactory::new,
+            "Sugarscape", SugarscapeModelFactory::new,
+            "Simple", SimpleModelFactory::new);
+
+    // i valori dei parametri degli agenti che l'utente imposta dall'interfaccia
+    private static final Map<String, Serializable> AGENT_PARAMETERS = Map.ofEntries(
+            Map.entry("distance", 3),
+            Map.entry("angle", 90),
+            Map.entry("collisionAvoidanceWeight", 0.5),
+            Map.entry("alignmentWeight", 0.5),
+            Map.entry("cohesionWeight", 0.5),
+            Map.entry("stepSize", 1),
+            Map.entry("visionRadius", 2),
+            Map.entry("metabolismRate", 1),
+            Map.entry("sugar", 5),
+            Map.entry("maxSugar", 10),
+            Map.entry("sugarAmount", 5),
+            Map.entry("growthRate", 1),
+            Map.entry("flammability", 0.5),
+            Map.entry("spread", 1),
+            Map.entry("fuel", 1.0),
+            Map.entry("consumption", 0.2),
+            Map.entry("recoveryRate", 10),
+            Map.entry("infectionRate", 30),
+            Map.entry("visionRadiusPredator", 3),
+            Map.entry("visionRadiusPrey", 3),
+            Map.entry("threshold", 0.5));
+
+    private BenchmarkModels() {
+    }
+
+    /**
+     * Creates a model.
+     *
+     * @param modelId the name of the model
+     * @param size    the side of the board
+     * @param density the fraction of the cells occupied by an agent
+     * @return the model with its parameters set
+     */
+    static Model getModel(final String modelId, final int size, final double density) {
+        final Supplier<ModelFactory> factory = FACTORIES.get(modelId);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown model " + modelId);
+        }
+        final Model model = factory.get().getModel();
+        final int agents = Math.max(2, (int) (size * size * density));
+        model.setParameter(Model.SIZEKEY, size);
+        switch (modelId) {
+            case "Schelling" -> {
+                model.setParameter("numeroAgentiTipoA", agents / 2);
+                model.setParameter("numeroAgentiTipoB", agents / 2);
+            }
+            case "Boids" -> model.setParameter("numeroUccelli", agents);
+            case "FireSpread" -> {
+                model.setParameter("numFire", Math.max(1, agents / 100));
+                model.setParameter("vegetation", density);
+            }
+            case "PredatorPrey" -> {
+                model.setParameter("numeroAgentiPreda", agents - agents / 4);
+                model.setParameter("numeroAgentiCacciatori", agents / 4);
+            }
+            case "VirusDiffusion" -> {
+                model.setParameter("numeroPersoneSane", agents - agents / 10);
+                model.setParameter("numeroInfetti", Math.max(1, agents / 10));
+            }
+            case "Sugarscape" -> {
+                model.setParameter("numeroAgentiConsumer", agents / 4);
+                model.setParameter("numeroAgentiSugar", agents - agents / 4);
+            }
+            default -> {
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Initializes a model and sets the parameters of its agents.
+     *
+     * @param model the model
+     * @return the initial state
+     */
+    static State initialize(final Model model) {
+        final State state = model.initilize();
+        state.getAgents().forEach(p -> setAgentParameters(p.getSecond()));
+        return state;
+    }
+
+    private static void setAgentParameters(final Agent agent) {
+        for (final Parameter<?> parameter : agent.getParameters().getParametersToset()) {
+            final Serializable value = AGENT_PARAMETERS.get(parameter.getKey());
+            if (value == null) {
+                throw new IllegalStateException("No value for the parameter " + parameter.getKey());
+            }
+            agent.setParameter(parameter.getKey(), value);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package it.unibo.ares.benchmarks;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import it.unibo.ares.core.utils.board.Board;
+import it.unibo.ares.core.utils.board.BoardImpl;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+
+/**
+ * Measures the primitives of {@link BoardImpl}, the map that backs
+ * {@link it.unibo.ares.core.utils.state.StateImpl}.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BoardBenchmark {
+    private static final long SEED = 42;
+
+    @Param({ "50", "200" })
+    private int size;
+
+    @Param({ "0.1", "0.5" })
+    private double density;
+
+    private Board<String> board;
+    private Random random;
+
+    /**
+     * Fills the board with entities in random cells.
+     */
+    @Setup(Level.Trial)
+    public void fill() {
+        random = new Random(SEED);
+        board = new BoardImpl<>();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (random.nextDouble() < density) {
+                    board.addEntity(new PosImpl(x, y), "E");
+                }
+            }
+        }
+    }
+
+    private Pos randomPos() {
+        return new PosImpl(random.nextInt(size), random.nextInt(size));
+    }
+
+    /**
+     * Looks up a random cell.
+     *
+     * @return the entity in the cell, if any
+     */
+    @Benchmark
+    public Optional<String> get() {
+        return board.getEntity(randomPos());
+    }
+
+    /**
+     * Adds an entity to a random cell if it is empty and removes it.
+     *
+     * @return the board
+     */
+    @Benchmark
+    public Board<String> addAndRemove() {
+        final Pos pos = randomPos();
+        if (board.getEntity(pos).isEmpty()) {
+            board.addEntity(pos, "N");
+            board.removeEntity(pos, "N");
+        }
+        return board;
+    }
+}
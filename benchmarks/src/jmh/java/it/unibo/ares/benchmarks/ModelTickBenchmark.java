@@ -0,0 +1,60 @@
+package it.unibo.ares.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import it.unibo.ares.core.model.Model;
+
+/**
+ * Measures a full tick of every model.
+ * Every invocation ticks a copy of the same initial state, built once per
+ * trial, so that models that evolve towards an empty board (like the fire)
+ * are measured on the initial state and not on the ones they reach.
+ * The copy is O(1) and shares the agents with the initial state, so the
+ * values that the agents update in place (like the fuel of the fire) carry
+ * over from an invocation to the next, while the agents stay where they are.
+ * The positions of the agents are random and not seeded, so the numbers of
+ * different trials can differ a little.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ModelTickBenchmark {
+
+    @Param({ "Schelling", "Boids", "FireSpread", "PredatorPrey", "VirusDiffusion", "Sugarscape", "Simple" })
+    private String modelId;
+
+    @Param({ "50", "200" })
+    private int size;
+
+    @Param({ "0.1", "0.5" })
+    private double density;
+
+    private Model model;
+    private it.unibo.ares.core.utils.state.State initial;
+
+    /**
+     * Creates the model and its initial state.
+     */
+    @Setup(Level.Trial)
+    public void initialize() {
+        model = BenchmarkModels.getModel(modelId, size, density);
+        initial = BenchmarkModels.initialize(model);
+    }
+
+    /**
+     * Ticks the model once, starting from a copy of the initial state.
+     *
+     * @return the new state
+     */
+    @Benchmark
+    public it.unibo.ares.core.utils.state.State tick() {
+        return model.tick(initial.copy());
+    }
+}
@@ -0,0 +1,122 @@
+package it.unibo.ares.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.agent.SimpleAgentFactory;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.StateImpl;
+
+/**
+ * Measures the primitives of the states: adding, moving, looking for the
+ * agents in a radius and copying.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StateBenchmark {
+    private static final long SEED = 42;
+    private static final int RADIUS = 3;
+
+    @Param({ "StateImpl", "DenseStateImpl" })
+    private String implementation;
+
+    @Param({ "50", "200" })
+    private int size;
+
+    @Param({ "0.1", "0.5" })
+    private double density;
+
+    private it.unibo.ares.core.utils.state.State state;
+    private final List<Pos> occupied = new ArrayList<>();
+    private final List<Pos> free = new ArrayList<>();
+    private final Agent agent = new SimpleAgentFactory().createAgent();
+    private Random random;
+
+    /**
+     * Fills the state with agents in random cells.
+     */
+    @Setup(Level.Trial)
+    public void fill() {
+        random = new Random(SEED);
+        state = "DenseStateImpl".equals(implementation)
+                ? new DenseStateImpl(size, size)
+                : new StateImpl(size, size);
+        final SimpleAgentFactory factory = new SimpleAgentFactory();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                final Pos pos = new PosImpl(x, y);
+                if (random.nextDouble() < density) {
+                    state.addAgent(pos, factory.createAgent());
+                    occupied.add(pos);
+                } else {
+                    free.add(pos);
+                }
+            }
+        }
+    }
+
+    private Pos randomOf(final List<Pos> positions) {
+        return positions.get(random.nextInt(positions.size()));
+    }
+
+    /**
+     * Adds an agent in a free cell and removes it.
+     *
+     * @return the state
+     */
+    @Benchmark
+    public it.unibo.ares.core.utils.state.State addAndRemove() {
+        final Pos pos = randomOf(free);
+        state.addAgent(pos, agent);
+        state.removeAgent(pos, agent);
+        return state;
+    }
+
+    /**
+     * Moves an agent to a free cell and back.
+     *
+     * @return the state
+     */
+    @Benchmark
+    public it.unibo.ares.core.utils.state.State moveAndBack() {
+        final Pos from = randomOf(occupied);
+        final Pos to = randomOf(free);
+        state.moveAgent(from, to);
+        state.moveAgent(to, from);
+        return state;
+    }
+
+    /**
+     * Looks for the agents around a cell.
+     *
+     * @return the agents found
+     */
+    @Benchmark
+    public Set<Agent> radiusQuery() {
+        return state.getAgentsByPosAndRadius(randomOf(occupied), RADIUS);
+    }
+
+    /**
+     * Copies the state, like the model does at every tick.
+     *
+     * @return the copy
+     */
+    @Benchmark
+    public it.unibo.ares.core.utils.state.State copy() {
+        return state.copy();
+    }
+}
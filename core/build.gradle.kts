@@ -28,11 +28,24 @@ dependencies {
     // testImplementation group: 'org.mockito', name: 'mockito-core', version: '5.12.0'
 }
 
+// the steering of the boids runs on the Vector API, still an incubator module
+val vectorModule = listOf("--add-modules", "jdk.incubator.vector")
+
+tasks.withType<JavaCompile>().configureEach {
+    options.compilerArgs.addAll(vectorModule)
+}
+
+tasks.withType<Javadoc>().configureEach {
+    (options as StandardJavadocDocletOptions).addStringOption("-add-modules", "jdk.incubator.vector")
+}
+
 tasks.test {
     useJUnitPlatform()
+    jvmArgs(vectorModule)
 }
 
 application {
     // Define the main class for the application
     mainClass.set("it.unibo.ares.core.App")
+    applicationDefaultJvmArgs = vectorModule
 }
@@ -38,11 +38,12 @@ public interface Agent extends Serializable {
     <T extends Serializable> void setParameter(String key, T value);
 
     /**
-     * Retrieves the id of the agent.
+     * Retrieves the id of the agent, unique in a simulation and kept when the
+     * simulation is saved and loaded.
      *
      * @return the id of the agent
      */
-    String getId();
+    long getId();
 
     /**
      * Sets the type of the agent.
@@ -51,6 +52,16 @@ public interface Agent extends Serializable {
      */
     String getType();
 
+    /**
+     * Gets the code of the type of the agent, two agents have the same type if
+     * and only if they have the same code.
+     *
+     * @return the code of the type of the agent, see {@link AgentTypes}
+     */
+    default int getTypeCode() {
+        return AgentTypes.codeOf(getType());
+    }
+
     /**
      * Sets the type of the agent.
      *
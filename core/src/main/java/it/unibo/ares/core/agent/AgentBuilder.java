@@ -2,6 +2,7 @@ package it.unibo.ares.core.agent;
 
 import it.unibo.ares.core.utils.lambda.SerializableBiFunction;
 import it.unibo.ares.core.utils.parameters.Parameter;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.state.State;
 
@@ -37,6 +38,16 @@ interface AgentBuilder extends Serializable {
      */
     <T extends Serializable> AgentBuilder addParameter(Parameter<T> parameterImpl);
 
+    /**
+     * Gives the agent all the parameters of a schema at once, in place of the
+     * ones added one by one; no other parameter can be added afterwards.
+     *
+     * @param schema the schema of the parameters, usually shared by all the
+     *               agents of a factory.
+     * @return the agent builder with the parameters of the schema.
+     */
+    AgentBuilder addParameters(ParameterSchema schema);
+
     /**
      * Adds a strategy to the agent.
      *
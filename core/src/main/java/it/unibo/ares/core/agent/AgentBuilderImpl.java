@@ -1,21 +1,27 @@
 package it.unibo.ares.core.agent;
 
 import it.unibo.ares.core.utils.parameters.Parameter;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
 import it.unibo.ares.core.utils.parameters.Parameters;
 import it.unibo.ares.core.utils.parameters.ParametersImpl;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.state.State;
 import it.unibo.ares.core.utils.lambda.SerializableBiFunction;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implementation of the AgentBuilder interface.
+ * The agents get their ids from a sequence shared by all the builders, so
+ * the ids are unique in every simulation.
  */
 class AgentBuilderImpl implements AgentBuilder {
 
     private static final long serialVersionUID = 1L;
+    private static final AtomicLong NEXT_ID = new AtomicLong();
     private SerializableBiFunction<State, Pos, State> strategy;
     private Parameters parameters;
 
@@ -35,10 +41,12 @@ class AgentBuilderImpl implements AgentBuilder {
         if (strategy == null) {
             throw new IllegalStateException("Cannot build agent without strategy or parameters");
         }
-        final String id = UUID.randomUUID().toString();
+        final long id = NEXT_ID.getAndIncrement();
         return new Agent() {
 
             private String type;
+            // il codice non viene salvato, è valido solo nel processo che lo ha assegnato
+            private transient int typeCode = AgentTypes.NONE;
             private static final long serialVersionUID = 1L;
 
             @Override
@@ -57,7 +65,7 @@ class AgentBuilderImpl implements AgentBuilder {
             }
 
             @Override
-            public String getId() {
+            public long getId() {
                 return id;
             }
 
@@ -70,15 +78,12 @@ class AgentBuilderImpl implements AgentBuilder {
                     return false;
                 }
                 final Agent agent = (Agent) obj;
-                return id.equals(agent.getId());
+                return id == agent.getId();
             }
 
             @Override
             public int hashCode() {
-                final int prime = 31;
-                int result = 1;
-                result = prime * result + ((id == null) ? 0 : id.hashCode());
-                return result;
+                return Long.hashCode(id);
             }
 
             @Override
@@ -86,9 +91,22 @@ class AgentBuilderImpl implements AgentBuilder {
                 return type;
             }
 
+            @Override
+            public int getTypeCode() {
+                return typeCode;
+            }
+
             @Override
             public void setType(final String type) {
                 this.type = type;
+                this.typeCode = AgentTypes.codeOf(type);
+            }
+
+            private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+                in.defaultReadObject();
+                typeCode = AgentTypes.codeOf(type);
+                // gli agenti creati dopo il caricamento non devono riusare l'id di un agente caricato
+                NEXT_ID.accumulateAndGet(id + 1, Math::max);
             }
         };
     }
@@ -111,6 +129,15 @@ class AgentBuilderImpl implements AgentBuilder {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AgentBuilder addParameters(final ParameterSchema schema) {
+        this.parameters = schema.newParameters();
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
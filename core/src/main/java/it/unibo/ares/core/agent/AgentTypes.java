@@ -0,0 +1,75 @@
+package it.unibo.ares.core.agent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The registry of the types of the agents.
+ * Every type is interned to a small integer code, assigned in order of first
+ * use, so two types are compared with a single integer comparison and a code
+ * can be used as an index; the name of the type is kept for display only.
+ * The codes are valid in the running process only, they must not be saved.
+ */
+public final class AgentTypes {
+    /**
+     * The code of the agents without a type.
+     */
+    public static final int NONE = -1;
+
+    private static final Map<String, Integer> CODES = new ConcurrentHashMap<>();
+    private static final List<String> NAMES = new CopyOnWriteArrayList<>();
+
+    private AgentTypes() {
+    }
+
+    /**
+     * Gets the code of a type, registering the type if it is new.
+     *
+     * @param type the type, can be null
+     * @return the code of the type, or {@link #NONE} if the type is null
+     */
+    public static int codeOf(final String type) {
+        if (type == null) {
+            return NONE;
+        }
+        final Integer code = CODES.get(type);
+        return code == null ? register(type) : code;
+    }
+
+    private static synchronized int register(final String type) {
+        return CODES.computeIfAbsent(type, t -> {
+            NAMES.add(t);
+            return NAMES.size() - 1;
+        });
+    }
+
+    /**
+     * Gets the code of a type without registering it.
+     *
+     * @param type the type, can be null
+     * @return the code of the type, or {@link #NONE} if the type is null or
+     *         was never registered
+     */
+    public static int find(final String type) {
+        return type == null ? NONE : CODES.getOrDefault(type, NONE);
+    }
+
+    /**
+     * Gets the name of a type from its code.
+     *
+     * @param code the code of the type
+     * @return the name of the type, or null if the code is {@link #NONE}
+     * @throws IllegalArgumentException if there is no type with that code
+     */
+    public static String nameOf(final int code) {
+        if (code == NONE) {
+            return null;
+        }
+        if (code < 0 || code >= NAMES.size()) {
+            throw new IllegalArgumentException("No agent type with code " + code);
+        }
+        return NAMES.get(code);
+    }
+}
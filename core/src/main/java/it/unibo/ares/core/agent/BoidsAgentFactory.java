@@ -3,16 +3,24 @@ package it.unibo.ares.core.agent;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import it.unibo.ares.core.utils.ComputationUtils;
+import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.ViewCone;
 import it.unibo.ares.core.utils.directionvector.DirectionVector;
 import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
+import it.unibo.ares.core.utils.directionvector.Vectors;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
+import it.unibo.ares.core.utils.parameters.DoubleParam;
+import it.unibo.ares.core.utils.parameters.IntParam;
+import it.unibo.ares.core.utils.parameters.ObjectParam;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
+import it.unibo.ares.core.utils.parameters.Parameters;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.ContinuousState;
+import it.unibo.ares.core.utils.state.Neighborhood;
 import it.unibo.ares.core.utils.state.State;
 
 /**
@@ -22,8 +30,46 @@ import it.unibo.ares.core.utils.state.State;
 public final class BoidsAgentFactory implements AgentFactory {
     // PARAMETRI FINE TUNTING
     private static final long serialVersionUID = 1L;
-    private static final Double USERCORRECTIONWEIGHT = 0.4;
+    static final double USERCORRECTIONWEIGHT = 0.4;
+    private static final double HALF = 0.5;
+    // l'angolo in cui cercare una cella libera davanti al boid
+    private static final int HALF_CIRCLE = 180;
     private static final String DIRECTION = "direction";
+    static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>("distance", Integer.class,
+                    new ParameterDomainImpl<>("il raggio di visione in celle (1-10)",
+                            (Integer d) -> d > 0 && d <= 10),
+                    true),
+            new ParameterImpl<>("angle", Integer.class,
+                    new ParameterDomainImpl<>("il raggio di visione in gradi (0-180)",
+                            (Integer d) -> d > 0 && d <= 180),
+                    true),
+            new ParameterImpl<>(DIRECTION, DirectionVector.class, false),
+            new ParameterImpl<>("collisionAvoidanceWeight", Double.class,
+                    new ParameterDomainImpl<>(
+                            "il peso dell'evitamento degli ostacoli (0.0-1.0)",
+                            (Double d) -> d >= 0.0 && d <= 1.0),
+                    true),
+            new ParameterImpl<>("alignmentWeight", Double.class,
+                    new ParameterDomainImpl<>("il peso dell'allineamento (0.0-1.0)",
+                            (Double d) -> d >= 0.0 && d <= 1.0),
+                    true),
+            new ParameterImpl<>("cohesionWeight", Double.class,
+                    new ParameterDomainImpl<>("il peso della coesione (0.0-1.0)",
+                            (Double d) -> d >= 0.0 && d <= 1.0),
+                    true),
+            new ParameterImpl<>("stepSize", Integer.class,
+                    new ParameterDomainImpl<>("la dimensione del passo (1-10)",
+                            (Integer d) -> d > 0 && d <= 10),
+                    true)));
+    static final IntParam DISTANCE_PARAM = SCHEMA.intParam("distance");
+    static final IntParam ANGLE_PARAM = SCHEMA.intParam("angle");
+    static final IntParam STEP_SIZE_PARAM = SCHEMA.intParam("stepSize");
+    static final ObjectParam<DirectionVector> DIRECTION_PARAM = SCHEMA.objectParam(DIRECTION,
+            DirectionVector.class);
+    static final DoubleParam COLLISION_AVOIDANCE_PARAM = SCHEMA.doubleParam("collisionAvoidanceWeight");
+    static final DoubleParam ALIGNMENT_PARAM = SCHEMA.doubleParam("alignmentWeight");
+    static final DoubleParam COHESION_PARAM = SCHEMA.doubleParam("cohesionWeight");
     private final Random r;
 
     /**
@@ -33,86 +79,115 @@ public final class BoidsAgentFactory implements AgentFactory {
         this.r = new Random();
     }
 
-    private Set<Pos> getAgentsCells(final State state, final Set<Pos> cells) {
-        return cells.stream()
-                .filter(p -> state.getAgentAt(p).isPresent())
-                .collect(Collectors.toSet());
+    /**
+     * The normalized directions suggested by the three rules of the boids, as
+     * primitive components.
+     *
+     * @param collisionX the x of the direction that avoids the obstacles
+     * @param collisionY the y of the direction that avoids the obstacles
+     * @param alignmentX the x of the mean direction of the close boids
+     * @param alignmentY the y of the mean direction of the close boids
+     * @param cohesionX  the x of the direction towards the center of the close
+     *                   boids
+     * @param cohesionY  the y of the direction towards the center of the close
+     *                   boids
+     */
+    record Steering(double collisionX, double collisionY, double alignmentX, double alignmentY,
+            double cohesionX, double cohesionY) {
     }
 
-    private Set<Pos> getObstacles(final State state, final Set<Pos> cells) {
-        return cells.stream()
-                .filter(p -> state.getAgentAt(p).isPresent() || state.getEntityAt(p).isPresent())
-                .collect(Collectors.toSet());
-    }
+    /**
+     * The sums of the obstacles and of the boids seen by a boid, collected
+     * while the agents around it are visited.
+     */
+    private static final class Flock {
+        private int obstacles;
+        private int awayX;
+        private int awayY;
+        private int boids;
+        private double headingX;
+        private double headingY;
+        private int sumX;
+        private int sumY;
 
-    private DirectionVector collisionAvoindance(
-            final State s, final Pos pos, final DirectionVector dir,
-            final Integer distance, final Integer angle) {
-        final Set<Pos> obstacles = getObstacles(s,
-                ComputationUtils.computeCloseCells(pos, dir, distance, angle));
-        if (obstacles.isEmpty()) {
-            return dir;
-        }
-        int newX = 0;
-        int newY = 0;
-        for (final Pos p : obstacles) {
-            newX += pos.getX() - p.getX();
-            newY += pos.getY() - p.getY();
+        private void addObstacle(final Pos pos, final int x, final int y) {
+            obstacles++;
+            awayX += pos.getX() - x;
+            awayY += pos.getY() - y;
         }
-        return new DirectionVectorImpl(newX, newY).getNormalized();
-    }
 
-    private DirectionVector directionAlignment(
-            final State s, final Pos pos, final DirectionVector dir, final Integer distance,
-            final Integer angle) {
-        final Set<Pos> closeCells = ComputationUtils.computeCloseCells(pos, dir, distance, angle);
-        final Set<Pos> agents = getAgentsCells(s, closeCells);
-        return agents.stream()
-                .map(p -> s.getAgentAt(p).get().getParameters()
-                        .getParameter(
-                                DIRECTION, DirectionVectorImpl.class)
-                        .get()
-                        .getValue())
-                .map(DirectionVector.class::cast)
-                .reduce(DirectionVector::mean)
-                .map(d -> new DirectionVectorImpl(d.getX() / agents.size(), d.getY() / agents.size()))
-                .map(DirectionVectorImpl::getNormalized)
-                .orElse(dir);
+        private void addBoid(final int x, final int y, final DirectionVector heading) {
+            boids++;
+            headingX += heading.getX();
+            headingY += heading.getY();
+            sumX += x;
+            sumY += y;
+        }
     }
 
-    private DirectionVector centerCohesion(final State s, final Pos pos, final DirectionVector dir,
-            final Integer distance, final Integer angle) {
+    /**
+     * Computes the three rules in a single pass over the agents in the view
+     * cone of the boid. The agents are found by radius through the state, so
+     * the cost follows the number of the agents around the boid rather than
+     * the area of the cone; the entities, which are not indexed, are looked up
+     * cell by cell only if the state has any.
+     *
+     * @param s        the state
+     * @param pos      the position of the boid
+     * @param dir      the direction of the boid
+     * @param distance the distance the boid can see
+     * @param angle    the angle the boid can see
+     * @return the directions suggested by the rules
+     */
+    Steering steer(final State s, final Pos pos, final DirectionVector dir, final int distance,
+            final int angle) {
+        final ViewCone cone = ComputationUtils.viewCone(pos, dir, distance, angle);
+        final Flock flock = new Flock();
+        s.forEachAgentInRadius(pos, distance, Neighborhood.MOORE, (x, y, agent) -> {
+            if (cone.contains(x, y)) {
+                flock.addObstacle(pos, x, y);
+                flock.addBoid(x, y, DIRECTION_PARAM.get(agent.getParameters()));
+            }
+        });
+        if (!s.getEntities().isEmpty()) {
+            final int[] cells = ComputationUtils.closeCells(pos, dir, distance, angle);
+            for (int i = 0; i < cells.length; i += 2) {
+                final Pos p = new PosImpl(cells[i], cells[i + 1]);
+                if (s.getEntityAt(p).isPresent() && s.getAgentAt(p).isEmpty()) {
+                    flock.addObstacle(pos, p.getX(), p.getY());
+                }
+            }
+        }
+        final double dirX = dir.getNormalizedX();
+        final double dirY = dir.getNormalizedY();
+        final double away = Vectors.magnitude(flock.awayX, flock.awayY);
+        final int boids = flock.boids;
+        final double heading = boids == 0 ? 1 : Vectors.magnitude(flock.headingX / boids, flock.headingY / boids);
         // Compute a vector pointing to che center of the flock
-        final Set<Pos> closeCells = ComputationUtils.computeCloseCells(pos, dir, distance, angle);
-        final Set<Pos> agents = getAgentsCells(s, closeCells);
-        final Pos center = closeCells.stream()
-                .filter(p -> s.getAgentAt(p).isPresent())
-                .reduce((a, b) -> new PosImpl(a.getX() + b.getX(), a.getY() + b.getY()))
-                .map(p -> new PosImpl(p.getX() / agents.size(), p.getY() / agents.size()))
-                .orElse(new PosImpl(pos.getX(), pos.getY()));
-        return new DirectionVectorImpl(center.getX() - pos.getX(), center.getY() - pos.getY()).getNormalized();
+        final int centerX = boids == 0 ? 0 : flock.sumX / boids - pos.getX();
+        final int centerY = boids == 0 ? 0 : flock.sumY / boids - pos.getY();
+        final double center = Vectors.magnitude(centerX, centerY);
+        return new Steering(
+                flock.obstacles == 0 ? dirX : flock.awayX / away,
+                flock.obstacles == 0 ? dirY : flock.awayY / away,
+                boids == 0 ? dirX : flock.headingX / boids / heading,
+                boids == 0 ? dirY : flock.headingY / boids / heading,
+                centerX / center,
+                centerY / center);
     }
 
-    private DirectionVector mixer(final DirectionVector original,
-            final DirectionVector a, final DirectionVector b,
-            final DirectionVector c,
+    private DirectionVector mixer(final DirectionVector original, final Steering steering,
             final double w1, final double w2, final double w3) {
-        double i = 0;
-        double j = 0;
-        final List<DirectionVector> vectors = List.of(a, b, c);
-        final List<Double> weights = List.of(w1, w2, w3);
-        for (final DirectionVector v : vectors) {
-            i += v.getNormalizedX() * weights.get(vectors.indexOf(v));
-            j += v.getNormalizedY() * weights.get(vectors.indexOf(v));
-        }
+        double i = steering.collisionX() * w1 + steering.alignmentX() * w2 + steering.cohesionX() * w3;
+        double j = steering.collisionY() * w1 + steering.alignmentY() * w2 + steering.cohesionY() * w3;
         i *= USERCORRECTIONWEIGHT;
         j *= USERCORRECTIONWEIGHT;
         i += original.getNormalizedX() * (1 - USERCORRECTIONWEIGHT);
         j += original.getNormalizedY() * (1 - USERCORRECTIONWEIGHT);
-        return new DirectionVectorImpl(i, j).getNormalized();
+        return Vectors.normalized(i, j);
     }
 
-    private int transform(final int z, final int max) {
+    private static int transform(final int z, final int max) {
         if (z < 0) {
 
             return max + z;
@@ -123,28 +198,47 @@ public final class BoidsAgentFactory implements AgentFactory {
         return z;
     }
 
-    private Pos mapToGrid(final Pos pos, final State state) {
+    // porta una coordinata precisa dall'altro lato del bordo, tra -0.5 e max - 0.5
+    private static double wrap(final double z, final int max) {
+        final double wrapped = z - max * Math.floor((z + HALF) / max);
+        final int cell = Math.round((float) wrapped);
+        if (cell >= max) {
+            return wrapped - max;
+        }
+        return cell < 0 ? wrapped + max : wrapped;
+    }
+
+    private static Pos mapToGrid(final Pos pos, final State state) {
         // If pos is negativa => to the other side
         // if pose over the limit => to the other side
         return new PosImpl(transform(pos.getX(), state.getDimensions().getFirst()),
                 transform(pos.getY(), state.getDimensions().getSecond()));
     }
 
-    private Pos getPosNear(final Pos pos, final State state, final int distance, final DirectionVector dir,
-            final int angle) {
-        if (distance > state.getDimensions().getFirst() && distance > state.getDimensions().getSecond()) {
-            return pos;
-        }
-        final Optional<Pos> newPos = ComputationUtils.computeCloseCells(pos, dir, distance, 180).stream()
-                .map(p -> mapToGrid(p, state))
-                .filter(state::isFree)
-                .findAny()
-                .map(Pos.class::cast);
-        if (newPos.isEmpty()) {
-            return getPosNear(pos, state, distance + 1, dir, angle);
+    /**
+     * Finds a free cell in front of a position, in the half circle along the
+     * direction, widening the circle one cell at a time until it is larger
+     * than the board; the board wraps around at the borders.
+     *
+     * @param pos      the position
+     * @param state    the state
+     * @param distance the radius of the first circle
+     * @param dir      the direction
+     * @return the free cell, or the position itself if there is none
+     */
+    private static Pos getPosNear(final Pos pos, final State state, final int distance, final DirectionVector dir) {
+        final int width = state.getDimensions().getFirst();
+        final int height = state.getDimensions().getSecond();
+        for (int d = distance; d <= width || d <= height; d++) {
+            final int[] cells = ComputationUtils.closeCells(pos, dir, d, HALF_CIRCLE);
+            for (int c = 0; c < cells.length; c += 2) {
+                final Pos newPos = mapToGrid(new PosImpl(cells[c], cells[c + 1]), state);
+                if (state.isInside(newPos) && state.isFree(newPos)) {
+                    return newPos;
+                }
+            }
         }
-
-        return newPos.get();
+        return pos;
     }
 
     DirectionVector steerAwayFromBorder(final Pos currentPos, final int width, final int height) {
@@ -158,44 +252,54 @@ public final class BoidsAgentFactory implements AgentFactory {
             return currentState;
         }
         final Agent agent = currentState.getAgentAt(agentPosition).get();
-        if (!agent.getParameters().getParametersToset().isEmpty()) {
+        final Parameters parameters = agent.getParameters();
+        if (!parameters.areAllParametersSetted()) {
             throw new IllegalStateException("Parameters not set");
         }
 
-        final DirectionVector dir = agent.getParameters()
-                .getParameter(DIRECTION, DirectionVectorImpl.class).get().getValue();
-        final Integer angle = agent.getParameters()
-                .getParameter("angle", Integer.class).get().getValue();
-        final Integer distance = agent.getParameters()
-                .getParameter("distance", Integer.class).get().getValue();
+        final DirectionVector dir = DIRECTION_PARAM.get(parameters);
+        final int angle = ANGLE_PARAM.get(parameters);
+        final int distance = DISTANCE_PARAM.get(parameters);
 
         final DirectionVector newDir = mixer(
                 dir,
-                collisionAvoindance(currentState, agentPosition, dir, distance, angle),
-                directionAlignment(currentState, agentPosition, dir, distance, angle),
-                centerCohesion(currentState, agentPosition, dir, distance, angle),
-                agent.getParameters().getParameter("collisionAvoidanceWeight", Double.class)
-                        .get().getValue(),
-                agent.getParameters().getParameter("alignmentWeight", Double.class)
-                        .get().getValue(),
-                agent.getParameters().getParameter("cohesionWeight", Double.class)
-                        .get().getValue());
-
-        agent.setParameter(DIRECTION, newDir);
-        final int stepSize = agent.getParameters().getParameter("stepSize", Integer.class)
-                .get().getValue();
-        Pos newPos = ComputationUtils
-                .move(agentPosition, newDir,
-                        agent.getParameters().getParameter("stepSize", Integer.class)
-                                .get().getValue());
-        newPos = mapToGrid(newPos, currentState);
-        if (!currentState.isFree(newPos)) {
-            newPos = getPosNear(newPos, currentState, stepSize * 2, newDir, angle);
+                steer(currentState, agentPosition, dir, distance, angle),
+                COLLISION_AVOIDANCE_PARAM.get(parameters),
+                ALIGNMENT_PARAM.get(parameters),
+                COHESION_PARAM.get(parameters));
+
+        DIRECTION_PARAM.set(parameters, newDir);
+        move(currentState, agentPosition, newDir, STEP_SIZE_PARAM.get(parameters));
+        return currentState;
+    }
+
+    /**
+     * Moves a boid along its new direction, to a free cell in front of it if
+     * the one it reaches is taken; the board wraps around at the borders.
+     *
+     * @param state    the state
+     * @param pos      the position of the boid
+     * @param dir      the new direction of the boid
+     * @param stepSize the step size of the boid
+     */
+    static void move(final State state, final Pos pos, final DirectionVector dir, final int stepSize) {
+        final Optional<ContinuousState> space = state.asContinuous();
+        if (space.isPresent()) {
+            // nello spazio continuo il boid si sposta senza cercare una cella libera
+            final Pair<Double, Double> point = space.get().getPoint(pos);
+            space.get().moveAgent(pos,
+                    wrap(point.getFirst() + dir.getNormalizedX() * stepSize, state.getDimensions().getFirst()),
+                    wrap(point.getSecond() + dir.getNormalizedY() * stepSize, state.getDimensions().getSecond()));
+            return;
         }
-        if (currentState.isFree(newPos)) {
-            currentState.moveAgent(agentPosition, newPos);
+        Pos newPos = ComputationUtils.move(pos, dir, stepSize);
+        newPos = mapToGrid(newPos, state);
+        if (!state.isFree(newPos)) {
+            newPos = getPosNear(newPos, state, stepSize * 2, dir);
+        }
+        if (state.isFree(newPos)) {
+            state.moveAgent(pos, newPos);
         }
-        return currentState;
     }
 
     /**
@@ -212,35 +316,11 @@ public final class BoidsAgentFactory implements AgentFactory {
      */
     @Override
     public Agent createAgent() {
-        return new AgentBuilderImpl()
-                .addParameter(new ParameterImpl<>("distance", Integer.class,
-                        new ParameterDomainImpl<>("il raggio di visione in celle (1-10)",
-                                (Integer d) -> d > 0 && d <= 10),
-                        true))
-                .addParameter(new ParameterImpl<>("angle", Integer.class,
-                        new ParameterDomainImpl<>("il raggio di visione in gradi (0-180)",
-                                (Integer d) -> d > 0 && d <= 180),
-                        true))
-                .addParameter(new ParameterImpl<>(DIRECTION, ComputationUtils.getRandomDirection(r),
-                        false))
-                .addParameter(new ParameterImpl<>("collisionAvoidanceWeight", Double.class,
-                        new ParameterDomainImpl<>(
-                                "il peso dell'evitamento degli ostacoli (0.0-1.0)",
-                                (Double d) -> d >= 0.0 && d <= 1.0),
-                        true))
-                .addParameter(new ParameterImpl<>("alignmentWeight", Double.class,
-                        new ParameterDomainImpl<>("il peso dell'allineamento (0.0-1.0)",
-                                (Double d) -> d >= 0.0 && d <= 1.0),
-                        true))
-                .addParameter(new ParameterImpl<>("cohesionWeight", Double.class,
-                        new ParameterDomainImpl<>("il peso della coesione (0.0-1.0)",
-                                (Double d) -> d >= 0.0 && d <= 1.0),
-                        true))
-                .addParameter(new ParameterImpl<>("stepSize", Integer.class,
-                        new ParameterDomainImpl<>("la dimensione del passo (1-10)",
-                                (Integer d) -> d > 0 && d <= 10),
-                        true))
+        final Agent agent = new AgentBuilderImpl()
+                .addParameters(SCHEMA)
                 .addStrategy(this::tickFunction)
                 .build();
+        DIRECTION_PARAM.set(agent.getParameters(), ComputationUtils.getRandomDirection(r));
+        return agent;
     }
 }
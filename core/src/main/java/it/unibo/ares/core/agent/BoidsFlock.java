@@ -0,0 +1,421 @@
+package it.unibo.ares.core.agent;
+
+import java.util.Arrays;
+import java.util.List;
+
+import it.unibo.ares.core.utils.ComputationUtils;
+import it.unibo.ares.core.utils.ViewCone;
+import it.unibo.ares.core.utils.directionvector.DirectionVector;
+import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
+import it.unibo.ares.core.utils.directionvector.Vectors;
+import it.unibo.ares.core.utils.parameters.CompiledParameters;
+import it.unibo.ares.core.utils.parameters.Parameters;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.Neighborhood;
+import it.unibo.ares.core.utils.state.State;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The boids of a state laid out as a structure of arrays, to tick a whole
+ * flock at once.
+ * The position, the direction and the parameters of every boid are copied in
+ * primitive arrays when the flock is loaded, and the three rules are
+ * computed from them in three passes: {@link #sense(int, int)} sums what
+ * every boid sees, visiting only the agents around it and reading the boids
+ * of the flock from the arrays, {@link #steer()} turns the sums in the new
+ * directions with a single loop of arithmetic over the arrays, and
+ * {@link #apply(State)} writes the directions back in the parameters of the
+ * agents and moves them.
+ * Every boid reads the flock as it was when it was loaded, so the boids can
+ * be sensed in any order and on many threads; the moves are then applied in
+ * the order of the boids. The directions are the same, bit for bit, that
+ * {@link BoidsAgentFactory} computes for a boid that reads the same state.
+ * The arrays are kept from a load to the next one and are allocated again
+ * only when the board changes size or the flock outgrows them, so a flock
+ * can be reused at every tick without garbage.
+ */
+public final class BoidsFlock {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    // sotto i 128 bit le corsie dei double sono meno di due, non conviene
+    private static final int MIN_BITS = 128;
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()
+            && VectorKernel.isUsable();
+    private State previous;
+    private int width;
+    private int height;
+    private int size;
+    // il boid di ogni cella più uno, 0 se nella cella non c'è un boid dello stormo
+    private int[] occupants = new int[0];
+    private boolean hasEntities;
+
+    private Agent[] agents = new Agent[0];
+    private Pos[] positions = new Pos[0];
+    private DirectionVector[] directions = new DirectionVector[0];
+    private int[] x = new int[0];
+    private int[] y = new int[0];
+    private double[] directionX = new double[0];
+    private double[] directionY = new double[0];
+    private double[] normalX = new double[0];
+    private double[] normalY = new double[0];
+    private int[] distance = new int[0];
+    private int[] angle = new int[0];
+    private int[] stepSize = new int[0];
+    private double[] collisionWeight = new double[0];
+    private double[] alignmentWeight = new double[0];
+    private double[] cohesionWeight = new double[0];
+
+    private int[] obstacles = new int[0];
+    private int[] awayX = new int[0];
+    private int[] awayY = new int[0];
+    private int[] boids = new int[0];
+    private double[] headingX = new double[0];
+    private double[] headingY = new double[0];
+    private int[] sumX = new int[0];
+    private int[] sumY = new int[0];
+    private double[] newX = new double[0];
+    private double[] newY = new double[0];
+
+    private void allocate(final int capacity) {
+        agents = new Agent[capacity];
+        positions = new Pos[capacity];
+        directions = new DirectionVector[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        directionX = new double[capacity];
+        directionY = new double[capacity];
+        normalX = new double[capacity];
+        normalY = new double[capacity];
+        distance = new int[capacity];
+        angle = new int[capacity];
+        stepSize = new int[capacity];
+        collisionWeight = new double[capacity];
+        alignmentWeight = new double[capacity];
+        cohesionWeight = new double[capacity];
+        obstacles = new int[capacity];
+        awayX = new int[capacity];
+        awayY = new int[capacity];
+        boids = new int[capacity];
+        headingX = new double[capacity];
+        headingY = new double[capacity];
+        sumX = new int[capacity];
+        sumY = new int[capacity];
+        newX = new double[capacity];
+        newY = new double[capacity];
+    }
+
+    private void clearSums(final int n) {
+        Arrays.fill(obstacles, 0, n, 0);
+        Arrays.fill(awayX, 0, n, 0);
+        Arrays.fill(awayY, 0, n, 0);
+        Arrays.fill(boids, 0, n, 0);
+        Arrays.fill(headingX, 0, n, 0);
+        Arrays.fill(headingY, 0, n, 0);
+        Arrays.fill(sumX, 0, n, 0);
+        Arrays.fill(sumY, 0, n, 0);
+    }
+
+    /**
+     * Copies the boids at some positions of a state, in place of the ones that
+     * were loaded before.
+     *
+     * @param previous  the state, it must not change while the flock is in use
+     * @param positions the positions of the boids, see {@link #isBoid(Agent)}
+     * @throws IllegalArgumentException if there is no boid at a position
+     * @throws IllegalStateException    if the parameters of a boid are not set
+     */
+    public void load(final State previous, final List<Pos> positions) {
+        final int n = positions.size();
+        final int newWidth = previous.getDimensions().getFirst();
+        final int newHeight = previous.getDimensions().getSecond();
+        if (newWidth != width || newHeight != height) {
+            this.width = newWidth;
+            this.height = newHeight;
+            this.occupants = new int[width * height];
+        } else {
+            // si puliscono solo le celle del carico precedente
+            for (int i = 0; i < size; i++) {
+                occupants[y[i] * width + x[i]] = 0;
+            }
+        }
+        // gli agenti del carico precedente non devono restare raggiungibili
+        Arrays.fill(agents, 0, size, null);
+        Arrays.fill(this.positions, 0, size, null);
+        Arrays.fill(directions, 0, size, null);
+        this.size = 0;
+        if (n > agents.length) {
+            allocate(Math.max(n, agents.length + agents.length / 2));
+        } else {
+            clearSums(n);
+        }
+        this.previous = previous;
+        this.hasEntities = !previous.getEntities().isEmpty();
+        for (int i = 0; i < n; i++) {
+            final Pos pos = positions.get(i);
+            final Agent agent = previous.getAgentAt(pos)
+                    .filter(BoidsFlock::isBoid)
+                    .orElseThrow(() -> new IllegalArgumentException("No boid at a position of the flock"));
+            final Parameters parameters = agent.getParameters();
+            if (!parameters.areAllParametersSetted()) {
+                throw new IllegalStateException("Parameters not set");
+            }
+            agents[i] = agent;
+            this.positions[i] = pos;
+            x[i] = pos.getX();
+            y[i] = pos.getY();
+            directions[i] = BoidsAgentFactory.DIRECTION_PARAM.get(parameters);
+            directionX[i] = directions[i].getX();
+            directionY[i] = directions[i].getY();
+            normalX[i] = directions[i].getNormalizedX();
+            normalY[i] = directions[i].getNormalizedY();
+            distance[i] = BoidsAgentFactory.DISTANCE_PARAM.get(parameters);
+            angle[i] = BoidsAgentFactory.ANGLE_PARAM.get(parameters);
+            stepSize[i] = BoidsAgentFactory.STEP_SIZE_PARAM.get(parameters);
+            collisionWeight[i] = BoidsAgentFactory.COLLISION_AVOIDANCE_PARAM.get(parameters);
+            alignmentWeight[i] = BoidsAgentFactory.ALIGNMENT_PARAM.get(parameters);
+            cohesionWeight[i] = BoidsAgentFactory.COHESION_PARAM.get(parameters);
+            occupants[y[i] * width + x[i]] = i + 1;
+            // la cella è già segnata, il prossimo carico la pulisce anche se questo fallisce
+            this.size = i + 1;
+        }
+    }
+
+    /**
+     * @param agent the agent
+     * @return true if the agent was created by {@link BoidsAgentFactory}, so
+     *         it can be part of a flock
+     */
+    public static boolean isBoid(final Agent agent) {
+        return agent.getParameters() instanceof CompiledParameters compiled
+                && compiled.getSchema().matches(BoidsAgentFactory.SCHEMA);
+    }
+
+    /**
+     * @return the number of boids of the flock
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sums the obstacles and the boids seen by some boids of the flock. The
+     * agents around every boid are visited through
+     * {@link State#forEachAgentInRadius}, row by row, so the sums are the same
+     * of {@link BoidsAgentFactory} and the cost follows the number of agents
+     * nearby rather than the area seen. Different ranges can be sensed
+     * concurrently.
+     *
+     * @param from the first boid, inclusive
+     * @param to   the last boid, exclusive
+     */
+    public void sense(final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            final int boid = i;
+            final int px = x[i];
+            final int py = y[i];
+            final ViewCone cone = ComputationUtils.viewCone(positions[i], directions[i], distance[i], angle[i]);
+            previous.forEachAgentInRadius(positions[i], distance[i], Neighborhood.MOORE, (cx, cy, agent) -> {
+                if (cone.contains(cx, cy)) {
+                    obstacles[boid]++;
+                    awayX[boid] += px - cx;
+                    awayY[boid] += py - cy;
+                    boids[boid]++;
+                    sumX[boid] += cx;
+                    sumY[boid] += cy;
+                    final int occupant = occupants[cy * width + cx];
+                    if (occupant > 0) {
+                        headingX[boid] += directionX[occupant - 1];
+                        headingY[boid] += directionY[occupant - 1];
+                    } else {
+                        final DirectionVector heading = BoidsAgentFactory.DIRECTION_PARAM.get(agent.getParameters());
+                        headingX[boid] += heading.getX();
+                        headingY[boid] += heading.getY();
+                    }
+                }
+            });
+            if (hasEntities) {
+                senseEntities(i);
+            }
+        }
+    }
+
+    private void senseEntities(final int i) {
+        final int[] cells = ComputationUtils.closeCells(positions[i], directions[i], distance[i], angle[i]);
+        for (int c = 0; c < cells.length; c += 2) {
+            final Pos p = new PosImpl(cells[c], cells[c + 1]);
+            if (previous.getEntityAt(p).isPresent() && previous.getAgentAt(p).isEmpty()) {
+                obstacles[i]++;
+                awayX[i] += x[i] - p.getX();
+                awayY[i] += y[i] - p.getY();
+            }
+        }
+    }
+
+    /**
+     * Computes the new direction of every boid from the sums of
+     * {@link #sense(int, int)}: the directions of the three rules are
+     * normalized and mixed with the weights of the boid and with its current
+     * direction. It is a single loop of arithmetic over the arrays of the
+     * flock, without allocations or virtual calls; when the JVM is started
+     * with {@code --add-modules jdk.incubator.vector} the loop runs on the
+     * lanes of the vector registers through the Vector API, otherwise on one
+     * boid at a time. The two give the same directions, bit for bit.
+     */
+    public void steer() {
+        steer(VECTORIZED);
+    }
+
+    /**
+     * Computes the new directions like {@link #steer()}.
+     *
+     * @param vectorized whether to use the Vector API, it is ignored if the
+     *                   module of the Vector API is missing
+     */
+    void steer(final boolean vectorized) {
+        final int from = vectorized && VECTORIZED ? VectorKernel.steer(this) : 0;
+        steer(from, size);
+    }
+
+    /**
+     * @return whether {@link #steer()} uses the Vector API
+     */
+    static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    private void steer(final int from, final int to) {
+        final double correction = BoidsAgentFactory.USERCORRECTIONWEIGHT;
+        for (int i = from; i < to; i++) {
+            final int b = boids[i];
+            final double away = Vectors.magnitude(awayX[i], awayY[i]);
+            final double heading = b == 0 ? 1 : Vectors.magnitude(headingX[i] / b, headingY[i] / b);
+            final int centerX = b == 0 ? 0 : sumX[i] / b - x[i];
+            final int centerY = b == 0 ? 0 : sumY[i] / b - y[i];
+            final double center = Vectors.magnitude(centerX, centerY);
+            final double collisionX = obstacles[i] == 0 ? normalX[i] : awayX[i] / away;
+            final double collisionY = obstacles[i] == 0 ? normalY[i] : awayY[i] / away;
+            final double alignmentX = b == 0 ? normalX[i] : headingX[i] / b / heading;
+            final double alignmentY = b == 0 ? normalY[i] : headingY[i] / b / heading;
+            double mixX = collisionX * collisionWeight[i] + alignmentX * alignmentWeight[i]
+                    + centerX / center * cohesionWeight[i];
+            double mixY = collisionY * collisionWeight[i] + alignmentY * alignmentWeight[i]
+                    + centerY / center * cohesionWeight[i];
+            mixX *= correction;
+            mixY *= correction;
+            mixX += normalX[i] * (1 - correction);
+            mixY += normalY[i] * (1 - correction);
+            final double magnitude = Vectors.magnitude(mixX, mixY);
+            newX[i] = mixX / magnitude;
+            newY[i] = mixY / magnitude;
+        }
+    }
+
+    /**
+     * Stores the new directions in the boids and moves them, in the order of
+     * the flock, as {@link BoidsAgentFactory} does. A boid that is no longer
+     * at its position is skipped.
+     *
+     * @param next the state to change
+     */
+    public void apply(final State next) {
+        for (int i = 0; i < size; i++) {
+            final Agent agent = agents[i];
+            if (next.getAgentAt(positions[i]).filter(agent::equals).isPresent()) {
+                final DirectionVector dir = new DirectionVectorImpl(newX[i], newY[i]);
+                BoidsAgentFactory.DIRECTION_PARAM.set(agent.getParameters(), dir);
+                BoidsAgentFactory.move(next, positions[i], dir, stepSize[i]);
+            }
+        }
+    }
+
+    /**
+     * The loop of {@link BoidsFlock#steer()} on the Vector API, loaded only
+     * when the module of the Vector API is present. Every operation is the
+     * one of the scalar loop, lane by lane and in the same order, without
+     * fused multiply-adds, so the results are the same bit for bit; the
+     * branches become blends on the lanes where the condition holds.
+     */
+    private static final class VectorKernel {
+        private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+        // gli interi hanno metà dei bit, così le corsie sono tante quante quelle dei double
+        private static final VectorSpecies<Integer> INTS = DOUBLES.vectorBitSize() < MIN_BITS ? null
+                : VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+        private VectorKernel() {
+        }
+
+        static boolean isUsable() {
+            return INTS != null && INTS.length() == DOUBLES.length();
+        }
+
+        private static DoubleVector doubles(final int[] array, final int i) {
+            return (DoubleVector) IntVector.fromArray(INTS, array, i).convertShape(VectorOperators.I2D, DOUBLES, 0);
+        }
+
+        private static DoubleVector magnitude(final DoubleVector x, final DoubleVector y) {
+            final VectorMask<Double> zero = x.compare(VectorOperators.EQ, 0).and(y.compare(VectorOperators.EQ, 0));
+            return x.mul(x).add(y.mul(y)).sqrt().blend(1, zero);
+        }
+
+        /**
+         * Steers the boids of the flock in blocks as long as the vectors.
+         *
+         * @param flock the flock
+         * @return the first boid that was not steered, the ones left are
+         *         fewer than the lanes of a vector
+         */
+        static int steer(final BoidsFlock flock) {
+            final double correction = BoidsAgentFactory.USERCORRECTIONWEIGHT;
+            final int bound = DOUBLES.loopBound(flock.size);
+            int i = 0;
+            for (; i < bound; i += DOUBLES.length()) {
+                final IntVector bInts = IntVector.fromArray(INTS, flock.boids, i);
+                final VectorMask<Double> noBoids = bInts.compare(VectorOperators.EQ, 0).cast(DOUBLES);
+                final VectorMask<Double> noObstacles = IntVector.fromArray(INTS, flock.obstacles, i)
+                        .compare(VectorOperators.EQ, 0).cast(DOUBLES);
+                final DoubleVector b = doubles(flock.boids, i);
+                final DoubleVector normalX = DoubleVector.fromArray(DOUBLES, flock.normalX, i);
+                final DoubleVector normalY = DoubleVector.fromArray(DOUBLES, flock.normalY, i);
+                final DoubleVector awayX = doubles(flock.awayX, i);
+                final DoubleVector awayY = doubles(flock.awayY, i);
+                final DoubleVector away = magnitude(awayX, awayY);
+                final DoubleVector headingX = DoubleVector.fromArray(DOUBLES, flock.headingX, i).div(b);
+                final DoubleVector headingY = DoubleVector.fromArray(DOUBLES, flock.headingY, i).div(b);
+                final DoubleVector heading = magnitude(headingX, headingY).blend(1, noBoids);
+                // la divisione intera del centro, con 1 al posto di 0 dove non si vedono boid
+                final IntVector safeB = bInts.blend(1, bInts.compare(VectorOperators.EQ, 0));
+                final DoubleVector centerX = (DoubleVector) IntVector.fromArray(INTS, flock.sumX, i)
+                        .lanewise(VectorOperators.DIV, safeB).sub(IntVector.fromArray(INTS, flock.x, i))
+                        .convertShape(VectorOperators.I2D, DOUBLES, 0);
+                final DoubleVector centerY = (DoubleVector) IntVector.fromArray(INTS, flock.sumY, i)
+                        .lanewise(VectorOperators.DIV, safeB).sub(IntVector.fromArray(INTS, flock.y, i))
+                        .convertShape(VectorOperators.I2D, DOUBLES, 0);
+                final DoubleVector cohesionX = centerX.blend(0, noBoids);
+                final DoubleVector cohesionY = centerY.blend(0, noBoids);
+                final DoubleVector center = magnitude(cohesionX, cohesionY);
+                final DoubleVector collisionX = awayX.div(away).blend(normalX, noObstacles);
+                final DoubleVector collisionY = awayY.div(away).blend(normalY, noObstacles);
+                final DoubleVector alignmentX = headingX.div(heading).blend(normalX, noBoids);
+                final DoubleVector alignmentY = headingY.div(heading).blend(normalY, noBoids);
+                final DoubleVector collisionWeight = DoubleVector.fromArray(DOUBLES, flock.collisionWeight, i);
+                final DoubleVector alignmentWeight = DoubleVector.fromArray(DOUBLES, flock.alignmentWeight, i);
+                final DoubleVector cohesionWeight = DoubleVector.fromArray(DOUBLES, flock.cohesionWeight, i);
+                final DoubleVector mixX = collisionX.mul(collisionWeight).add(alignmentX.mul(alignmentWeight))
+                        .add(cohesionX.div(center).mul(cohesionWeight))
+                        .mul(correction).add(normalX.mul(1 - correction));
+                final DoubleVector mixY = collisionY.mul(collisionWeight).add(alignmentY.mul(alignmentWeight))
+                        .add(cohesionY.div(center).mul(cohesionWeight))
+                        .mul(correction).add(normalY.mul(1 - correction));
+                final DoubleVector magnitude = magnitude(mixX, mixY);
+                mixX.div(magnitude).intoArray(flock.newX, i);
+                mixY.div(magnitude).intoArray(flock.newY, i);
+            }
+            return i;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package it.unibo.ares.core.agent;
 
 import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.parameters.IntParam;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
+import it.unibo.ares.core.utils.parameters.Parameters;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.state.State;
 
@@ -23,6 +28,45 @@ public final class ConsumerAgentFactory implements AgentFactory {
      * This class represents a factory for creating consumer agents.
      */
     public static final String CONSUMER = "C";
+    private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>(
+                    "visionRadius", Integer.class,
+                    new ParameterDomainImpl<>("raggio di visione consumer", (Integer i) -> i > 0),
+                    true),
+            new ParameterImpl<>(
+                    "metabolismRate", Integer.class,
+                    new ParameterDomainImpl<>("velocita metaboilismo consumer", (Integer i) -> i > 0),
+                    true),
+            new ParameterImpl<>(
+                    SUGAR, Integer.class,
+                    new ParameterDomainImpl<>("zucchero iniziale consumer", (Integer i) -> i >= 0),
+                    true),
+            new ParameterImpl<>(
+                    "maxSugar", Integer.class,
+                    new ParameterDomainImpl<>("max zucchero consumer", (Integer i) -> i > 0),
+                    true)));
+    private static final IntParam VISION_RADIUS_PARAM = SCHEMA.intParam("visionRadius");
+    private static final IntParam METABOLISM_RATE_PARAM = SCHEMA.intParam("metabolismRate");
+    private static final IntParam SUGAR_PARAM = SCHEMA.intParam(SUGAR);
+    private static final IntParam MAX_SUGAR_PARAM = SCHEMA.intParam("maxSugar");
+    // il campo dello zucchero del tick corrente, condiviso dai consumer di questa factory
+    private transient SugarField field;
+
+    /**
+     * Updates the distances from the sugar shared by the consumers created by
+     * this factory, it should be called once per tick before the consumers
+     * are ticked. A consumer ticked on the same state finds its sugar through
+     * them in constant time, on any other state it scans its vision radius.
+     *
+     * @param state the state of the current tick
+     */
+    public void updateSugarField(final State state) {
+        if (field == null || !field.fits(state)) {
+            field = new SugarField(state);
+        } else {
+            field.update(state);
+        }
+    }
 
     /**
      * Returns a set of neighboring positions within a given vision radius from a
@@ -56,9 +100,7 @@ public final class ConsumerAgentFactory implements AgentFactory {
     private Integer getCompetionForSugar(final State state, final Pos sugarPos, final int visionRadius,
             final int distance) {
         final Integer relativeVisionRadius = visionRadius - distance;
-        return (int) state.getPosByPosAndRadius(sugarPos, relativeVisionRadius).stream()
-                .filter(p -> state.getAgentAt(p).isPresent())
-                .filter(p -> CONSUMER.equals(state.getAgentAt(p).get().getType()))
+        return (int) state.getPosByTypeAndRadius(sugarPos, relativeVisionRadius, CONSUMER).stream()
                 .filter(p -> getDistanceBetweeenPos(p, sugarPos) <= distance)
                 .count();
 
@@ -103,9 +145,7 @@ public final class ConsumerAgentFactory implements AgentFactory {
      */
     private Set<Pair<Pos, Integer>> getSugarPositions(final State state, final Pos position,
             final int visionRadius, final long maxSteps) {
-        return state.getPosByPosAndRadius(position, visionRadius).stream()
-                .filter(p -> state.getAgentAt(p).isPresent())
-                .filter(p -> SugarAgentFactory.SUGAR.equals(state.getAgentAt(p).get().getType()))
+        return state.getPosByTypeAndRadius(position, visionRadius, SugarAgentFactory.SUGAR).stream()
                 .filter(p -> getDistanceBetweeenPos(p, position) <= maxSteps) // If I can't reach it in
                                                                               // time, don't
                                                                               // consider it
@@ -116,114 +156,117 @@ public final class ConsumerAgentFactory implements AgentFactory {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Chooses the sugar to go for by scanning the vision radius: every sugar
+     * that can be reached in time is weighted by its amount and by the
+     * consumers around it.
+     *
+     * @param state        the current state
+     * @param pos          the position of the consumer
+     * @param visionRadius the vision radius of the consumer
+     * @param maxSteps     the maximum number of steps to reach the sugar
+     * @return the position of the sugar, if any
+     */
+    private Optional<Pos> findSugarByScan(final State state, final Pos pos, final int visionRadius,
+            final long maxSteps) {
+        return getSugarPositions(state, pos, visionRadius, maxSteps)
+                .stream()
+                .sorted(Comparator.comparingDouble(pp -> {
+                    if (pp.getSecond() == 0) {
+                        return Double.NEGATIVE_INFINITY;
+                    }
+                    return -(SugarAgentFactory.SUGAR_AMOUNT_PARAM.get(
+                            state.getAgentAt(pp.getFirst()).get().getParameters()) / pp.getSecond());
+                }))
+                .map(Pair::getFirst)
+                .findFirst();
+    }
+
+    /**
+     * Chooses the sugar to go for among the two nearest ones of the field:
+     * the one with the most sugar for each consumer that goes for it, the
+     * nearest one on a tie.
+     *
+     * @param sugarField   the field of the current state
+     * @param state        the current state
+     * @param pos          the position of the consumer
+     * @param visionRadius the vision radius of the consumer
+     * @param maxSteps     the maximum number of steps to reach the sugar
+     * @return the position of the sugar, if any
+     */
+    private Optional<Pos> findSugarInField(final SugarField sugarField, final State state, final Pos pos,
+            final int visionRadius, final long maxSteps) {
+        final List<Pos> nearest = sugarField.nearestSugars(pos);
+        Pos best = null;
+        double bestShare = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < nearest.size(); i++) {
+            final Pos sugarPos = nearest.get(i);
+            final Pos diff = sugarPos.diff(pos);
+            final Optional<Agent> sugar = state.getAgentAt(sugarPos)
+                    .filter(a -> SugarAgentFactory.SUGAR.equals(a.getType()));
+            if (sugar.isPresent() && Math.max(Math.abs(diff.getX()), Math.abs(diff.getY())) <= visionRadius
+                    && getDistanceBetweeenPos(sugarPos, pos) <= maxSteps) {
+                // il consumer stesso è contato tra quelli che vanno verso lo zucchero più vicino
+                final int rivals = sugarField.competitionFor(sugarPos) - (i == 0 ? 1 : 0);
+                final int amount = SugarAgentFactory.SUGAR_AMOUNT_PARAM.get(sugar.get().getParameters());
+                final double share = (double) amount / (Math.max(0, rivals) + 1);
+                if (share > bestShare) {
+                    best = sugarPos;
+                    bestShare = share;
+                }
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
     private void consumeSugar(final State state, final Pos pos, final Pos sugarPos,
             final int maxSugar) {
-        final int sugarAmount = state.getAgentAt(sugarPos)
+        final Parameters sugarParameters = state.getAgentAt(sugarPos)
                 .orElseThrow(() -> new IllegalStateException(ERR))
-                .getParameters()
-                .getParameter("sugarAmount", Integer.class)
-                .orElseThrow(() -> new IllegalArgumentException("Agent has no sugarAmount parameter"))
-                .getValue();
-
-        final int sugar = state.getAgentAt(pos)
+                .getParameters();
+        final Parameters parameters = state.getAgentAt(pos)
                 .orElseThrow(() -> new IllegalStateException(ERR))
-                .getParameters()
-                .getParameter(SUGAR, Integer.class)
-                .orElseThrow(() -> new IllegalArgumentException("Agent has no sugar parameter"))
-                .getValue();
+                .getParameters();
+        final int sugarAmount = SugarAgentFactory.SUGAR_AMOUNT_PARAM.get(sugarParameters);
+        final int sugar = SUGAR_PARAM.get(parameters);
 
         final int maxSugarIntake = Math.min(maxSugar - sugar, sugarAmount);
-        state.getAgentAt(pos)
-                .ifPresent(agent -> agent.getParameters().setParameter(SUGAR, sugar + maxSugarIntake));
-
-        state.getAgentAt(sugarPos)
-                .ifPresent(agent -> agent.getParameters().setParameter("sugarAmount", sugarAmount - maxSugarIntake));
+        SUGAR_PARAM.set(parameters, sugar + maxSugarIntake);
+        SugarAgentFactory.SUGAR_AMOUNT_PARAM.set(sugarParameters, sugarAmount - maxSugarIntake);
     }
 
     private Agent createConsumerAgent() {
         final AgentBuilder builder = new AgentBuilderImpl();
-        builder.addParameter(new ParameterImpl<>(
-                "visionRadius", Integer.class,
-                new ParameterDomainImpl<>("raggio di visione consumer", (Integer i) -> i > 0),
-                true));
-        builder.addParameter(new ParameterImpl<>(
-                "metabolismRate", Integer.class,
-                new ParameterDomainImpl<>("velocita metaboilismo consumer", (Integer i) -> i > 0),
-                true));
-        builder.addParameter(new ParameterImpl<>(
-                SUGAR, Integer.class,
-                new ParameterDomainImpl<>("zucchero iniziale consumer", (Integer i) -> i >= 0),
-                true));
-        builder.addParameter(new ParameterImpl<>(
-                "maxSugar", Integer.class,
-                new ParameterDomainImpl<>("max zucchero consumer", (Integer i) -> i > 0),
-                true));
+        builder.addParameters(SCHEMA);
 
         builder.addStrategy((state, pos) -> {
-
-            final int metabolismRate = state.getAgentAt(pos)
-                    .orElseThrow(() -> new IllegalStateException(ERR))
-                    .getParameters()
-                    .getParameter("metabolismRate", Integer.class)
-                    .orElseThrow(() -> new IllegalArgumentException(
-                            "Agent has no metabolismRate parameter"))
-                    .getValue();
-
-            final int sugar = state.getAgentAt(pos)
+            final Parameters parameters = state.getAgentAt(pos)
                     .orElseThrow(() -> new IllegalStateException(ERR))
-                    .getParameters()
-                    .getParameter(SUGAR, Integer.class)
-                    .orElseThrow(() -> new IllegalArgumentException("Agent has no sugar parameter"))
-                    .getValue();
+                    .getParameters();
+            final int metabolismRate = METABOLISM_RATE_PARAM.get(parameters);
+            final int sugar = SUGAR_PARAM.get(parameters);
 
             if (sugar < metabolismRate) {
                 state.removeAgent(pos, state.getAgentAt(pos).get());
                 return state;
             }
 
-            final int visionRadius = state.getAgentAt(pos)
-                    .orElseThrow(() -> new IllegalStateException(ERR))
-                    .getParameters()
-                    .getParameter("visionRadius", Integer.class)
-                    .orElseThrow(() -> new IllegalArgumentException(
-                            "Agent has no visionRadius parameter"))
-                    .getValue();
+            final int visionRadius = VISION_RADIUS_PARAM.get(parameters);
+            final int maxSugar = MAX_SUGAR_PARAM.get(parameters);
 
-            final int maxSugar = state.getAgentAt(pos)
-                    .orElseThrow(() -> new IllegalStateException(ERR))
-                    .getParameters()
-                    .getParameter("maxSugar", Integer.class)
-                    .orElseThrow(() -> new IllegalArgumentException("Agent has no sugar parameter"))
-                    .getValue();
-
-            state.getAgentAt(pos)
-                    .ifPresent(agent -> agent.getParameters().setParameter(SUGAR,
-                            sugar - metabolismRate));
-
-            getSugarPositions(state, pos, visionRadius,
-                    sugar / metabolismRate)
-                    .stream()
-                    .sorted(Comparator.comparingDouble(pp -> {
-                        if (pp.getSecond() == 0) {
-                            return Double.NEGATIVE_INFINITY;
-                        }
-                        return -(state.getAgentAt(pp.getFirst()).get()
-                                .getParameters()
-                                .getParameter("sugarAmount", Integer.class)
-                                .orElseThrow(() -> new IllegalArgumentException(
-                                        "Agent has no sugarAmount parameter"))
-                                .getValue() / pp.getSecond());
-                    }))
-                    .map(Pair::getFirst)
-                    .findFirst()
-                    .ifPresent(sugarPos -> {
-                        if (getDistanceBetweeenPos(sugarPos, pos) == 1) {
-                            consumeSugar(state, pos, sugarPos, maxSugar);
-                        } else {
-                            state.moveAgent(pos, getNextPositionTowardsPos(state, pos, sugarPos));
-                        }
-
-                    });
+            SUGAR_PARAM.set(parameters, sugar - metabolismRate);
+
+            final SugarField sugarField = field;
+            final Optional<Pos> target = sugarField != null && sugarField.isFor(state)
+                    ? findSugarInField(sugarField, state, pos, visionRadius, sugar / metabolismRate)
+                    : findSugarByScan(state, pos, visionRadius, sugar / metabolismRate);
+            target.ifPresent(sugarPos -> {
+                if (getDistanceBetweeenPos(sugarPos, pos) == 1) {
+                    consumeSugar(state, pos, sugarPos, maxSugar);
+                } else {
+                    state.moveAgent(pos, getNextPositionTowardsPos(state, pos, sugarPos));
+                }
+            });
 
             return state;
         });
@@ -1,7 +1,10 @@
 package it.unibo.ares.core.agent;
 
+import java.util.List;
+
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
 
 /**
  * A factory class for creating Extingueshed agents.
@@ -9,6 +12,11 @@ import it.unibo.ares.core.utils.parameters.ParameterImpl;
 public final class ExtingueshedAgentFactory implements AgentFactory {
 
     private static final long serialVersionUID = 1L;
+    private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>("flammability", Double.class,
+                    new ParameterDomainImpl<>("Velocità di combustione (0.0-1.0)",
+                            (Double d) -> d >= 0.0 && d <= 1.0),
+                    true)));
 
     /**
      * Builds the Extingueshed Agent.
@@ -20,10 +28,7 @@ public final class ExtingueshedAgentFactory implements AgentFactory {
         final AgentBuilder b = new AgentBuilderImpl();
 
         b
-                .addParameter(new ParameterImpl<>("flammability", Double.class,
-                        new ParameterDomainImpl<>("Velocità di combustione (0.0-1.0)",
-                                (Double d) -> d >= 0.0 && d <= 1.0),
-                        true))
+                .addParameters(SCHEMA)
                 .addStrategy((state, pos) -> state)
                 .build();
 
@@ -1,18 +1,21 @@
 package it.unibo.ares.core.agent;
 
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import it.unibo.ares.core.utils.ComputationUtils;
 import it.unibo.ares.core.utils.directionvector.DirectionVector;
 import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
+import it.unibo.ares.core.utils.parameters.DoubleParam;
+import it.unibo.ares.core.utils.parameters.IntParam;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
+import it.unibo.ares.core.utils.parameters.Parameters;
 import it.unibo.ares.core.utils.pos.Pos;
-import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
 
 /**
@@ -22,6 +25,11 @@ import it.unibo.ares.core.utils.state.State;
                                                 // costante
 public final class FireAgentFactory implements AgentFactory {
 
+    /**
+     * The type of the fire agents.
+     */
+    public static final String FIRE = "F";
+
     private static final long serialVersionUID = 1L;
     private static final Integer DIRRANDOMNUMBERCEIL = 20;
     private static final Integer VISION_ANGLE = 360;
@@ -30,16 +38,31 @@ public final class FireAgentFactory implements AgentFactory {
     private static final String FUEL = "fuel";
     private static final String CONS = "consumption";
     private static final String SPREAD = "spread";
+    private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>(SPREAD, Integer.class,
+                    new ParameterDomainImpl<>("Range of spread (RoS) (1 - n)",
+                            (Integer i) -> i > 0),
+                    true),
+            new ParameterImpl<>(FUEL, Double.class,
+                    new ParameterDomainImpl<>(
+                            "Capacità di combustibile",
+                            (Double d) -> d >= 0.0),
+                    true),
+            new ParameterImpl<>(CONS, Double.class,
+                    new ParameterDomainImpl<>(
+                            "Combustibile consumato ad ogni tick",
+                            (Double d) -> d >= 0.0),
+                    true)));
+    private static final IntParam SPREAD_PARAM = SCHEMA.intParam(SPREAD);
+    private static final DoubleParam FUEL_PARAM = SCHEMA.doubleParam(FUEL);
+    private static final DoubleParam CONS_PARAM = SCHEMA.doubleParam(CONS);
     private DirectionVector windDirection;
     private Double windChange;
     private final Random r;
     private final ExtingueshedAgentFactory eaf;
 
     private static BiPredicate<Agent, Agent> agentOfDiffType = (a, b) -> {
-        final String typeA = a.getType();
-        final String typeB = b.getType();
-
-        return !typeA.equals(typeB);
+        return a.getTypeCode() != b.getTypeCode();
     };
 
     /**
@@ -71,10 +94,7 @@ public final class FireAgentFactory implements AgentFactory {
      */
     private static boolean isExtinguished(final Agent agent) {
         // Verify if at current position the Tree Agent can sustain the Fire Agent.
-        return agent.getParameters().getParameter(FUEL, Double.class)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Agent " + agent + " has no fuel parameter"))
-                .getValue() <= 0;
+        return FUEL_PARAM.get(agent.getParameters()) <= 0;
     }
 
     /**
@@ -83,32 +103,30 @@ public final class FireAgentFactory implements AgentFactory {
      * @param agent current fire agent.
      */
     private void consumeFuel(final Agent agent) {
-        final Double fuel = agent.getParameters()
-                .getParameter(FUEL, Double.class)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Agent " + agent + " has no fuel parameter"))
-                .getValue();
+        final Parameters parameters = agent.getParameters();
+        final double fuel = FUEL_PARAM.get(parameters);
+        final double cons = CONS_PARAM.get(parameters);
 
-        final Double cons = agent.getParameters()
-                .getParameter("consumption", Double.class)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Agent " + agent + " has no consumption parameter"))
-                .getValue();
-
-        agent.setParameter(FUEL, fuel - cons <= 0.0 ? 0.0 : fuel - cons);
+        FUEL_PARAM.set(parameters, fuel - cons <= 0.0 ? 0.0 : fuel - cons);
     }
 
-    private void changeWindDirection(final State state) {
-        final Integer nf = state.getAgents().stream()
-                .filter(a -> "F".equals(a.getSecond().getType()))
-                .collect(Collectors.toList())
-                .size();
-
-        if (r.nextDouble(0.0, 0.5) < windChange / nf) {
+    /**
+     * Updates the wind direction shared by the fire agents created by this
+     * factory, it must be called once per tick before the fire agents are
+     * ticked. The longer the wind keeps its direction the more likely it is to
+     * change; nothing happens when there are no fires left.
+     * 
+     * @param state the state of the current tick
+     */
+    public void changeWindDirection(final State state) {
+        if (state.countAgentsByType(FIRE) == 0) {
+            return;
+        }
+        if (r.nextDouble(0.0, 0.5) < windChange) {
             this.windDirection = getRandomDirection();
             windChange = 0.0;
         } else {
-            windChange += WINDCHANGEBASEPROB / nf;
+            windChange += WINDCHANGEBASEPROB;
         }
     }
 
@@ -122,31 +140,12 @@ public final class FireAgentFactory implements AgentFactory {
     private void spreadFire(final State state, final Pos pos, final Agent fireAgent) {
         final Agent treeAgent = state.getAgentAt(pos).get(); // tree agent to be replaced
 
-        final Double flammability = treeAgent.getParameters()
-                .getParameter("flammability", Double.class)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Agent " + treeAgent + " has no flammability parameter"))
-                .getValue();
-
-        final Double newFuel = treeAgent.getParameters()
-                .getParameter(FUEL, Double.class)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Agent " + treeAgent + " has no fuel parameter"))
-                .getValue();
-
-        final Integer spread = fireAgent.getParameters()
-                .getParameter("spread", Integer.class)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Agent " + fireAgent + " has no spread parameter"))
-                .getValue();
-
-        final Double cons = fireAgent.getParameters()
-                .getParameter("consumption", Double.class)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Agent " + fireAgent + " has no consumption parameter"))
-                .getValue();
+        final double flammability = TreeAgentFactory.FLAMMABILITY_PARAM.get(treeAgent.getParameters());
+        final double newFuel = TreeAgentFactory.FUEL_PARAM.get(treeAgent.getParameters());
+        final int spread = SPREAD_PARAM.get(fireAgent.getParameters());
+        final double cons = CONS_PARAM.get(fireAgent.getParameters());
 
-        final Double newCons = flammability == 0.0 ? 0.0 : flammability + (cons * CONSFACTOR);
+        final double newCons = flammability == 0.0 ? 0.0 : flammability + (cons * CONSFACTOR);
 
         /* Starts a new fire */
         final Agent newAgent = getFireAgent(createAgent(), spread, newFuel, newCons);
@@ -167,18 +166,12 @@ public final class FireAgentFactory implements AgentFactory {
     private Set<Pos> getSpreadPositionIfAvailable(final State state, final Pos pos, final Agent agent) {
         final DirectionVector dir = this.windDirection;
 
-        final Integer spread = agent.getParameters()
-                .getParameter("spread", Integer.class)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Agent " + agent + " has no spread parameter"))
-                .getValue();
+        final int spread = SPREAD_PARAM.get(agent.getParameters());
 
-        return IntStream.range(0, state.getDimensions().getFirst())
-                .boxed()
-                .flatMap(x -> IntStream.range(0, state.getDimensions().getSecond())
-                        .mapToObj(y -> new PosImpl(x, y)))
-                .filter(p -> ComputationUtils.computeCloseCells(pos, dir, spread, VISION_ANGLE)
-                        .contains(p))
+        // only the cells inside the cone can catch fire, so they are the only ones
+        // evaluated
+        return ComputationUtils.computeCloseCells(pos, dir, spread, VISION_ANGLE).stream()
+                .filter(state::isInside)
                 .filter(p -> state.getAgentAt(p).isPresent())
                 .filter(p -> agentOfDiffType.test(agent, state.getAgentAt(p).get()))
                 .filter(p -> TreeAgentFactory.isFlammable(state.getAgentAt(p).get()))
@@ -195,7 +188,6 @@ public final class FireAgentFactory implements AgentFactory {
      */
     private State tickFunction(final State currentState, final Pos agentPosition) {
         final Agent agent = currentState.getAgentAt(agentPosition).get();
-        changeWindDirection(currentState);
         consumeFuel(agent);
 
         if (isExtinguished(agent)) {
@@ -219,11 +211,12 @@ public final class FireAgentFactory implements AgentFactory {
      * 
      * @return An instance of the Fire Agent.
      */
-    private Agent getFireAgent(final Agent fireAgent, final Integer spread, final Double fuel,
-            final Double cons) {
-        fireAgent.setParameter(FUEL, fuel);
-        fireAgent.setParameter(SPREAD, spread);
-        fireAgent.setParameter(CONS, cons);
+    private Agent getFireAgent(final Agent fireAgent, final int spread, final double fuel,
+            final double cons) {
+        final Parameters parameters = fireAgent.getParameters();
+        FUEL_PARAM.set(parameters, fuel);
+        SPREAD_PARAM.set(parameters, spread);
+        CONS_PARAM.set(parameters, cons);
         return fireAgent;
     }
 
@@ -237,25 +230,12 @@ public final class FireAgentFactory implements AgentFactory {
         final AgentBuilder b = new AgentBuilderImpl();
 
         b
-                .addParameter(new ParameterImpl<>(SPREAD, Integer.class,
-                        new ParameterDomainImpl<>("Range of spread (RoS) (1 - n)",
-                                (Integer i) -> i > 0),
-                        true))
-                .addParameter(new ParameterImpl<>(FUEL, Double.class,
-                        new ParameterDomainImpl<>(
-                                "Capacità di combustibile",
-                                (Double d) -> d >= 0.0),
-                        true))
-                .addParameter(new ParameterImpl<>(CONS, Double.class,
-                        new ParameterDomainImpl<>(
-                                "Combustibile consumato ad ogni tick",
-                                (Double d) -> d >= 0.0),
-                        true))
+                .addParameters(SCHEMA)
                 .addStrategy(this::tickFunction)
                 .build();
 
         final Agent a = b.build();
-        a.setType("F");
+        a.setType(FIRE);
         return a;
     }
 }
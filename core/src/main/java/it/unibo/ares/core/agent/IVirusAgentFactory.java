@@ -1,15 +1,21 @@
 package it.unibo.ares.core.agent;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 
+import it.unibo.ares.core.utils.parameters.IntParam;
+import it.unibo.ares.core.utils.parameters.ObjectParam;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
 import it.unibo.ares.core.model.VirusModelFactory;
 import it.unibo.ares.core.utils.ComputationUtils;
+import it.unibo.ares.core.utils.Pair;
 import it.unibo.ares.core.utils.directionvector.DirectionVector;
 import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.state.ContinuousState;
 import it.unibo.ares.core.utils.state.State;
 
 /**
@@ -18,6 +24,25 @@ import it.unibo.ares.core.utils.state.State;
 public final class IVirusAgentFactory implements AgentFactory {
 
     private static final long serialVersionUID = 1L;
+    private static final String INFECTED = "I";
+    private static final int INFECTED_CODE = AgentTypes.codeOf(INFECTED);
+    private static final String STEP_SIZE = "stepSize";
+    private static final String RECOVERY_RATE = "recoveryRate";
+    private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>(STEP_SIZE, Integer.class,
+                    new ParameterDomainImpl<>("la dimensione del passo (1-10)",
+                            (Integer d) -> d > 0 && d <= 10),
+                    true),
+            new ParameterImpl<>("direction", DirectionVector.class, false),
+            new ParameterImpl<>(RECOVERY_RATE, Integer.class,
+                    new ParameterDomainImpl<>(
+                            "Probabilità di guarigione a ogni step (0-100)",
+                            (Integer i) -> i >= 0 && i <= 100),
+                    true)));
+    private static final ObjectParam<DirectionVector> DIRECTION_PARAM = SCHEMA.objectParam("direction",
+            DirectionVector.class);
+    private static final IntParam STEP_SIZE_PARAM = SCHEMA.intParam(STEP_SIZE);
+    private static final IntParam RECOVERY_RATE_PARAM = SCHEMA.intParam(RECOVERY_RATE);
     private final Random r;
 
     /**
@@ -46,11 +71,11 @@ public final class IVirusAgentFactory implements AgentFactory {
         // assegno una nuova direzione casuale ad ogni step
         DirectionVector dir = ComputationUtils.getRandomDirection(r);
 
-        currentState.getAgentAt(agentPosition).get().setParameter("direction", dir);
+        DIRECTION_PARAM.set(agent.getParameters(), dir);
 
         // se l'agente è infetto, controllo se guarisce, in caso negativo continuo con
         // lo spostamento
-        if ("I".equals(agent.getType())) {
+        if (agent.getTypeCode() == INFECTED_CODE) {
             final Optional<Agent> newAgent = recoveryInfected(agent);
             if (newAgent.isPresent()) {
                 // se guarisce, rimuovo l'agente infetto e aggiungo un agente sano
@@ -60,8 +85,15 @@ public final class IVirusAgentFactory implements AgentFactory {
                 return currentState;
             }
         }
-        final int stepSize = agent.getParameters().getParameter("stepSize", Integer.class)
-                .get().getValue();
+        final int stepSize = STEP_SIZE_PARAM.get(agent.getParameters());
+        final Optional<ContinuousState> space = currentState.asContinuous();
+        if (space.isPresent()) {
+            // nello spazio continuo l'agente non si scontra con gli altri
+            final Pair<Double, Double> point = ComputationUtils.moveInside(space.get().getPoint(agentPosition), dir,
+                    stepSize, currentState.getDimensions());
+            space.get().moveAgent(agentPosition, point.getFirst(), point.getSecond());
+            return currentState;
+        }
         Pos newPos = ComputationUtils.move(agentPosition, dir, stepSize);
         if (!currentState.isInside(newPos)) {
             // se la nuova posizione dell'agente sarebbe fuori dallo spazio, cambio
@@ -74,7 +106,7 @@ public final class IVirusAgentFactory implements AgentFactory {
             // se la nuova posizione è occupata, cambio
             // direzione
             dir = ComputationUtils.getRandomDirection(r);
-            currentState.getAgentAt(agentPosition).get().setParameter("direction", dir);
+            DIRECTION_PARAM.set(agent.getParameters(), dir);
             newPos = ComputationUtils.limit(
                     ComputationUtils.move(agentPosition, dir, stepSize), currentState.getDimensions());
         }
@@ -98,8 +130,7 @@ public final class IVirusAgentFactory implements AgentFactory {
      *         successful, otherwise an empty Optional
      */
     private Optional<Agent> recoveryInfected(final Agent agent) {
-        final int recoveryRate = agent.getParameters().getParameter("recoveryRate", Integer.class)
-                .get().getValue();
+        final int recoveryRate = RECOVERY_RATE_PARAM.get(agent.getParameters());
         if (r.nextInt(100) < recoveryRate) {
             final int stepSizeP = VirusModelFactory.STEP_SIZEP;
             final int infectionRate = VirusModelFactory.INFECTION_RATE;
@@ -124,18 +155,10 @@ public final class IVirusAgentFactory implements AgentFactory {
     @Override
     public Agent createAgent() {
         final Agent a = new AgentBuilderImpl()
-                .addParameter(new ParameterImpl<>("stepSize", Integer.class,
-                        new ParameterDomainImpl<>("la dimensione del passo (1-10)",
-                                (Integer d) -> d > 0 && d <= 10),
-                        true))
-                .addParameter(new ParameterImpl<>("direction", ComputationUtils.getRandomDirection(r), false))
-                .addParameter(new ParameterImpl<>("recoveryRate", Integer.class,
-                        new ParameterDomainImpl<>(
-                                "Probabilità di guarigione a ogni step (0-100)",
-                                (Integer i) -> i >= 0 && i <= 100),
-                        true))
+                .addParameters(SCHEMA)
                 .addStrategy(this::tickFunction).build();
-        a.setType("I");
+        DIRECTION_PARAM.set(a.getParameters(), ComputationUtils.getRandomDirection(r));
+        a.setType(INFECTED);
         return a;
     }
 
@@ -1,16 +1,22 @@
 package it.unibo.ares.core.agent;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.function.BiPredicate;
 
+import it.unibo.ares.core.utils.parameters.IntParam;
+import it.unibo.ares.core.utils.parameters.ObjectParam;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
 import it.unibo.ares.core.model.VirusModelFactory;
 import it.unibo.ares.core.utils.ComputationUtils;
+import it.unibo.ares.core.utils.Pair;
 import it.unibo.ares.core.utils.directionvector.DirectionVector;
 import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.state.ContinuousState;
 import it.unibo.ares.core.utils.state.State;
 
 /**
@@ -19,14 +25,30 @@ import it.unibo.ares.core.utils.state.State;
 public final class PVirusAgentFactory implements AgentFactory {
 
     private static final long serialVersionUID = 1L;
+    private static final String STEP_SIZE = "stepSize";
+    private static final String INFECTION_RATE = "infectionRate";
+    private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>("direction", DirectionVector.class, false),
+            new ParameterImpl<>(INFECTION_RATE, Integer.class,
+                    new ParameterDomainImpl<>(
+                            "Probabilità di infenzione da contatto (0-100)",
+                            (Integer i) -> i >= 0 && i <= 100),
+                    true),
+            new ParameterImpl<>(STEP_SIZE, Integer.class,
+                    new ParameterDomainImpl<>("la dimensione del passo (1-10)",
+                            (Integer d) -> d > 0 && d <= 10),
+                    true)));
+    private static final ObjectParam<DirectionVector> DIRECTION_PARAM = SCHEMA.objectParam("direction",
+            DirectionVector.class);
+    private static final IntParam STEP_SIZE_PARAM = SCHEMA.intParam(STEP_SIZE);
+    private static final IntParam INFECTION_RATE_PARAM = SCHEMA.intParam(INFECTION_RATE);
+    private static final double CONTACT_DISTANCE = 1;
     private final Random r;
     /*
      * A predicate to check if two agents are of the same type.
      */
     private static BiPredicate<Agent, Agent> checkAgentSameType = (a, b) -> {
-        final String typeA = a.getType();
-        final String typeB = b.getType();
-        return typeA.equals(typeB);
+        return a.getTypeCode() == b.getTypeCode();
     };
 
     /**
@@ -52,11 +74,14 @@ public final class PVirusAgentFactory implements AgentFactory {
         }
         final Agent agent = currentState.getAgentAt(agentPosition).get();
 
-        final int stepSize = agent.getParameters().getParameter("stepSize", Integer.class)
-                .get().getValue();
+        final int stepSize = STEP_SIZE_PARAM.get(agent.getParameters());
         // assegno una nuova direzione casuale ad ogni step
         DirectionVector dir = ComputationUtils.getRandomDirection(r);
-        currentState.getAgentAt(agentPosition).get().setParameter("direction", dir);
+        DIRECTION_PARAM.set(agent.getParameters(), dir);
+        final Optional<ContinuousState> space = currentState.asContinuous();
+        if (space.isPresent()) {
+            return moveInSpace(space.get(), agentPosition, agent, dir, stepSize);
+        }
         Pos newPos = ComputationUtils.move(agentPosition, dir, stepSize);
         if (!currentState.isInside(newPos)) {
             // se la nuova posizione dell'agente sarebbe fuori dallo spazio, cambio
@@ -82,7 +107,7 @@ public final class PVirusAgentFactory implements AgentFactory {
             // se la nuova posizione è occupata da due agenti dello stesso tipo, cambio
             // direzione
             dir = ComputationUtils.getRandomDirection(r);
-            currentState.getAgentAt(agentPosition).get().setParameter("direction", dir);
+            DIRECTION_PARAM.set(agent.getParameters(), dir);
             newPos = ComputationUtils.limit(
                     ComputationUtils.move(agentPosition, dir, stepSize), currentState.getDimensions());
         }
@@ -93,6 +118,40 @@ public final class PVirusAgentFactory implements AgentFactory {
         return currentState;
     }
 
+    /**
+     * Moves the agent in a continuous space, where it doesn't collide with the
+     * other agents: if an agent of a different type is within the contact
+     * distance from the point where the agent arrives, the agent can get
+     * infected instead of moving.
+     *
+     * @param space         The state, as a continuous space.
+     * @param agentPosition The position of the agent.
+     * @param agent         The agent.
+     * @param dir           The direction of the agent.
+     * @param stepSize      The step size of the agent.
+     * @return The updated state.
+     */
+    private State moveInSpace(final ContinuousState space, final Pos agentPosition, final Agent agent,
+            final DirectionVector dir, final int stepSize) {
+        final Pair<Double, Double> point = ComputationUtils.moveInside(space.getPoint(agentPosition), dir, stepSize,
+                space.getDimensions());
+        final Optional<Agent> contact = space.getAgentsInRange(point.getFirst(), point.getSecond(), CONTACT_DISTANCE)
+                .stream()
+                .filter(pos -> !pos.equals(agentPosition))
+                .findFirst()
+                .flatMap(space::getAgentAt);
+        if (contact.isPresent() && !checkAgentSameType.test(contact.get(), agent)) {
+            final Optional<Agent> newAgent = infectPerson(agent);
+            if (newAgent.isPresent()) {
+                space.removeAgent(agentPosition, agent);
+                space.addAgent(agentPosition, newAgent.get());
+                return space;
+            }
+        }
+        space.moveAgent(agentPosition, point.getFirst(), point.getSecond());
+        return space;
+    }
+
     /**
      * This method is used to infect a person. It uses the infection rate parameter
      * from the agent's parameters. If a random number is less than the infection
@@ -105,8 +164,7 @@ public final class PVirusAgentFactory implements AgentFactory {
      *         successful, otherwise an empty Optional
      */
     private Optional<Agent> infectPerson(final Agent agent) {
-        final int infectionRate = agent.getParameters().getParameter("infectionRate", Integer.class)
-                .get().getValue();
+        final int infectionRate = INFECTION_RATE_PARAM.get(agent.getParameters());
         if (r.nextInt(100) < infectionRate) {
             // create a new agent with the defaul parameters of the infected agents
             final int stepSizeI = VirusModelFactory.STEP_SIZEI;
@@ -132,18 +190,10 @@ public final class PVirusAgentFactory implements AgentFactory {
     @Override
     public Agent createAgent() {
         final AgentBuilder b = new AgentBuilderImpl();
-        b.addParameter(new ParameterImpl<>("direction", ComputationUtils.getRandomDirection(r), false));
-        b.addParameter(new ParameterImpl<>("infectionRate", Integer.class,
-                new ParameterDomainImpl<>(
-                        "Probabilità di infenzione da contatto (0-100)",
-                        (Integer i) -> i >= 0 && i <= 100),
-                true));
-        b.addParameter(new ParameterImpl<>("stepSize", Integer.class,
-                new ParameterDomainImpl<>("la dimensione del passo (1-10)",
-                        (Integer d) -> d > 0 && d <= 10),
-                true));
+        b.addParameters(SCHEMA);
         b.addStrategy(this::tickFunction);
         final Agent a = b.build();
+        DIRECTION_PARAM.set(a.getParameters(), ComputationUtils.getRandomDirection(r));
         a.setType("P");
         return a;
     }
@@ -1,12 +1,15 @@
 package it.unibo.ares.core.agent;
 
 import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import it.unibo.ares.core.utils.parameters.IntParam;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.state.State;
 
@@ -24,7 +27,14 @@ public final class PredatorAgentFactory implements AgentFactory {
 
     // Parameter keys and descriptions
     private static final String VISION_RADIUS_PREDATOR = "visionRadiusPredator";
+    private static final int PREY_CODE = AgentTypes.codeOf(PreyAgentFactory.PREY);
     private static final String VISION_RADIUS_DESCRIPTION = "Raggio di visione dell'agente predatore (0 - n)";
+    private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>(
+                    VISION_RADIUS_PREDATOR, Integer.class,
+                    new ParameterDomainImpl<>(VISION_RADIUS_DESCRIPTION, (Integer i) -> i > 0),
+                    true)));
+    private static final IntParam VISION_RADIUS_PARAM = SCHEMA.intParam(VISION_RADIUS_PREDATOR);
 
     /**
      * Retrieves neighboring positions within a given radius.
@@ -56,7 +66,7 @@ public final class PredatorAgentFactory implements AgentFactory {
     private Optional<Pos> findPrey(final State state, final Pos position, final int visionRadius) {
         return getNeighboringPositions(state, position, visionRadius).stream()
                 .filter(p -> state.getAgentAt(p).isPresent())
-                .filter(p -> PreyAgentFactory.PREY.equals(state.getAgentAt(p).get().getType()))
+                .filter(p -> state.getAgentAt(p).get().getTypeCode() == PREY_CODE)
                 .sorted(Comparator.comparingDouble(pos -> getDistanceBetweeenPos(pos, position)))
                 .findFirst();
     }
@@ -86,18 +96,12 @@ public final class PredatorAgentFactory implements AgentFactory {
     private Agent createPredatorAgent() {
         final AgentBuilder builder = new AgentBuilderImpl();
 
-        builder.addParameter(new ParameterImpl<>(
-                VISION_RADIUS_PREDATOR, Integer.class,
-                new ParameterDomainImpl<>(VISION_RADIUS_DESCRIPTION, (Integer i) -> i > 0),
-                true));
+        builder.addParameters(SCHEMA);
 
         builder.addStrategy((state, pos) -> {
-            final int visionRadius = state.getAgentAt(pos)
+            final int visionRadius = VISION_RADIUS_PARAM.get(state.getAgentAt(pos)
                     .orElseThrow(() -> new IllegalStateException("No agents at that pos"))
-                    .getParameters()
-                    .getParameter(VISION_RADIUS_PREDATOR, Integer.class)
-                    .orElseThrow(() -> new IllegalArgumentException("Agent has no visionRadiusPredator parameter"))
-                    .getValue();
+                    .getParameters());
 
             findPrey(state, pos, visionRadius).ifPresentOrElse(preyPosition -> {
                 if (state.getPosByPosAndRadius(preyPosition, 1).contains(pos)) {
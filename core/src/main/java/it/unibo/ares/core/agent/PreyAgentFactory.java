@@ -1,10 +1,13 @@
 package it.unibo.ares.core.agent;
 
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import it.unibo.ares.core.utils.parameters.IntParam;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
@@ -24,6 +27,12 @@ public final class PreyAgentFactory implements AgentFactory {
     // Parameter keys and descriptions
     private static final String VISION_RADIUS_PREY = "visionRadiusPrey";
     private static final String VISION_RADIUS_DESCRIPTION = "Raggio di visione dell'agente preda (0 - n)";
+    private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>(
+                    VISION_RADIUS_PREY, Integer.class,
+                    new ParameterDomainImpl<>(VISION_RADIUS_DESCRIPTION, (Integer i) -> i > 0),
+                    true)));
+    private static final IntParam VISION_RADIUS_PARAM = SCHEMA.intParam(VISION_RADIUS_PREY);
 
     /**
      * Retrieves neighboring positions within a given radius.
@@ -83,23 +92,15 @@ public final class PreyAgentFactory implements AgentFactory {
     private Agent createPreyAgent() {
         final AgentBuilder builder = new AgentBuilderImpl();
 
-        builder.addParameter(new ParameterImpl<>(
-                VISION_RADIUS_PREY, Integer.class,
-                new ParameterDomainImpl<>(VISION_RADIUS_DESCRIPTION, (Integer i) -> i > 0),
-                true));
+        builder.addParameters(SCHEMA);
 
         builder.addStrategy((state, pos) -> {
-            final int visionRadius = state.getAgentAt(pos)
+            final int visionRadius = VISION_RADIUS_PARAM.get(state.getAgentAt(pos)
                     .orElseThrow(() -> new IllegalStateException("No agents at that pos"))
-                    .getParameters()
-                    .getParameter(VISION_RADIUS_PREY, Integer.class)
-                    .orElseThrow(() -> new IllegalArgumentException("Agent has no visionRadiusPrey parameter"))
-                    .getValue();
-
-            final Set<Pos> predatorPositions = getNeighboringPositions(state, pos, visionRadius).stream()
-                    .filter(state::isOccupied)
-                    .filter(p -> PredatorAgentFactory.PREDATOR.equals(state.getAgentAt(p).get().getType()))
-                    .collect(Collectors.toSet());
+                    .getParameters());
+
+            final Set<Pos> predatorPositions = state.getPosByTypeAndRadius(pos, visionRadius,
+                    PredatorAgentFactory.PREDATOR);
 
             if (!predatorPositions.isEmpty()) {
                 final Pos escapeRoute = findEscapeRoute(state, pos, predatorPositions);
@@ -1,15 +1,15 @@
 package it.unibo.ares.core.agent;
 
+import java.util.List;
 import java.util.Random;
-import java.util.Set;
-import java.util.function.BiPredicate;
-import java.util.stream.Collectors;
 
 import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.parameters.DoubleParam;
+import it.unibo.ares.core.utils.parameters.IntParam;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
 import it.unibo.ares.core.utils.pos.Pos;
-import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
 
 /**
@@ -24,62 +24,38 @@ public final class SchellingsAgentFactory implements AgentFactory {
      * Key to access to the agent ratio.
      */
     public static final String CURRENT_RATIO = "ratio";
-    private static BiPredicate<Agent, Agent> agentOfSameType = (a, b) -> {
-        final String typeA = a.getType();
-
-        final String typeB = b.getType();
-        return typeA.equals(typeB);
-    };
-
+    private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>(THRESHOLD, Double.class, new ParameterDomainImpl<>(
+                    "Treshold di tolleranza dell'agente (0.0-1.0)", (Double d) -> d >= 0.0 && d <= 1.0), true),
+            new ParameterImpl<>(VISIONRADIUS, Integer.class,
+                    new ParameterDomainImpl<>("Raggio di visione dell'agente (0 - n)", (Integer i) -> i > 0), true),
+            new ParameterImpl<>(CURRENT_RATIO, Double.class, false)));
+    private static final DoubleParam THRESHOLD_PARAM = SCHEMA.doubleParam(THRESHOLD);
+    private static final IntParam VISIONRADIUS_PARAM = SCHEMA.intParam(VISIONRADIUS);
+    private static final DoubleParam CURRENT_RATIO_PARAM = SCHEMA.doubleParam(CURRENT_RATIO);
     private static final Random R;
 
     static {
         R = new Random();
     }
 
-    private static Set<Agent> getNeighborgs(final State state, final Integer visionRadius, final Pos pos,
-            final Agent agent) {
-        return state.getAgentsByPosAndRadius(pos, visionRadius)
-                .stream()
-                .filter(a -> !a.equals(agent))
-                .collect(Collectors.toSet());
-
-    }
-
-    private static double getRatio(final Set<Agent> neighBors, final Agent agent) {
-        return neighBors.stream().filter(a -> agentOfSameType.test(a, agent))
-                .count()
-                / (double) neighBors.size();
-
-    }
-
     private static Pair<Boolean, Double> thresholdSatisfied(final State state, final Pos pos, final Agent agent) {
-        final int visionRadius = agent.getParameters().getParameter(
-                VISIONRADIUS, Integer.class)
-                .orElseThrow(() -> new IllegalArgumentException("Agent " + agent + " has no visionRadius parameter"))
-                .getValue();
-        final double threshold = agent.getParameters().getParameter(
-                THRESHOLD, Double.class)
-                .orElseThrow(() -> new IllegalArgumentException("Agent " + agent + " has no threshold parameter"))
-                .getValue();
+        final int visionRadius = VISIONRADIUS_PARAM.get(agent.getParameters());
+        final double threshold = THRESHOLD_PARAM.get(agent.getParameters());
 
-        final Set<Agent> neighbors = getNeighborgs(state, visionRadius, pos, agent);
-        final double ratio = getRatio(neighbors, agent);
+        final int neighbors = state.countAgentsInRadius(pos, visionRadius);
+        final int sameType = state.countAgentsByTypeInRadius(pos, visionRadius, agent.getType());
+        final double ratio = sameType / (double) neighbors;
 
-        final boolean isThresholdSatisfied = neighbors.isEmpty() || ratio >= threshold;
-        final double actualRatio = neighbors.isEmpty() ? 0d : ratio;
+        final boolean isThresholdSatisfied = neighbors == 0 || ratio >= threshold;
+        final double actualRatio = neighbors == 0 ? 0d : ratio;
 
         return new Pair<>(isThresholdSatisfied, actualRatio);
     }
 
-    private static PosImpl getNewRandomPosition(final State state) {
-        PosImpl newPos = new PosImpl(R.nextInt(state.getDimensions().getFirst()),
-                R.nextInt(state.getDimensions().getSecond()));
-        while (!state.isFree(newPos)) {
-            newPos = new PosImpl(R.nextInt(state.getDimensions().getFirst()),
-                    R.nextInt(state.getDimensions().getSecond()));
-        }
-        return newPos;
+    private static Pos getNewRandomPosition(final State state, final Pos pos) {
+        // se la griglia è piena l'agente resta dove si trova
+        return state.getRandomFreePos(R).orElse(pos);
     }
 
     /**
@@ -100,7 +76,7 @@ public final class SchellingsAgentFactory implements AgentFactory {
             final Agent agent = state.getAgentAt(pos).get();
             final Pair<Boolean, Double> ret = thresholdSatisfied(state, pos, agent);
             if (Boolean.FALSE.equals(ret.getFirst())) {
-                state.moveAgent(pos, getNewRandomPosition(state));
+                state.moveAgent(pos, getNewRandomPosition(state, pos));
             }
             return state;
         });
@@ -113,18 +89,13 @@ public final class SchellingsAgentFactory implements AgentFactory {
     @Override
     public Agent createAgent() {
         return new AgentBuilderImpl()
-
-                .addParameter(new ParameterImpl<>(THRESHOLD, Double.class, new ParameterDomainImpl<>(
-                        "Treshold di tolleranza dell'agente (0.0-1.0)", (Double d) -> d >= 0.0 && d <= 1.0), true))
-                .addParameter(new ParameterImpl<>(VISIONRADIUS, Integer.class,
-                        new ParameterDomainImpl<>("Raggio di visione dell'agente (0 - n)", (Integer i) -> i > 0), true))
-                .addParameter(new ParameterImpl<>(CURRENT_RATIO, Double.class, false))
+                .addParameters(SCHEMA)
                 .addStrategy((state, pos) -> {
                     final Agent agent = state.getAgentAt(pos).get();
                     final Pair<Boolean, Double> ret = thresholdSatisfied(state, pos, agent);
-                    agent.getParameters().setParameter(CURRENT_RATIO, ret.getSecond());
+                    CURRENT_RATIO_PARAM.set(agent.getParameters(), ret.getSecond());
                     if (Boolean.FALSE.equals(ret.getFirst())) {
-                        state.moveAgent(pos, getNewRandomPosition(state));
+                        state.moveAgent(pos, getNewRandomPosition(state, pos));
                     }
                     return state;
                 })
@@ -1,7 +1,12 @@
 package it.unibo.ares.core.agent;
 
+import java.util.List;
+
+import it.unibo.ares.core.utils.parameters.IntParam;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
+import it.unibo.ares.core.utils.parameters.Parameters;
 
 /**
  * Represents a factory for creating Sugar agents.
@@ -15,52 +20,41 @@ public final class SugarAgentFactory implements AgentFactory {
      * SugarAgents.
      */
     public static final String SUGAR = "S";
+    private static final String SUGAR_AMOUNT = "sugarAmount";
+    private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>(
+                    "maxSugar", Integer.class,
+                    new ParameterDomainImpl<>("zucchero massimo Producer", (Integer i) -> i > 0),
+                    true),
+            new ParameterImpl<>(
+                    SUGAR_AMOUNT, Integer.class,
+                    new ParameterDomainImpl<>("quanto zucchero iniziale Prioducer", (Integer i) -> i >= 0),
+                    true),
+            new ParameterImpl<>(
+                    "growthRate", Integer.class,
+                    new ParameterDomainImpl<>("velocita crescita zuccero producer", (Integer i) -> i > 0),
+                    true)));
+    /**
+     * The handle of the sugar left in a sugar agent.
+     */
+    static final IntParam SUGAR_AMOUNT_PARAM = SCHEMA.intParam(SUGAR_AMOUNT);
+    private static final IntParam MAX_SUGAR_PARAM = SCHEMA.intParam("maxSugar");
+    private static final IntParam GROWTH_RATE_PARAM = SCHEMA.intParam("growthRate");
 
     private Agent createSugarAgent() {
         final AgentBuilder builder = new AgentBuilderImpl();
-        builder.addParameter(new ParameterImpl<>(
-                "maxSugar", Integer.class,
-                new ParameterDomainImpl<>("zucchero massimo Producer", (Integer i) -> i > 0),
-                true));
-
-        builder.addParameter(new ParameterImpl<>(
-                "sugarAmount", Integer.class,
-                new ParameterDomainImpl<>("quanto zucchero iniziale Prioducer", (Integer i) -> i >= 0),
-                true));
-        builder.addParameter(new ParameterImpl<>(
-                "growthRate", Integer.class,
-                new ParameterDomainImpl<>("velocita crescita zuccero producer", (Integer i) -> i > 0),
-                true));
+        builder.addParameters(SCHEMA);
 
         builder.addStrategy((state, pos) -> {
-            final int sugarAmount = state.getAgentAt(pos)
-                    .orElseThrow(() -> new IllegalStateException("No agents at that pos"))
-                    .getParameters()
-                    .getParameter("sugarAmount", Integer.class)
-                    .orElseThrow(() -> new IllegalArgumentException(
-                            "Agent has no sugarAmount parameter"))
-                    .getValue();
-
-            final int growthRate = state.getAgentAt(pos)
-                    .orElseThrow(() -> new IllegalStateException("No agents at that pos"))
-                    .getParameters()
-                    .getParameter("growthRate", Integer.class)
-                    .orElseThrow(() -> new IllegalArgumentException(
-                            "Agent has no growthRate parameter"))
-                    .getValue();
-
-            final int maxSuger = state.getAgentAt(pos)
+            final Parameters parameters = state.getAgentAt(pos)
                     .orElseThrow(() -> new IllegalStateException("No agents at that pos"))
-                    .getParameters()
-                    .getParameter("maxSugar", Integer.class)
-                    .orElseThrow(() -> new IllegalArgumentException(
-                            "Agent has no growthRate parameter"))
-                    .getValue();
+                    .getParameters();
+            final int sugarAmount = SUGAR_AMOUNT_PARAM.get(parameters);
+            final int growthRate = GROWTH_RATE_PARAM.get(parameters);
+            final int maxSuger = MAX_SUGAR_PARAM.get(parameters);
 
             // Grow sugar
-            state.getAgentAt(pos)
-                    .ifPresent(agent -> agent.getParameters().setParameter("sugarAmount",
-                            Math.min(sugarAmount + growthRate, maxSuger)));
+            SUGAR_AMOUNT_PARAM.set(parameters, Math.min(sugarAmount + growthRate, maxSuger));
 
             return state;
         });
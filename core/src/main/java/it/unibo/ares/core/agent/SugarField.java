@@ -0,0 +1,216 @@
+package it.unibo.ares.core.agent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.State;
+
+/**
+ * The distances of every cell of a state from the sugar, computed once per
+ * tick for all the consumers.
+ * A breadth first search that starts from all the sugar cells at once gives
+ * every cell its two nearest sugar cells and their Manhattan distances, each
+ * cell takes the first two different sugar cells that reach it. The consumers
+ * whose nearest sugar is a cell are counted as its competition.
+ * The sugar doesn't move, so the search is repeated only when the sugar
+ * cells change: the new ones are spread over the field as it is, and only
+ * removing a sugar cell rebuilds the whole field; the competition is counted
+ * again at every update.
+ */
+final class SugarField {
+    private State state;
+    private final int width;
+    private final int height;
+    private int[] sugars;
+    // le due celle di zucchero più vicine a ogni cella più uno, zero se mancano
+    private final int[] first;
+    private final int[] second;
+    private final int[] firstDistance;
+    private final int[] secondDistance;
+    private final int[] competition;
+    private int[] queue;
+
+    /**
+     * Builds the field of a state.
+     *
+     * @param state the state
+     */
+    SugarField(final State state) {
+        this.width = state.getDimensions().getFirst();
+        this.height = state.getDimensions().getSecond();
+        this.sugars = new int[0];
+        this.first = new int[width * height];
+        this.second = new int[width * height];
+        this.firstDistance = new int[width * height];
+        this.secondDistance = new int[width * height];
+        this.competition = new int[width * height];
+        this.queue = new int[2 * width * height];
+        update(state);
+    }
+
+    private int indexOf(final Pos pos) {
+        return pos.getY() * width + pos.getX();
+    }
+
+    private Pos posOf(final int index) {
+        return new PosImpl(index % width, index / width);
+    }
+
+    /**
+     * @param state the state
+     * @return whether the field can be used for a state: it has been built or
+     *         updated for the same instance
+     */
+    boolean isFor(final State state) {
+        return this.state == state;
+    }
+
+    /**
+     * @param state the state
+     * @return whether the field can be updated for a state, instead of being
+     *         built again
+     */
+    boolean fits(final State state) {
+        return state.getDimensions().getFirst() == width && state.getDimensions().getSecond() == height;
+    }
+
+    /**
+     * Updates the field for a state with the same dimensions.
+     *
+     * @param state the state, the field can be used only for it
+     */
+    void update(final State state) {
+        final int[] current = state.getPosByType(SugarAgentFactory.SUGAR).stream()
+                .mapToInt(this::indexOf)
+                .sorted()
+                .toArray();
+        if (!Arrays.equals(current, sugars)) {
+            final int[] added = Arrays.stream(current)
+                    .filter(cell -> Arrays.binarySearch(sugars, cell) < 0)
+                    .toArray();
+            if (current.length - added.length == sugars.length) {
+                spread(added);
+            } else {
+                Arrays.fill(first, 0);
+                Arrays.fill(second, 0);
+                spread(current);
+            }
+            sugars = current;
+        }
+        Arrays.fill(competition, 0);
+        for (final Pos consumer : state.getPosByType(ConsumerAgentFactory.CONSUMER)) {
+            final int nearest = first[indexOf(consumer)];
+            if (nearest > 0) {
+                competition[nearest - 1]++;
+            }
+        }
+        this.state = state;
+    }
+
+    /**
+     * Gives a sugar cell to a cell if it is one of its two nearest ones.
+     *
+     * @return whether the cell took the sugar cell
+     */
+    private boolean offer(final int cell, final int sugar, final int distance) {
+        if (first[cell] == sugar + 1 || second[cell] == sugar + 1) {
+            return false;
+        }
+        if (first[cell] == 0 || distance < firstDistance[cell]) {
+            second[cell] = first[cell];
+            secondDistance[cell] = firstDistance[cell];
+            first[cell] = sugar + 1;
+            firstDistance[cell] = distance;
+            return true;
+        }
+        if (second[cell] == 0 || distance < secondDistance[cell]) {
+            second[cell] = sugar + 1;
+            secondDistance[cell] = distance;
+            return true;
+        }
+        return false;
+    }
+
+    private int push(final int tail, final int cell, final int sugar) {
+        if (tail + 2 > queue.length) {
+            queue = Arrays.copyOf(queue, Math.max(2, queue.length * 2));
+        }
+        queue[tail] = cell;
+        queue[tail + 1] = sugar;
+        return tail + 2;
+    }
+
+    private int tryPush(final int tail, final int cell, final int sugar, final int distance) {
+        return offer(cell, sugar, distance) ? push(tail, cell, sugar) : tail;
+    }
+
+    /**
+     * Spreads some sugar cells over the field, level after level: a sugar
+     * cell moves on from the cells that took it to their four neighbors.
+     */
+    private void spread(final int[] sources) {
+        int tail = 0;
+        for (final int sugar : sources) {
+            tail = tryPush(tail, sugar, sugar, 0);
+        }
+        for (int head = 0; head < tail; head += 2) {
+            final int cell = queue[head];
+            final int sugar = queue[head + 1];
+            final int distance;
+            if (first[cell] == sugar + 1) {
+                distance = firstDistance[cell] + 1;
+            } else if (second[cell] == sugar + 1) {
+                distance = secondDistance[cell] + 1;
+            } else {
+                // la cella l'ha già lasciata per due celle più vicine
+                continue;
+            }
+            final int x = cell % width;
+            final int y = cell / width;
+            if (x > 0) {
+                tail = tryPush(tail, cell - 1, sugar, distance);
+            }
+            if (x < width - 1) {
+                tail = tryPush(tail, cell + 1, sugar, distance);
+            }
+            if (y > 0) {
+                tail = tryPush(tail, cell - width, sugar, distance);
+            }
+            if (y < height - 1) {
+                tail = tryPush(tail, cell + width, sugar, distance);
+            }
+        }
+    }
+
+    /**
+     * Gets the two nearest sugar cells of a cell.
+     *
+     * @param pos the cell
+     * @return the sugar cells, the nearest first
+     */
+    List<Pos> nearestSugars(final Pos pos) {
+        final int cell = indexOf(pos);
+        final List<Pos> nearest = new ArrayList<>(2);
+        if (first[cell] > 0) {
+            nearest.add(posOf(first[cell] - 1));
+        }
+        if (second[cell] > 0) {
+            nearest.add(posOf(second[cell] - 1));
+        }
+        return nearest;
+    }
+
+    /**
+     * Gets the number of consumers whose nearest sugar is a cell, as they were
+     * when the field was updated.
+     *
+     * @param sugar the sugar cell
+     * @return the number of consumers
+     */
+    int competitionFor(final Pos sugar) {
+        return competition[indexOf(sugar)];
+    }
+}
@@ -1,7 +1,11 @@
 package it.unibo.ares.core.agent;
 
+import java.util.List;
+
+import it.unibo.ares.core.utils.parameters.DoubleParam;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.ParameterSchema;
 
 /**
  * A factory class for creating Tree agents.
@@ -11,6 +15,23 @@ public class TreeAgentFactory implements AgentFactory {
         private static final long serialVersionUID = 1L;
         private static final String FUEL = "fuel";
         private static final String FLAMM = "flammability";
+        private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+                        new ParameterImpl<>(FUEL, Double.class,
+                                        new ParameterDomainImpl<>("Capacità di combustibile",
+                                                        (Double d) -> d >= 0.0),
+                                        true),
+                        new ParameterImpl<>(FLAMM, Double.class,
+                                        new ParameterDomainImpl<>("Velocità di combustione (0.0-1.0)",
+                                                        (Double d) -> d >= 0.0 && d <= 1.0),
+                                        true)));
+        /**
+         * The handle of the fuel of a tree agent.
+         */
+        static final DoubleParam FUEL_PARAM = SCHEMA.doubleParam(FUEL);
+        /**
+         * The handle of the flammability of a tree agent.
+         */
+        static final DoubleParam FLAMMABILITY_PARAM = SCHEMA.doubleParam(FLAMM);
 
         /**
          * Verify if a Tree agent can be burnt.
@@ -19,13 +40,7 @@ public class TreeAgentFactory implements AgentFactory {
          * @return True if flammable, false either way.
          */
         public static Boolean isFlammable(final Agent a) {
-                final Double flammable = a.getParameters()
-                                .getParameter(FLAMM, Double.class)
-                                .orElseThrow(() -> new IllegalArgumentException(
-                                                "Agent " + a + " has no flammable parameter"))
-                                .getValue();
-
-                return flammable > 0;
+                return FLAMMABILITY_PARAM.get(a.getParameters()) > 0;
         }
 
         /**
@@ -38,14 +53,7 @@ public class TreeAgentFactory implements AgentFactory {
                 final AgentBuilder b = new AgentBuilderImpl();
 
                 b
-                                .addParameter(new ParameterImpl<>(FUEL, Double.class,
-                                                new ParameterDomainImpl<>("Capacità di combustibile",
-                                                                (Double d) -> d >= 0.0),
-                                                true))
-                                .addParameter(new ParameterImpl<>(FLAMM, Double.class,
-                                                new ParameterDomainImpl<>("Velocità di combustione (0.0-1.0)",
-                                                                (Double d) -> d >= 0.0 && d <= 1.0),
-                                                true))
+                                .addParameters(SCHEMA)
                                 .addStrategy((state, pos) -> state)
                                 .build();
 
@@ -51,6 +51,43 @@ public interface SimulationControlApi {
      */
     void setTickRate(String id, Integer tickRate);
 
+    /**
+     * Advances the simulation of the given id by a number of ticks, as fast as
+     * possible: the tick rate is ignored and the output of the intermediate
+     * ticks is not built. The subscriber of the simulation receives only the
+     * output of the last tick and, if the sampling is positive, the statistics
+     * (without the agents) of one tick every {@code statisticsSampling}.
+     * The simulation must be paused, so that it is not ticked at the same time
+     * by the ticker.
+     *
+     * @param id                 the id of the simulation
+     * @param ticks              the number of ticks, the simulation stops
+     *                           earlier if it is over
+     * @param statisticsSampling the number of ticks between two sampled
+     *                           statistics, zero to not sample them
+     * @return true if the simulation is over
+     * @throws IllegalArgumentException if the ticks or the sampling are negative
+     * @throws IllegalStateException    if the simulation is running
+     */
+    boolean advanceSimulation(String id, int ticks, int statisticsSampling);
+
+    /**
+     * Runs the simulation of the given id until it is over, like
+     * {@link #advanceSimulation(String, int, int)} without a limit on the
+     * number of ticks. The call blocks the calling thread until the end, so it
+     * should not be made from the thread of a user interface; the models that
+     * never end (like the boids) are rejected, they can be run only a number
+     * of ticks at a time with {@link #advanceSimulation(String, int, int)}.
+     *
+     * @param id                 the id of the simulation
+     * @param statisticsSampling the number of ticks between two sampled
+     *                           statistics, zero to not sample them
+     * @throws IllegalArgumentException if the sampling is negative or the
+     *                                  model of the simulation never ends
+     * @throws IllegalStateException    if the simulation is running
+     */
+    void runSimulationToCompletion(String id, int statisticsSampling);
+
     /**
      * Save the simulation to a file.
      * 
@@ -151,6 +151,16 @@ public final class AresSupplier implements InitializationApi, SimulationControlA
         controller.setTickRate(id, tickRate);
     }
 
+    @Override
+    public boolean advanceSimulation(final String id, final int ticks, final int statisticsSampling) {
+        return controller.advanceSimulation(id, ticks, statisticsSampling);
+    }
+
+    @Override
+    public void runSimulationToCompletion(final String id, final int statisticsSampling) {
+        controller.runSimulationToCompletion(id, statisticsSampling);
+    }
+
     @Override
     public String saveSimulation(final String id) {
         controller.pauseSimulation(id);
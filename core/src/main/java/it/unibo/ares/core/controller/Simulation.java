@@ -2,6 +2,7 @@ package it.unibo.ares.core.controller;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.io.Serializable;
 
 import it.unibo.ares.core.model.Model;
@@ -56,6 +57,23 @@ interface Simulation extends Serializable {
      */
     Optional<SimulationOutputData> tickSync(String simulationSessionId);
 
+    /**
+     * Advances the paused simulation by a number of ticks without building the
+     * output of each tick and ignoring the tick rate.
+     * 
+     * @param simulationSessionId The user simulation session id of the
+     *                            simulation.
+     * @param ticks               the maximum number of ticks, the simulation
+     *                            stops earlier if it is over
+     * @param statisticsSampling  the number of ticks between two outputs with
+     *                            only the statistics, zero to never send them
+     * @param output              receives the sampled statistics and the output
+     *                            of the last tick
+     * @return true if the simulation is over
+     */
+    boolean advance(String simulationSessionId, long ticks, int statisticsSampling,
+            Consumer<SimulationOutputData> output);
+
     /**
      * get the tick rate.
      * 
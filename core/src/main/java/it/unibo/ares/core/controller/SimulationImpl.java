@@ -1,12 +1,17 @@
 package it.unibo.ares.core.controller;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
+import it.unibo.ares.core.agent.Agent;
 import it.unibo.ares.core.model.Model;
 import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.state.State;
 import it.unibo.ares.core.utils.statistics.Statistics;
 
@@ -68,14 +73,16 @@ final class SimulationImpl implements Simulation {
 
     private SimulationOutputData mapStateToSimulationData(final State state, final String simulationSessionId,
             final boolean finished) {
-        return new SimulationOutputData(state.getAgents().stream()
-                .collect(Collectors.toMap(
-                        Pair::getFirst,
-                        pair -> pair.getSecond().getType(),
-                        (existingValue, newValue) -> newValue,
-                        HashMap::new)),
-                simulationSessionId, state.getDimensions().getFirst(), state.getDimensions().getSecond(),
-                finished, getStatistics(state));
+        final Set<Pair<Pos, Agent>> agents = state.getAgents();
+        final List<Pos> positions = new ArrayList<>(agents.size());
+        final int[] typeCodes = new int[agents.size()];
+        for (final Pair<Pos, Agent> agent : agents) {
+            typeCodes[positions.size()] = agent.getSecond().getTypeCode();
+            positions.add(agent.getFirst());
+        }
+        return new SimulationOutputData(positions, typeCodes, simulationSessionId,
+                state.getDimensions().getFirst(), state.getDimensions().getSecond(), finished,
+                getStatistics(state));
     }
 
     private boolean tickSim() {
@@ -146,6 +153,36 @@ final class SimulationImpl implements Simulation {
         return Optional.of(data);
     }
 
+    @Override
+    public boolean advance(final String simulationSessionId, final long ticks,
+            final int statisticsSampling, final Consumer<SimulationOutputData> output) {
+        if (ticks < 0 || statisticsSampling < 0) {
+            throw new IllegalArgumentException("The ticks and the sampling cannot be negative");
+        }
+        if (this.running) {
+            throw new IllegalStateException("Simulation must be paused to be advanced");
+        }
+        if (this.calculating) {
+            throw new IllegalStateException("Simulation is already calculating");
+        }
+        this.calculating = true;
+        try {
+            for (long t = 1; t <= ticks && !isOver; t++) {
+                tickSim();
+                if (statisticsSampling > 0 && t % statisticsSampling == 0 && !isOver) {
+                    // solo le statistiche, la mappa degli agenti non viene costruita
+                    output.accept(new SimulationOutputData(Map.of(), simulationSessionId,
+                            state.getDimensions().getFirst(), state.getDimensions().getSecond(), false,
+                            getStatistics(state)));
+                }
+            }
+            output.accept(mapStateToSimulationData(this.state, simulationSessionId, isOver));
+        } finally {
+            this.calculating = false;
+        }
+        return isOver;
+    }
+
     @Override
     public Integer getTickRate() {
         return this.tickRate;
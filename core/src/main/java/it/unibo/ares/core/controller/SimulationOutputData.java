@@ -1,18 +1,25 @@
 package it.unibo.ares.core.controller;
 
+import it.unibo.ares.core.agent.AgentTypes;
 import it.unibo.ares.core.api.SimulationOutputDataApi;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.statistics.Statistics;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * A simple class used to identify a data with a string.
- *
+ * A frame can hold the types of the agents as the codes of
+ * {@link AgentTypes}, in that case the map of the names is built only when it
+ * is requested.
  */
 public final class SimulationOutputData implements SimulationOutputDataApi {
-    private final Map<Pos, String> data;
+    private final List<Pos> positions;
+    private final int[] typeCodes;
+    private Map<Pos, String> data;
     private final String simulationId;
     private final Integer width;
     private final Integer height;
@@ -32,6 +39,37 @@ public final class SimulationOutputData implements SimulationOutputDataApi {
     public SimulationOutputData(final Map<Pos, String> data, final String simulationId, final Integer width,
             final Integer height, final boolean finished, final Statistics statistics) {
         this.data = Collections.unmodifiableMap(data);
+        this.positions = List.of();
+        this.typeCodes = new int[0];
+        this.simulationId = simulationId;
+        this.width = width;
+        this.height = height;
+        this.finished = finished;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Creates a new SimulationOutputData with the types of the agents encoded
+     * as codes.
+     *
+     * @param positions    the positions of the agents
+     * @param typeCodes    the codes of the types of the agents, in the same
+     *                     order of the positions
+     * @param simulationId the id of the simulation
+     * @param width        the width of the simulation output
+     * @param height       the height of the simulation output
+     * @param finished     weather the sim is over
+     * @param statistics   the statistics for this iteration
+     * @throws IllegalArgumentException if there are not as many codes as
+     *                                  positions
+     */
+    public SimulationOutputData(final List<Pos> positions, final int[] typeCodes, final String simulationId,
+            final Integer width, final Integer height, final boolean finished, final Statistics statistics) {
+        if (positions.size() != typeCodes.length) {
+            throw new IllegalArgumentException("There must be a type code for each position");
+        }
+        this.positions = List.copyOf(positions);
+        this.typeCodes = typeCodes.clone();
         this.simulationId = simulationId;
         this.width = width;
         this.height = height;
@@ -45,7 +83,14 @@ public final class SimulationOutputData implements SimulationOutputDataApi {
      * @return the data of the simulation.
      */
     @Override
-    public Map<Pos, String> getData() {
+    public synchronized Map<Pos, String> getData() {
+        if (data == null) {
+            final Map<Pos, String> names = new HashMap<>();
+            for (int i = 0; i < typeCodes.length; i++) {
+                names.put(positions.get(i), AgentTypes.nameOf(typeCodes[i]));
+            }
+            data = Collections.unmodifiableMap(names);
+        }
         return data;
     }
 
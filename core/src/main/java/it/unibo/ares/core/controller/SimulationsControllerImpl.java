@@ -102,6 +102,24 @@ final class SimulationsControllerImpl extends SimulationsController {
         simulations.get(id).setTickRate(tickRate);
     }
 
+    @Override
+    public boolean advanceSimulation(final String id, final int ticks, final int statisticsSampling) {
+        return advance(id, ticks, statisticsSampling);
+    }
+
+    @Override
+    public void runSimulationToCompletion(final String id, final int statisticsSampling) {
+        if (!simulations.get(id).getModel().canBeOver()) {
+            throw new IllegalArgumentException("The simulation never ends, it can only be advanced");
+        }
+        advance(id, Long.MAX_VALUE, statisticsSampling);
+    }
+
+    private boolean advance(final String id, final long ticks, final int statisticsSampling) {
+        return simulations.get(id).advance(id, ticks, statisticsSampling,
+                data -> processor.submit(new Identifier<>(data.getSimulationId(), data)));
+    }
+
     @Override
     public String saveSimulation(final String id) {
         return manager.save(simulations.remove(id));
@@ -1,17 +1,14 @@
 package it.unibo.ares.core.model;
 
+import it.unibo.ares.core.agent.Agent;
 import it.unibo.ares.core.agent.BoidsAgentFactory;
 import it.unibo.ares.core.utils.UniquePositionGetter;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
 import it.unibo.ares.core.utils.parameters.Parameters;
-import it.unibo.ares.core.utils.pos.Pos;
-import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
-import it.unibo.ares.core.utils.state.StateImpl;
-import java.util.List;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import it.unibo.ares.core.utils.state.ContinuousStateImpl;
+import it.unibo.ares.core.utils.state.StateFactory;
 
 /**
  * A factory class for creating the Boids model.
@@ -26,7 +23,8 @@ public final class BoidsModelFactory implements ModelFactory {
         return MODEL_ID;
     }
 
-    private State schellingInitializer(final Parameters parameters) throws IllegalAccessException {
+    private State schellingInitializer(final Parameters parameters, final StateFactory states)
+            throws IllegalAccessException {
         final int size = parameters.getParameter(Model.SIZEKEY, Integer.class)
                 .orElseThrow(IllegalAccessException::new).getValue();
         final int total = parameters.getParameter("numeroUccelli", Integer.class)
@@ -35,21 +33,14 @@ public final class BoidsModelFactory implements ModelFactory {
         if (size * size < total) {
             throw new IllegalArgumentException("The number of agents is greater than the size of the grid");
         }
-        final State state = new StateImpl(size, size);
-        final List<Pos> validPositions = IntStream.range(0, size).boxed()
-                .flatMap(i -> IntStream.range(0, size).mapToObj(j -> new PosImpl(i, j)))
-                .map(Pos.class::cast)
-                .toList();
-
-        final UniquePositionGetter getter = new UniquePositionGetter(validPositions);
+        final State state = states.create(size, size);
+        final UniquePositionGetter getter = new UniquePositionGetter(size, size);
         final BoidsAgentFactory boidsAgentFactory = new BoidsAgentFactory();
-        Stream
-                .generate(boidsAgentFactory::createAgent)
-                .limit(total)
-                .forEach(a -> {
-                    a.setType("B");
-                    state.addAgent(getter.next(), a);
-                });
+        ParallelPopulator.populate(state, getter, total, i -> {
+            final Agent agent = boidsAgentFactory.createAgent();
+            agent.setType("B");
+            return agent;
+        });
 
         return state;
     }
@@ -74,10 +65,12 @@ public final class BoidsModelFactory implements ModelFactory {
                 .addParameter(new ParameterImpl<>(
                         Model.SIZEKEY, Integer.class,
                         new ParameterDomainImpl<>("Dimensione della griglia (1-n)", (Integer n) -> n > 0), true))
-                .addExitFunction((o, n) -> false)
-                .addInitFunction(t -> {
+                .setEndless()
+                .addStateFactory(ContinuousStateImpl::new)
+                .addTickEngine(new BoidsTickEngine())
+                .addInitFunction((t, states) -> {
                     try {
-                        return schellingInitializer(t);
+                        return schellingInitializer(t, states);
                     } catch (IllegalAccessException e) {
                         throw new IllegalArgumentException(
                                 "Missing parameters for the model initialization");
@@ -0,0 +1,93 @@
+package it.unibo.ares.core.model;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.agent.BoidsFlock;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.state.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+
+/**
+ * Ticks the boids as a whole flock through a {@link BoidsFlock}: every boid
+ * reads the previous state, so what the boids see is computed for all of them
+ * at once, in chunks on many threads, and then the boids are moved on the
+ * next state one after the other. The other agents are then ticked
+ * sequentially, like {@link SequentialTickEngine} does.
+ * The result doesn't depend on the number of threads.
+ * The arrays of the flock are kept by the engine and reused at every tick, so
+ * an engine ticks one state at a time.
+ */
+final class BoidsTickEngine implements TickEngine {
+    private static final long serialVersionUID = 1L;
+    private static final int CHUNK = 1024;
+
+    private final int parallelism;
+    // gli array dello stormo, ricreati dopo la deserializzazione
+    private transient BoidsFlock flock;
+
+    /**
+     * Creates an engine that uses a thread for each available processor.
+     */
+    BoidsTickEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param parallelism the number of threads, with one thread the boids are
+     *                    ticked on the calling thread
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    BoidsTickEngine(final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The boids read the previous state, so they don't see the changes made by
+     * the pre-tick phases.
+     */
+    @Override
+    public synchronized void tick(final State previous, final State next, final Set<Pos> active) {
+        final List<Pos> boids = new ArrayList<>();
+        final List<Pos> others = new ArrayList<>();
+        for (final Pos pos : active) {
+            final Agent agent = previous.getAgentAt(pos).orElseThrow(() -> new IllegalStateException(
+                    "No agent to tick at " + pos));
+            (BoidsFlock.isBoid(agent) ? boids : others).add(pos);
+        }
+        if (flock == null) {
+            flock = new BoidsFlock();
+        }
+        flock.load(previous, boids);
+        final int chunks = (flock.size() + CHUNK - 1) / CHUNK;
+        if (parallelism == 1 || chunks <= 1) {
+            flock.sense(0, flock.size());
+        } else {
+            try {
+                TickPools.get(parallelism).submit(() -> IntStream.range(0, chunks).parallel()
+                        .forEach(c -> flock.sense(c * CHUNK, Math.min(flock.size(), (c + 1) * CHUNK))))
+                        .get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while ticking the boids", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Error while ticking the boids", e.getCause());
+            }
+        }
+        flock.steer();
+        flock.apply(next);
+        new SequentialTickEngine().tick(previous, next, Set.copyOf(others));
+    }
+}
@@ -7,14 +7,9 @@ import it.unibo.ares.core.utils.UniquePositionGetter;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
 import it.unibo.ares.core.utils.parameters.Parameters;
-import it.unibo.ares.core.utils.pos.Pos;
-import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
-import it.unibo.ares.core.utils.state.StateImpl;
-
-import java.util.List;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.StateFactory;
 
 /**
  * Generate an instance of a fire spread model. It permits the
@@ -44,14 +39,17 @@ public class FireSpreadModelFactory implements ModelFactory {
      * If so, it creates a new state and populates it with agents at valid
      * positions.
      * 
-     * @param parameters The parameters required to initialize the model. It should
-     *                   contain "size" and numeroAgentiTipoF".
+     * @param parameters       The parameters required to initialize the model. It
+     *                         should contain "size" and numeroAgentiTipoF".
+     * @param states           The factory of the empty state.
+     * @param fireAgentFactory The factory of the fire agents, it owns the wind.
      * @return The initialized state of the fire spread model.
      * @throws IllegalAccessException   If the required parameters are not provided.
      * @throws IllegalArgumentException If the total number of agents is greater
      *                                  than the total number of cells in the grid.
      */
-    private static State fireSpreadInitializer(final Parameters parameters) throws IllegalAccessException {
+    private static State fireSpreadInitializer(final Parameters parameters, final StateFactory states,
+            final FireAgentFactory fireAgentFactory) throws IllegalAccessException {
         final Integer size = parameters.getParameter(Model.SIZEKEY, Integer.class).orElseThrow().getValue();
         final Integer nf = parameters.getParameter("numFire", Integer.class).get().getValue();
 
@@ -61,24 +59,13 @@ public class FireSpreadModelFactory implements ModelFactory {
         }
         final Double veg = parameters.getParameter("vegetation", Double.class).get().getValue();
         final Integer nt = (int) ((total - nf) * veg);
-        final State state = new StateImpl(size, size);
-        final List<Pos> validPositions = IntStream.range(0, size).boxed()
-                .flatMap(i -> IntStream.range(0, size).mapToObj(j -> new PosImpl(i, j)))
-                .map(Pos.class::cast)
-                .toList();
-        final UniquePositionGetter getter = new UniquePositionGetter(validPositions);
+        final State state = states.create(size, size);
+        final UniquePositionGetter getter = new UniquePositionGetter(size, size);
 
-        final FireAgentFactory fireAgentFactory = new FireAgentFactory();
-        Stream
-                .generate(fireAgentFactory::createAgent)
-                .limit(nf)
-                .forEach(a -> state.addAgent(getter.next(), a));
+        ParallelPopulator.populate(state, getter, nf, i -> fireAgentFactory.createAgent());
 
         final TreeAgentFactory treeAgentFactory = new TreeAgentFactory();
-        Stream
-                .generate(treeAgentFactory::createAgent)
-                .limit(nt)
-                .forEach(a -> state.addAgent(getter.next(), a));
+        ParallelPopulator.populate(state, getter, nt, i -> treeAgentFactory.createAgent());
 
         return state;
     }
@@ -93,6 +80,8 @@ public class FireSpreadModelFactory implements ModelFactory {
     @Override
     @SuppressWarnings("PMD.PreserveStackTrace") // La causa è sempre qella
     public Model getModel() {
+        // il vento è unico per tutti i fuochi, viene aggiornato una volta per tick
+        final FireAgentFactory fireAgentFactory = new FireAgentFactory();
         return new ModelBuilderImpl()
                 .addParameter(new ParameterImpl<>("numFire", Integer.class,
                         new ParameterDomainImpl<>("Numero di agenti fuoco (1-n)",
@@ -107,12 +96,15 @@ public class FireSpreadModelFactory implements ModelFactory {
                         new ParameterDomainImpl<>("Dimensione della griglia (1-n)",
                                 (Integer n) -> n > 0),
                         true))
-                .addExitFunction((o, n) -> n.getAgents().stream()
-                        .map(a -> a.getSecond().getType()).distinct()
-                        .allMatch(t -> !"F".equals(t)))
-                .addInitFunction(t -> {
+                .addExitFunction((o, n) -> n.countAgentsByType(FireAgentFactory.FIRE) == 0)
+                // alberi e fuochi spenti non cambiano mai, si aggiorna solo il fronte del fuoco
+                .addActiveAgents(s -> s.getPosByType(FireAgentFactory.FIRE))
+                .addPreTickPhase(fireAgentFactory::changeWindDirection)
+                .addSelectableTickEngine()
+                .addStateFactory(DenseStateImpl::new)
+                .addInitFunction((t, states) -> {
                     try {
-                        return fireSpreadInitializer(t);
+                        return fireSpreadInitializer(t, states, fireAgentFactory);
                     } catch (IllegalAccessException e) {
                         throw new IllegalArgumentException(
                                 "Missing parameters for the model initialization");
@@ -50,6 +50,14 @@ public interface Model extends Serializable {
      */
     boolean isOver(State oldState, State newState);
 
+    /**
+     * Tells whether the simulation can ever reach the end, a model that can't
+     * runs until it is stopped.
+     *
+     * @return false if {@link #isOver(State, State)} is always false
+     */
+    boolean canBeOver();
+
     /**
      * Initializes the model. Fail if not all parameters are setted.
      *
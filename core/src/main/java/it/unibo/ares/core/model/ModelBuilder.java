@@ -1,13 +1,18 @@
 package it.unibo.ares.core.model;
 
+import it.unibo.ares.core.utils.lambda.SerializableBiFunction;
 import it.unibo.ares.core.utils.lambda.SerializableBiPredicate;
+import it.unibo.ares.core.utils.lambda.SerializableConsumer;
 import it.unibo.ares.core.utils.lambda.SerializableFunction;
 import it.unibo.ares.core.utils.parameters.Parameter;
 import it.unibo.ares.core.utils.parameters.Parameters;
+import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.state.State;
+import it.unibo.ares.core.utils.state.StateFactory;
 import it.unibo.ares.core.utils.statistics.StatisticsGenerator;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * Represents a builder for creating models.
@@ -46,13 +51,84 @@ interface ModelBuilder extends Serializable {
      */
     ModelBuilder addExitFunction(SerializableBiPredicate<State, State> exitfFunction);
 
+    /**
+     * Marks the model as endless, in place of the exit function: the
+     * simulation is never over and runs until it is stopped.
+     *
+     * @return the model builder itself
+     */
+    ModelBuilder setEndless();
+
     /**
      * Add the function that initialize the state of the model.
+     * The function receives the parameters of the model and the factory that
+     * must be used to create the empty state.
      * 
      * @param initFunction
      * @return the model builder with the added init function
      */
-    ModelBuilder addInitFunction(SerializableFunction<Parameters, State> initFunction);
+    ModelBuilder addInitFunction(SerializableBiFunction<Parameters, StateFactory, State> initFunction);
+
+    /**
+     * Sets the factory used to create the state of the model, if not set the
+     * model uses {@link it.unibo.ares.core.utils.state.StateImpl}.
+     * 
+     * @param stateFactory the factory of the states
+     * @return the model builder itself
+     */
+    ModelBuilder addStateFactory(StateFactory stateFactory);
+
+    /**
+     * Sets the function that selects, from the state at the beginning of a
+     * tick, the positions of the agents that are ticked. Agents whose strategy
+     * never changes the state can be left out so that a tick costs only as
+     * much as the active agents. If not set every agent is ticked.
+     * 
+     * @param activeAgents the function returning the positions of the agents
+     *                     to tick
+     * @return the model builder itself
+     */
+    ModelBuilder addActiveAgents(SerializableFunction<State, Set<Pos>> activeAgents);
+
+    /**
+     * Sets the engine that ticks the agents, if not set the agents are ticked
+     * sequentially.
+     * 
+     * @param engine the engine
+     * @return the model builder itself
+     */
+    ModelBuilder addTickEngine(TickEngine engine);
+
+    /**
+     * Lets the user choose the engine that ticks the agents, in place of the
+     * one set by {@link #addTickEngine(TickEngine)}: the model gets the
+     * parameter {@link TickEngines#KEY}, set to the sequential engine, and
+     * every tick uses the engine it names.
+     * 
+     * @return the model builder itself
+     */
+    ModelBuilder addSelectableTickEngine();
+
+    /**
+     * Adds a phase that runs once per tick, before the agents are ticked.
+     * The phase receives the state that the agents are going to update, so it
+     * can compute the values shared by all the agents (for example a global
+     * field) only once. Phases run in the order they were added.
+     * 
+     * @param phase the phase
+     * @return the model builder itself
+     */
+    ModelBuilder addPreTickPhase(SerializableConsumer<State> phase);
+
+    /**
+     * Adds a phase that runs once per tick, after every agent has been ticked.
+     * The phase receives the state produced by the agents. Phases run in the
+     * order they were added.
+     * 
+     * @param phase the phase
+     * @return the model builder itself
+     */
+    ModelBuilder addPostTickPhase(SerializableConsumer<State> phase);
 
     /**
      * Aggiunge il generatore per permettere al modello di generare statistiche.
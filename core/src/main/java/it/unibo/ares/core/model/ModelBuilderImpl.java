@@ -1,21 +1,27 @@
 package it.unibo.ares.core.model;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import it.unibo.ares.core.agent.Agent;
 import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.lambda.SerializableBiFunction;
 import it.unibo.ares.core.utils.lambda.SerializableBiPredicate;
+import it.unibo.ares.core.utils.lambda.SerializableConsumer;
 import it.unibo.ares.core.utils.lambda.SerializableFunction;
 import it.unibo.ares.core.utils.parameters.Parameter;
 import it.unibo.ares.core.utils.parameters.Parameters;
 import it.unibo.ares.core.utils.parameters.ParametersImpl;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.state.State;
+import it.unibo.ares.core.utils.state.StateFactory;
+import it.unibo.ares.core.utils.state.StateImpl;
 import it.unibo.ares.core.utils.statistics.Statistics;
 import it.unibo.ares.core.utils.statistics.StatisticsGenerator;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @SuppressFBWarnings(value = {
         "UWF_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR"
@@ -26,7 +32,14 @@ final class ModelBuilderImpl implements ModelBuilder {
     private static final long serialVersionUID = 1L;
     private Parameters parameters;
     private SerializableBiPredicate<State, State> exitfFunction;
-    private SerializableFunction<Parameters, State> initFunction;
+    private boolean endless;
+    private SerializableBiFunction<Parameters, StateFactory, State> initFunction;
+    private StateFactory stateFactory;
+    private SerializableFunction<State, Set<Pos>> activeAgents;
+    private List<SerializableConsumer<State>> preTickPhases;
+    private List<SerializableConsumer<State>> postTickPhases;
+    private TickEngine engine;
+    private boolean selectableEngine;
     private transient StatisticsGenerator generator;
 
     ModelBuilderImpl() {
@@ -37,7 +50,14 @@ final class ModelBuilderImpl implements ModelBuilder {
     public void reset() {
         this.parameters = new ParametersImpl();
         this.exitfFunction = null;
+        this.endless = false;
         this.initFunction = null;
+        this.stateFactory = StateImpl::new;
+        this.activeAgents = ModelBuilderImpl::allAgents;
+        this.preTickPhases = new ArrayList<>();
+        this.postTickPhases = new ArrayList<>();
+        this.engine = new SequentialTickEngine();
+        this.selectableEngine = false;
         this.generator = null;
     }
 
@@ -60,6 +80,14 @@ final class ModelBuilderImpl implements ModelBuilder {
             throw new IllegalArgumentException("Exit function cannot be null");
         }
         this.exitfFunction = exitfFunction;
+        this.endless = false;
+        return this;
+    }
+
+    @Override
+    public ModelBuilder setEndless() {
+        this.exitfFunction = (o, n) -> false;
+        this.endless = true;
         return this;
     }
 
@@ -78,15 +106,11 @@ final class ModelBuilderImpl implements ModelBuilder {
 
             @Override
             public State tick(final State state) {
-                final Set<Pair<Pos, Agent>> agents = state.getAgents();
+                final Set<Pos> active = activeAgents.apply(state);
                 final State newState = state.copy();
-                for (final Pair<Pos, Agent> pair : agents) {
-                    final Agent agent = pair.getSecond();
-                    final Pos pos = pair.getFirst();
-                    if (newState.getAgentAt(pos).isPresent() && newState.getAgentAt(pos).get().equals(agent)) {
-                        agent.tick(newState, pos);
-                    }
-                }
+                preTickPhases.forEach(phase -> phase.accept(newState));
+                (selectableEngine ? TickEngines.selected(parameters) : engine).tick(state, newState, active);
+                postTickPhases.forEach(phase -> phase.accept(newState));
                 return newState;
             }
 
@@ -105,9 +129,14 @@ final class ModelBuilderImpl implements ModelBuilder {
                 return exitfFunction.test(oldState, newState);
             }
 
+            @Override
+            public boolean canBeOver() {
+                return !endless;
+            }
+
             @Override
             public State initilize() {
-                return initFunction.apply(parameters);
+                return initFunction.apply(parameters, stateFactory);
             }
 
             @Override
@@ -119,7 +148,8 @@ final class ModelBuilderImpl implements ModelBuilder {
     }
 
     @Override
-    public ModelBuilder addInitFunction(final SerializableFunction<Parameters, State> initFunction) {
+    public ModelBuilder addInitFunction(
+            final SerializableBiFunction<Parameters, StateFactory, State> initFunction) {
         if (initFunction == null) {
             throw new IllegalArgumentException("Init function cannot be null");
         }
@@ -128,6 +158,65 @@ final class ModelBuilderImpl implements ModelBuilder {
         return this;
     }
 
+    @Override
+    public ModelBuilder addStateFactory(final StateFactory stateFactory) {
+        if (stateFactory == null) {
+            throw new IllegalArgumentException("State factory cannot be null");
+        }
+        this.stateFactory = stateFactory;
+        return this;
+    }
+
+    @Override
+    public ModelBuilder addActiveAgents(final SerializableFunction<State, Set<Pos>> activeAgents) {
+        if (activeAgents == null) {
+            throw new IllegalArgumentException("Active agents function cannot be null");
+        }
+        this.activeAgents = activeAgents;
+        return this;
+    }
+
+    @Override
+    public ModelBuilder addTickEngine(final TickEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Tick engine cannot be null");
+        }
+        this.engine = engine;
+        this.selectableEngine = false;
+        return this;
+    }
+
+    @Override
+    public ModelBuilder addSelectableTickEngine() {
+        addParameter(TickEngines.parameter());
+        this.selectableEngine = true;
+        return this;
+    }
+
+    @Override
+    public ModelBuilder addPreTickPhase(final SerializableConsumer<State> phase) {
+        if (phase == null) {
+            throw new IllegalArgumentException("Phase cannot be null");
+        }
+        this.preTickPhases.add(phase);
+        return this;
+    }
+
+    @Override
+    public ModelBuilder addPostTickPhase(final SerializableConsumer<State> phase) {
+        if (phase == null) {
+            throw new IllegalArgumentException("Phase cannot be null");
+        }
+        this.postTickPhases.add(phase);
+        return this;
+    }
+
+    private static Set<Pos> allAgents(final State state) {
+        return state.getAgents().stream()
+                .map(Pair::getFirst)
+                .collect(Collectors.toSet());
+    }
+
     @Override
     public ModelBuilder addStatisticsGenerator(final StatisticsGenerator generator) {
         this.generator = generator;
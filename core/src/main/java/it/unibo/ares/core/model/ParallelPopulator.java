@@ -0,0 +1,49 @@
+package it.unibo.ares.core.model;
+
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.utils.UniquePositionGetter;
+import it.unibo.ares.core.utils.state.State;
+
+/**
+ * Populates the board of a model at initialization.
+ * Building an agent (its parameters, id and strategy) is by far the most
+ * expensive part, so large populations are built on all the cores, each core
+ * working on a contiguous range of agents; the agents are then placed on the
+ * state by a single thread, since the states are not thread safe, which costs
+ * O(1) per agent.
+ */
+final class ParallelPopulator {
+    // sotto questa soglia il costo di avviare i thread supera il guadagno
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private ParallelPopulator() {
+    }
+
+    /**
+     * Creates a number of agents and places each one on a position drawn from
+     * the getter, the i-th agent is placed on the i-th position drawn.
+     *
+     * @param state   the state to populate
+     * @param getter  the source of the free positions
+     * @param count   the number of agents
+     * @param creator the function that creates the i-th agent, it can be called
+     *                from many threads at once
+     * @throws IllegalArgumentException if the count is negative
+     */
+    static void populate(final State state, final UniquePositionGetter getter, final int count,
+            final IntFunction<Agent> creator) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of agents cannot be negative");
+        }
+        final Agent[] agents = new Agent[count];
+        final IntStream indexes = IntStream.range(0, count);
+        (count < PARALLEL_THRESHOLD ? indexes : indexes.parallel())
+                .forEach(i -> agents[i] = creator.apply(i));
+        for (final Agent agent : agents) {
+            state.addAgent(getter.next(), agent);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package it.unibo.ares.core.model;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.state.BufferedState;
+import it.unibo.ares.core.utils.state.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Ticks the agents on many threads.
+ * The board is split in square tiles, colored like a 2x2 checkerboard so that
+ * two tiles of the same color are never adjacent. The tiles of one color are
+ * ticked concurrently, then the next color starts and sees the changes of the
+ * previous ones.
+ * Inside a tile the agents are ticked sequentially on a {@link BufferedState}:
+ * they read the state as it was when the color started and their changes are
+ * applied at the end of the color, tile by tile in row-major order. When two
+ * tiles claim the same cell the first one wins and the changes of the other
+ * one on that cell are dropped, so the result doesn't depend on the
+ * scheduling of the threads.
+ * Agents that read or change cells farther than the size of a tile can see
+ * agents that are being ticked by another thread, so the tiles should be
+ * larger than the vision of the agents.
+ */
+final class ParallelTickEngine implements TickEngine {
+    private static final long serialVersionUID = 1L;
+    private static final int COLORS = 4;
+
+    private final int tileSize;
+    private final int parallelism;
+
+    /**
+     * Creates an engine that uses a thread for each available processor.
+     *
+     * @param tileSize the side of the tiles
+     */
+    ParallelTickEngine(final int tileSize) {
+        this(tileSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param tileSize    the side of the tiles
+     * @param parallelism the number of threads
+     * @throws IllegalArgumentException if the size or the number of threads is
+     *                                  not positive
+     */
+    ParallelTickEngine(final int tileSize, final int parallelism) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("The size of the tiles must be positive");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        this.tileSize = tileSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tick(final State previous, final State next, final Set<Pos> active) {
+        final int tilesX = (previous.getDimensions().getFirst() + tileSize - 1) / tileSize;
+        final List<Map<Integer, List<Pos>>> colors = new ArrayList<>();
+        for (int c = 0; c < COLORS; c++) {
+            colors.add(new TreeMap<>());
+        }
+        for (final Pos pos : active) {
+            final int tx = pos.getX() / tileSize;
+            final int ty = pos.getY() / tileSize;
+            colors.get(tx % 2 + 2 * (ty % 2))
+                    .computeIfAbsent(ty * tilesX + tx, t -> new ArrayList<>())
+                    .add(pos);
+        }
+        for (final Map<Integer, List<Pos>> tiles : colors) {
+            if (!tiles.isEmpty()) {
+                final List<List<Pos>> work = new ArrayList<>(tiles.values());
+                tickTiles(previous, next, work).forEach(view -> view.commit(next));
+            }
+        }
+    }
+
+    private List<BufferedState> tickTiles(final State previous, final State next, final List<List<Pos>> tiles) {
+        if (tiles.size() == 1) {
+            return List.of(tickTile(previous, next, tiles.get(0)));
+        }
+        try {
+            return TickPools.get(parallelism).submit(() -> tiles.parallelStream()
+                    .map(tile -> tickTile(previous, next, tile))
+                    .toList())
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while ticking the agents", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Error while ticking the agents", e.getCause());
+        }
+    }
+
+    private static BufferedState tickTile(final State previous, final State next, final List<Pos> tile) {
+        final BufferedState view = new BufferedState(next);
+        for (final Pos pos : tile) {
+            final Agent agent = previous.getAgentAt(pos).orElseThrow(() -> new IllegalStateException(
+                    "No agent to tick at " + pos));
+            if (view.getAgentAt(pos).isPresent() && view.getAgentAt(pos).get().equals(agent)) {
+                agent.tick(view, pos);
+            }
+        }
+        return view;
+    }
+}
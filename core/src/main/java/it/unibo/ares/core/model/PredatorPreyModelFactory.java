@@ -7,15 +7,9 @@ import it.unibo.ares.core.utils.UniquePositionGetter;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
 import it.unibo.ares.core.utils.parameters.Parameters;
-import it.unibo.ares.core.utils.pos.Pos;
-import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
-import it.unibo.ares.core.utils.state.StateImpl;
-
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.StateFactory;
 
 /**
  * A factory class for creating the Predator-Prey model.
@@ -30,7 +24,8 @@ public final class PredatorPreyModelFactory implements ModelFactory {
         return MODEL_ID;
     }
 
-    private State predatorPreyInitializer(final Parameters parameters) throws IllegalAccessException {
+    private State predatorPreyInitializer(final Parameters parameters, final StateFactory states)
+            throws IllegalAccessException {
         final int size = parameters.getParameter(
                 Model.SIZEKEY, Integer.class)
                 .orElseThrow(IllegalAccessException::new).getValue();
@@ -43,22 +38,14 @@ public final class PredatorPreyModelFactory implements ModelFactory {
         if (size * size < numAgentsPrey + numAgentsPredator) {
             throw new IllegalArgumentException("The number of agents is greater than the size of the grid");
         }
-        final State state = new StateImpl(size, size);
-
-        final List<Pos> validPositions = IntStream.range(0, size).boxed()
-                .flatMap(i -> IntStream.range(0, size).mapToObj(j -> new PosImpl(i, j)))
-                .collect(Collectors.toList());
+        final State state = states.create(size, size);
 
-        final UniquePositionGetter getter = new UniquePositionGetter(validPositions);
+        final UniquePositionGetter getter = new UniquePositionGetter(size, size);
         final AgentFactory predatorFactory = new PredatorAgentFactory();
         final AgentFactory preyFactory = new PreyAgentFactory();
 
-        Stream.generate(preyFactory::createAgent)
-                .limit(numAgentsPrey).forEach(a -> state.addAgent(getter.next(), a));
-
-        Stream.generate(
-                predatorFactory::createAgent)
-                .limit(numAgentsPredator).forEach(a -> state.addAgent(getter.next(), a));
+        ParallelPopulator.populate(state, getter, numAgentsPrey, i -> preyFactory.createAgent());
+        ParallelPopulator.populate(state, getter, numAgentsPredator, i -> predatorFactory.createAgent());
 
         return state;
     }
@@ -79,11 +66,14 @@ public final class PredatorPreyModelFactory implements ModelFactory {
                                 (Integer n) -> n >= 0),
                         true))
                 .addExitFunction(
-                        (o, n) -> n.getAgents().stream().map(a -> a.getSecond().getType())
-                                .distinct().count() < 2 || o.equals(n))
-                .addInitFunction(t -> {
+                        (o, n) -> n.countAgentsByType(PreyAgentFactory.PREY) == 0
+                                || n.countAgentsByType(PredatorAgentFactory.PREDATOR) == 0
+                                || o.equals(n))
+                .addStateFactory(DenseStateImpl::new)
+                .addSelectableTickEngine()
+                .addInitFunction((t, states) -> {
                     try {
-                        return predatorPreyInitializer(t);
+                        return predatorPreyInitializer(t, states);
                     } catch (IllegalAccessException e) {
                         throw new IllegalArgumentException(
                                 "Missing parameters for the model initialization");
@@ -10,19 +10,15 @@ import it.unibo.ares.core.utils.parameters.Parameter;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
 import it.unibo.ares.core.utils.parameters.Parameters;
-import it.unibo.ares.core.utils.pos.Pos;
-import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
-import it.unibo.ares.core.utils.state.StateImpl;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.StateFactory;
 import it.unibo.ares.core.utils.statistics.Statistics;
 import it.unibo.ares.core.utils.statistics.StatisticsGenerator;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalDouble;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 /**
  * Generate an instance of a schelling segregation model. It permits the
@@ -92,7 +88,8 @@ public final class SchellingModelFactory implements ModelFactory {
         return index < na ? "A" : "B";
     }
 
-    private static State schellingInitializer(final Parameters parameters) throws IllegalAccessException {
+    private static State schellingInitializer(final Parameters parameters, final StateFactory states)
+            throws IllegalAccessException {
         final int size = parameters.getParameter(
                 Model.SIZEKEY, Integer.class)
                 .orElseThrow(IllegalAccessException::new).getValue();
@@ -104,22 +101,14 @@ public final class SchellingModelFactory implements ModelFactory {
         if (size * size < total) {
             throw new IllegalArgumentException("The number of agents is greater than the size of the grid");
         }
-        final State state = new StateImpl(size, size);
-        final List<Pos> validPositions = IntStream.range(0, size).boxed()
-                .flatMap(i -> IntStream.range(0, size).mapToObj(j -> new PosImpl(i, j)))
-                .map(Pos.class::cast)
-                .toList();
-
-        final UniquePositionGetter getter = new UniquePositionGetter(validPositions);
+        final State state = states.create(size, size);
+        final UniquePositionGetter getter = new UniquePositionGetter(size, size);
         final AgentFactory schellingFactory = new SchellingsAgentFactory();
-        final List<Agent> agents = Stream
-                .generate(schellingFactory::createAgent)
-                .limit(total)
-                .collect(Collectors.toList());
-        IntStream.range(0, total)
-                .forEach(i -> agents.get(i).setType(getAgentType(na, i)));
-        IntStream.range(0, total)
-                .forEach(i -> state.addAgent(getter.next(), agents.get(i)));
+        ParallelPopulator.populate(state, getter, total, i -> {
+            final Agent agent = schellingFactory.createAgent();
+            agent.setType(getAgentType(na, i));
+            return agent;
+        });
 
         return state;
     }
@@ -154,11 +143,12 @@ public final class SchellingModelFactory implements ModelFactory {
                                 "Dimensione della griglia (1-n)",
                                 (Integer i) -> i > 0),
                         true))
-                .addExitFunction((o, n) -> o.getAgents().stream()
-                        .allMatch(p -> n.getAgents().stream().anyMatch(p::equals)))
-                .addInitFunction(t -> {
+                .addExitFunction((o, n) -> n.getAgents().containsAll(o.getAgents()))
+                .addStateFactory(DenseStateImpl::new)
+                .addSelectableTickEngine()
+                .addInitFunction((t, states) -> {
                     try {
-                        return schellingInitializer(t);
+                        return schellingInitializer(t, states);
                     } catch (IllegalAccessException e) {
                         throw new IllegalArgumentException(
                                 "Missing parameters for the model initialization");
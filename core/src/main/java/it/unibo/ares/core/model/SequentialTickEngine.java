@@ -0,0 +1,29 @@
+package it.unibo.ares.core.model;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.state.State;
+
+import java.util.Set;
+
+/**
+ * Ticks the agents one after the other on the calling thread, each agent sees
+ * the changes made by the agents ticked before it.
+ */
+final class SequentialTickEngine implements TickEngine {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tick(final State previous, final State next, final Set<Pos> active) {
+        for (final Pos pos : active) {
+            final Agent agent = previous.getAgentAt(pos).orElseThrow(() -> new IllegalStateException(
+                    "No agent to tick at " + pos));
+            if (next.getAgentAt(pos).isPresent() && next.getAgentAt(pos).get().equals(agent)) {
+                agent.tick(next, pos);
+            }
+        }
+    }
+}
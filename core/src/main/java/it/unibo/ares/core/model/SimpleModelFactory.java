@@ -6,7 +6,6 @@ import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
 import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
-import it.unibo.ares.core.utils.state.StateImpl;
 
 /**
  * Provides a mock model for testing purposes.
@@ -41,12 +40,12 @@ public final class SimpleModelFactory implements ModelFactory {
                                 (Integer i) -> i > 0),
                         true))
                 .addExitFunction((state, state2) -> !state2.isFree(new PosImpl(0, 0)))
-                .addInitFunction(params -> {
+                .addInitFunction((params, states) -> {
                     final Integer size = params.getParameter(
                             Model.SIZEKEY, Integer.class)
                             .orElseThrow(() -> new IllegalArgumentException("No size parameter"))
                             .getValue();
-                    final State state = new StateImpl(size, size);
+                    final State state = states.create(size, size);
                     state.addAgent(new PosImpl(0, 0), agentProvider.createAgent());
                     return state;
                 })
@@ -6,14 +6,9 @@ import it.unibo.ares.core.utils.UniquePositionGetter;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
 import it.unibo.ares.core.utils.parameters.Parameters;
-import it.unibo.ares.core.utils.pos.Pos;
-import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
-import it.unibo.ares.core.utils.state.StateImpl;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.StateFactory;
 
 /**
  * A factory class for creating the SugarscapeModelFactory model.
@@ -28,7 +23,8 @@ public final class SugarscapeModelFactory implements ModelFactory {
         return MODEL_ID;
     }
 
-    private State sugarscapeInitializer(final Parameters parameters) throws IllegalAccessException {
+    private State sugarscapeInitializer(final Parameters parameters, final StateFactory states,
+            final ConsumerAgentFactory consumerFactory) throws IllegalAccessException {
         final int size = parameters.getParameter(
                 Model.SIZEKEY, Integer.class)
                 .orElseThrow(IllegalAccessException::new).getValue();
@@ -41,23 +37,13 @@ public final class SugarscapeModelFactory implements ModelFactory {
         if (size * size < numAgentsConsumer + numAgentsSugar) {
             throw new IllegalArgumentException("The number of agents is greater than the size of the grid");
         }
-        final StateImpl state = new StateImpl(size, size);
+        final State state = states.create(size, size);
 
-        final List<Pos> validPositions = IntStream.range(0, size).boxed()
-                .flatMap(i -> IntStream.range(0, size).mapToObj(j -> new PosImpl(i, j)))
-                .collect(Collectors.toList());
-
-        final UniquePositionGetter getter = new UniquePositionGetter(validPositions);
+        final UniquePositionGetter getter = new UniquePositionGetter(size, size);
         final SugarAgentFactory sugarFactory = new SugarAgentFactory();
-        final ConsumerAgentFactory consumerFactory = new ConsumerAgentFactory();
 
-        Stream.generate(
-                sugarFactory::createAgent)
-                .limit(numAgentsSugar).forEach(a -> state.addAgent(getter.next(), a));
-
-        Stream.generate(
-                consumerFactory::createAgent)
-                .limit(numAgentsConsumer).forEach(a -> state.addAgent(getter.next(), a));
+        ParallelPopulator.populate(state, getter, numAgentsSugar, i -> sugarFactory.createAgent());
+        ParallelPopulator.populate(state, getter, numAgentsConsumer, i -> consumerFactory.createAgent());
 
         return state;
     }
@@ -65,6 +51,7 @@ public final class SugarscapeModelFactory implements ModelFactory {
     @Override
     @SuppressWarnings("PMD.PreserveStackTrace") // La causa è sempre qella
     public Model getModel() {
+        final ConsumerAgentFactory consumerFactory = new ConsumerAgentFactory();
         return new ModelBuilderImpl()
                 .addParameter(new ParameterImpl<>("numeroAgentiConsumer", Integer.class,
                         new ParameterDomainImpl<>("Numero di agenti consumer",
@@ -79,11 +66,16 @@ public final class SugarscapeModelFactory implements ModelFactory {
                                 (Integer n) -> n >= 0),
                         true))
                 .addExitFunction(
-                        (o, n) -> n.getAgents().stream().map(a -> a.getSecond().getType())
-                                .distinct().count() == 1)
-                .addInitFunction(params -> {
+                        // finisce quando resta un solo tipo di agenti
+                        (o, n) -> n.countAgentsByType(SugarAgentFactory.SUGAR) == 0
+                                ^ n.countAgentsByType(ConsumerAgentFactory.CONSUMER) == 0)
+                // i consumer cercano lo zucchero nel campo calcolato una volta per tick
+                .addPreTickPhase(consumerFactory::updateSugarField)
+                .addStateFactory(DenseStateImpl::new)
+                .addSelectableTickEngine()
+                .addInitFunction((params, states) -> {
                     try {
-                        return sugarscapeInitializer(params);
+                        return sugarscapeInitializer(params, states, consumerFactory);
                     } catch (IllegalAccessException e) {
                         throw new IllegalArgumentException(
                                 "Missing parameters for the model initialization");
@@ -0,0 +1,87 @@
+package it.unibo.ares.core.model;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.state.BufferedState;
+import it.unibo.ares.core.utils.state.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Ticks all the agents at once, like a cellular automaton: every agent reads
+ * the previous state, never the changes of the other agents of the same tick,
+ * so the result doesn't depend on the order in which the agents are visited.
+ * Each agent writes its changes in its own {@link BufferedState}; when all the
+ * agents have been ticked the changes are applied to the next state in the
+ * order of the agents, and a change whose target has already been claimed by
+ * a previous agent is dropped.
+ * Since the previous state is only read, the agents can also be ticked on
+ * many threads.
+ */
+final class SynchronousTickEngine implements TickEngine {
+    private static final long serialVersionUID = 1L;
+
+    private final int parallelism;
+
+    /**
+     * Creates an engine that ticks the agents on the calling thread.
+     */
+    SynchronousTickEngine() {
+        this(1);
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param parallelism the number of threads, with one thread the agents are
+     *                    ticked on the calling thread
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    SynchronousTickEngine(final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The agents read the previous state, so they don't see the changes made by
+     * the pre-tick phases.
+     */
+    @Override
+    public void tick(final State previous, final State next, final Set<Pos> active) {
+        final List<Pos> agents = new ArrayList<>(active);
+        final List<BufferedState> views;
+        if (parallelism == 1) {
+            views = agents.stream().map(pos -> tickAgent(previous, pos)).toList();
+        } else {
+            try {
+                views = TickPools.get(parallelism).submit(() -> agents.parallelStream()
+                        .map(pos -> tickAgent(previous, pos))
+                        .toList())
+                        .get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while ticking the agents", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Error while ticking the agents", e.getCause());
+            }
+        }
+        views.forEach(view -> view.commit(next));
+    }
+
+    private static BufferedState tickAgent(final State previous, final Pos pos) {
+        final Agent agent = previous.getAgentAt(pos).orElseThrow(() -> new IllegalStateException(
+                "No agent to tick at " + pos));
+        final BufferedState view = new BufferedState(previous);
+        agent.tick(view, pos);
+        return view;
+    }
+}
@@ -0,0 +1,25 @@
+package it.unibo.ares.core.model;
+
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.state.State;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * Runs the agents of a model during a tick, it decides in which order (and
+ * on how many threads) the strategies of the agents are executed.
+ */
+interface TickEngine extends Serializable {
+    /**
+     * Ticks the agents at the specified positions.
+     * An agent is ticked only if, when its turn comes, it is still at its
+     * position.
+     *
+     * @param previous the state at the beginning of the tick, it is not changed
+     * @param next     the state changed by the agents, at the beginning it is a
+     *                 copy of the previous one
+     * @param active   the positions in the previous state of the agents to tick
+     */
+    void tick(State previous, State next, Set<Pos> active);
+}
@@ -0,0 +1,81 @@
+package it.unibo.ares.core.model;
+
+import java.util.List;
+
+import it.unibo.ares.core.utils.parameters.Parameter;
+import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
+import it.unibo.ares.core.utils.parameters.ParameterImpl;
+import it.unibo.ares.core.utils.parameters.Parameters;
+
+/**
+ * The tick engines that the user can choose for a model, through a parameter
+ * of the model. The default is the sequential engine, the one the models have
+ * always used; the synchronous one is opt-in because it changes the dynamics
+ * of the models: every agent reads the state of the previous tick, the cells
+ * freed during a tick can be taken only at the next one, and of two agents
+ * that claim the same cell only the first one gets it. The parallel one
+ * ticks the tiles of the board on many threads, the agents of a tile see the
+ * changes of the other tiles only when a color of tiles is over.
+ */
+final class TickEngines {
+    /**
+     * The key of the parameter of the model that selects the engine.
+     */
+    static final String KEY = "motoreTick";
+    /**
+     * The agents are ticked one after the other, each one sees the changes
+     * of the ones before it, see {@link SequentialTickEngine}.
+     */
+    static final String SEQUENTIAL = "sequenziale";
+    /**
+     * The agents all read the previous state, see
+     * {@link SynchronousTickEngine}.
+     */
+    static final String SYNCHRONOUS = "sincrono";
+    /**
+     * The tiles of the board are ticked on many threads, see
+     * {@link ParallelTickEngine}.
+     */
+    static final String PARALLEL = "parallelo";
+    // il lato delle tessere, più grande della vista degli agenti dei modelli
+    private static final int TILE_SIZE = 16;
+    private static final List<String> NAMES = List.of(SEQUENTIAL, SYNCHRONOUS, PARALLEL);
+
+    private TickEngines() {
+    }
+
+    /**
+     * @return the parameter of the model that selects the engine, set to the
+     *         sequential engine
+     */
+    static Parameter<String> parameter() {
+        return new ParameterImpl<>(KEY, SEQUENTIAL,
+                new ParameterDomainImpl<>("Aggiornamento degli agenti: " + String.join(", ", NAMES),
+                        NAMES::contains),
+                true);
+    }
+
+    /**
+     * Creates the engine selected by the parameters of a model.
+     *
+     * @param parameters the parameters of the model
+     * @return the engine
+     * @throws IllegalArgumentException if the parameter is missing or names no
+     *                                  engine
+     */
+    static TickEngine selected(final Parameters parameters) {
+        final String name = parameters.getParameter(KEY, String.class)
+                .orElseThrow(() -> new IllegalArgumentException("Parameter " + KEY + " does not exist"))
+                .getValue();
+        switch (name) {
+            case SEQUENTIAL:
+                return new SequentialTickEngine();
+            case SYNCHRONOUS:
+                return new SynchronousTickEngine();
+            case PARALLEL:
+                return new ParallelTickEngine(TILE_SIZE);
+            default:
+                throw new IllegalArgumentException("Unknown tick engine " + name);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package it.unibo.ares.core.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The thread pools used by the tick engines, one for each number of threads,
+ * shared by all the engines. The pools are never shut down: their threads
+ * are daemons and stop on their own when there is nothing to tick.
+ */
+final class TickPools {
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private TickPools() {
+    }
+
+    /**
+     * Gets the pool with a number of threads, it is created on the first
+     * request.
+     *
+     * @param parallelism the number of threads
+     * @return the shared pool
+     */
+    static ForkJoinPool get(final int parallelism) {
+        return POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+}
@@ -1,20 +1,15 @@
 
 package it.unibo.ares.core.model;
 
-import java.util.List;
-import java.util.stream.IntStream;
-
-import it.unibo.ares.core.agent.Agent;
 import it.unibo.ares.core.agent.IVirusAgentFactory;
 import it.unibo.ares.core.agent.PVirusAgentFactory;
 import it.unibo.ares.core.utils.UniquePositionGetter;
 import it.unibo.ares.core.utils.parameters.ParameterDomainImpl;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
 import it.unibo.ares.core.utils.parameters.Parameters;
-import it.unibo.ares.core.utils.pos.Pos;
-import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
-import it.unibo.ares.core.utils.state.StateImpl;
+import it.unibo.ares.core.utils.state.ContinuousStateImpl;
+import it.unibo.ares.core.utils.state.StateFactory;
 
 /**
  * This class generates an instance of a virus diffusion model.
@@ -59,7 +54,8 @@ public final class VirusModelFactory implements ModelFactory {
      * @throws IllegalArgumentException If the total number of people is greater
      *                                  than the total number of cells in the grid.
      */
-    private static State virusInitializer(final Parameters parameters) throws IllegalAccessException {
+    private static State virusInitializer(final Parameters parameters, final StateFactory states)
+            throws IllegalAccessException {
         final int size = parameters.getParameter(
                 Model.SIZEKEY, Integer.class)
                 .orElseThrow(IllegalAccessException::new).getValue();
@@ -72,24 +68,13 @@ public final class VirusModelFactory implements ModelFactory {
             throw new IllegalArgumentException("The number of agents is greater than the size of the grid");
         }
 
-        final List<Pos> validPositions = IntStream.range(0, size).boxed()
-                .flatMap(i -> IntStream.range(0, size).mapToObj(j -> new PosImpl(i, j)))
-                .map(Pos.class::cast)
-                .toList();
-
         // Create a new state and populate it with agents at valid positions
-        final State state = new StateImpl(size, size);
-        final UniquePositionGetter getter = new UniquePositionGetter(validPositions);
+        final State state = states.create(size, size);
+        final UniquePositionGetter getter = new UniquePositionGetter(size, size);
         final PVirusAgentFactory factoryP = new PVirusAgentFactory();
         final IVirusAgentFactory factoryI = new IVirusAgentFactory();
-        for (int i = 0; i < p; i++) {
-            final Agent agent = factoryP.createAgent();
-            state.addAgent(getter.next(), agent);
-        }
-        for (int i = 0; i < pInfected; i++) {
-            final Agent agent = factoryI.createAgent();
-            state.addAgent(getter.next(), agent);
-        }
+        ParallelPopulator.populate(state, getter, p, i -> factoryP.createAgent());
+        ParallelPopulator.populate(state, getter, pInfected, i -> factoryI.createAgent());
         return state;
     }
 
@@ -127,11 +112,12 @@ public final class VirusModelFactory implements ModelFactory {
                                 "Dimensione della griglia (1-n)",
                                 (Integer i) -> i > 0),
                         true))
-                .addExitFunction((o, n) -> o.getAgents().stream()
-                        .allMatch(p -> n.getAgents().stream().anyMatch(p::equals)))
-                .addInitFunction(t -> {
+                .addExitFunction((o, n) -> n.getAgents().containsAll(o.getAgents()))
+                .addStateFactory(ContinuousStateImpl::new)
+                .addSelectableTickEngine()
+                .addInitFunction((t, states) -> {
                     try {
-                        return virusInitializer(t);
+                        return virusInitializer(t, states);
                     } catch (IllegalAccessException e) {
                         throw new IllegalArgumentException(
                                 "Missing parameters for the model initialization");
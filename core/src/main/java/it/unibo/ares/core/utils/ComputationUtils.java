@@ -1,15 +1,15 @@
 package it.unibo.ares.core.utils;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import it.unibo.ares.core.utils.directionvector.DirectionVector;
 import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
+import it.unibo.ares.core.utils.directionvector.Vectors;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.pos.PosImpl;
-import it.unibo.ares.core.utils.state.State;
-import it.unibo.ares.core.utils.state.StateImpl;
 
 /**
  * Utility class made to contains common static computation methods between
@@ -32,14 +32,13 @@ public final class ComputationUtils {
      */
     public static boolean insideCone(final Pos pos, final Pos center, final DirectionVector dir, final Integer distance,
             final Integer angle) {
-        final double radAng = Math.toRadians(angle);
+        final double dx = pos.getX() - center.getX();
+        final double dy = pos.getY() - center.getY();
+        final double magnitude = Vectors.magnitude(dx, dy);
+        final double dotProduct = Vectors.dot(dir.getNormalizedX(), dir.getNormalizedY(),
+                dx / magnitude, dy / magnitude);
 
-        final DirectionVector vectorToNewPoint = new DirectionVectorImpl(pos.diff(center).getX(),
-                pos.diff(center).getY());
-        final double dotProduct = dir.getNormalized().pointProduct(vectorToNewPoint.getNormalized());
-        final double radAngleBetween = Math.acos(dotProduct);
-
-        return radAngleBetween <= radAng && vectorToNewPoint.getMagnitude() <= distance;
+        return Vectors.withinAngle(dotProduct, angle) && magnitude <= distance;
     }
 
     /**
@@ -77,6 +76,31 @@ public final class ComputationUtils {
                 initialPos.getY() + dir.getNormalizedY() * stepSize);
     }
 
+    /**
+     * Moves a precise position in the given direction by the given step size,
+     * inside the environment: if the step would leave it the position moves
+     * the other way, and it is then limited to the environment, like the
+     * agents of the virus model do on the cells.
+     *
+     * @param point    The initial position, the x and the y.
+     * @param dir      The direction in which to move.
+     * @param stepSize The length of the step.
+     * @param size     The size of the environment.
+     * @return The new position.
+     */
+    public static Pair<Double, Double> moveInside(final Pair<Double, Double> point, final DirectionVector dir,
+            final int stepSize, final Pair<Integer, Integer> size) {
+        double x = point.getFirst() + dir.getNormalizedX() * stepSize;
+        double y = point.getSecond() + dir.getNormalizedY() * stepSize;
+        final Pos cell = new PosImpl(x, y);
+        if (cell.getX() < 0 || cell.getX() >= size.getFirst() || cell.getY() < 0 || cell.getY() >= size.getSecond()) {
+            x = point.getFirst() - dir.getNormalizedX() * stepSize;
+            y = point.getSecond() - dir.getNormalizedY() * stepSize;
+        }
+        return new Pair<>(Math.max(0, Math.min(size.getFirst() - 1, x)),
+                Math.max(0, Math.min(size.getSecond() - 1, y)));
+    }
+
     /**
      * Generates a random direction for the agent to move in.
      *
@@ -104,17 +128,75 @@ public final class ComputationUtils {
      */
     public static Set<Pos> computeCloseCells(final Pos pos, final DirectionVector dir, final Integer distance,
             final Integer angle) {
-        final int xSign = dir.getX() > 0 ? 1 : -1;
-        final int ySign = dir.getY() > 0 ? 1 : -1;
+        final int[] cells = closeCells(pos, dir, distance, angle);
+        final Set<Pos> out = new HashSet<>();
+        for (int i = 0; i < cells.length; i += 2) {
+            out.add(new PosImpl(cells[i], cells[i + 1]));
+        }
+        return out;
+    }
+
+    /**
+     * Gets the limit of the close cells along an axis: they are limited to the
+     * rectangle [0, width) x [0, height) that has, as the side opposite to the
+     * origin, the border of the view in the direction.
+     *
+     * @param coordinate the coordinate of the observer along the axis
+     * @param component  the component of the direction along the axis
+     * @param distance   the max distance
+     * @return the width or the height of the rectangle
+     */
+    static int viewLimit(final int coordinate, final double component, final int distance) {
+        return Math.abs(coordinate + (component > 0 ? 1 : -1) * (distance + 1));
+    }
+
+    /**
+     * Gets the view cone of an observer, that tells in O(1) whether a cell is
+     * one of the close cells of
+     * {@link #closeCells(Pos, DirectionVector, int, int)}.
+     *
+     * @param pos      the position
+     * @param dir      the direction
+     * @param distance the max distance
+     * @param angle    the angle in degrees
+     * @return the view cone
+     */
+    public static ViewCone viewCone(final Pos pos, final DirectionVector dir, final int distance,
+            final int angle) {
+        return new ViewCone(pos, dir, distance, angle);
+    }
 
-        final State a = new StateImpl(
-                Math.abs(pos.getX() + xSign * (distance + 1)),
-                Math.abs(pos.getY() + ySign * (distance + 1)));
+    /**
+     * Get all the close cells within the distance and an angle, the same ones
+     * of {@link #computeCloseCells(Pos, DirectionVector, Integer, Integer)},
+     * without creating a position for each cell.
+     * The shape of the cone is computed once for every direction, distance and
+     * angle and then reused.
+     * 
+     * @param pos      the position
+     * @param dir      the direction
+     * @param distance the max distange
+     * @param angle    the angle in degrees
+     * @return the coordinates of the cells, the x and the y of every cell one
+     *         after the other
+     */
+    public static int[] closeCells(final Pos pos, final DirectionVector dir, final int distance,
+            final int angle) {
+        final int[] offsets = ConeOffsets.of(dir, distance, angle);
+        final int width = viewLimit(pos.getX(), dir.getX(), distance);
+        final int height = viewLimit(pos.getY(), dir.getY(), distance);
 
-        return a.getPosByPosAndRadius(pos, distance)
-                .stream()
-                .filter(p -> insideCone(p, pos, dir, distance, angle))
-                .collect(Collectors.toSet());
+        final int[] cells = new int[offsets.length];
+        int size = 0;
+        for (int i = 0; i < offsets.length; i += 2) {
+            final int x = pos.getX() + offsets[i];
+            final int y = pos.getY() + offsets[i + 1];
+            if (x >= 0 && x < width && y >= 0 && y < height) {
+                cells[size++] = x;
+                cells[size++] = y;
+            }
+        }
+        return size == cells.length ? cells : Arrays.copyOf(cells, size);
     }
 
 }
@@ -0,0 +1,133 @@
+package it.unibo.ares.core.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import it.unibo.ares.core.utils.directionvector.DirectionVector;
+import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+
+/**
+ * A cache of the cells inside a view cone, as offsets from the observer.
+ * The cone of a direction, distance and angle is the same wherever the
+ * observer is, so it is computed once with
+ * {@link ComputationUtils#insideCone} and then reused. The directions with
+ * small integer components (the ones used by the fire and the axis-aligned
+ * ones) are used as they are, so their cones are exactly the ones computed
+ * cell by cell; any other direction is quantized to a grid of
+ * {@value #RESOLUTION} steps per unit, which moves the border of the cone by
+ * less than a thousandth of a radian.
+ */
+final class ConeOffsets {
+    private static final int RESOLUTION = 1024;
+    // i coni più lunghi sono calcolati ma non tenuti in memoria, quando la
+    // cache è piena viene svuotata
+    private static final int MAX_ENTRIES = 16_384;
+    private static final int MAX_CACHED_DISTANCE = 15;
+    private static final Map<Key, Cone> CACHE = new ConcurrentHashMap<>();
+    private static final Cone EMPTY = new Cone(new int[0], new boolean[0]);
+
+    private ConeOffsets() {
+    }
+
+    /**
+     * The parameters of a cone.
+     *
+     * @param x        the x component of the direction
+     * @param y        the y component of the direction
+     * @param distance the distance
+     * @param angle    the angle
+     */
+    private record Key(double x, double y, int distance, int angle) {
+    }
+
+    /**
+     * The cells inside a cone.
+     *
+     * @param offsets the offsets of the cells, as returned by
+     *                {@link ConeOffsets#of}
+     * @param mask    whether each cell of the square around the observer is
+     *                inside the cone, as returned by {@link ConeOffsets#maskOf}
+     */
+    private record Cone(int[] offsets, boolean[] mask) {
+    }
+
+    private static boolean isSmallInteger(final double value) {
+        return value == Math.rint(value) && Math.abs(value) <= RESOLUTION;
+    }
+
+    /**
+     * Gets the cells inside a cone, the observer excluded.
+     *
+     * @param dir      the direction of the observer
+     * @param distance the observable distance
+     * @param angle    the observable angle
+     * @return the offsets of the cells from the observer, the x and the y of
+     *         every cell one after the other; the array is shared and must not
+     *         be modified
+     */
+    static int[] of(final DirectionVector dir, final int distance, final int angle) {
+        return cone(dir, distance, angle).offsets();
+    }
+
+    /**
+     * Gets the cells inside a cone as a mask of the square around the
+     * observer, the cell at the offset (dx, dy) is at the index
+     * {@code (dy + distance) * (2 * distance + 1) + dx + distance}.
+     *
+     * @param dir      the direction of the observer
+     * @param distance the observable distance
+     * @param angle    the observable angle
+     * @return the mask, empty if no cell is inside the cone; the array is
+     *         shared and must not be modified
+     */
+    static boolean[] maskOf(final DirectionVector dir, final int distance, final int angle) {
+        return cone(dir, distance, angle).mask();
+    }
+
+    private static Cone cone(final DirectionVector dir, final int distance, final int angle) {
+        final double x = dir.getX();
+        final double y = dir.getY();
+        if (Double.isNaN(x) || Double.isNaN(y) || distance < 1) {
+            return EMPTY;
+        }
+        final Key key = isSmallInteger(x) && isSmallInteger(y)
+                ? new Key(x, y, distance, angle)
+                : new Key(Math.rint(dir.getNormalizedX() * RESOLUTION),
+                        Math.rint(dir.getNormalizedY() * RESOLUTION), distance, angle);
+        Cone cone = CACHE.get(key);
+        if (cone == null) {
+            cone = compute(key);
+            if (distance <= MAX_CACHED_DISTANCE) {
+                if (CACHE.size() >= MAX_ENTRIES) {
+                    CACHE.clear();
+                }
+                CACHE.putIfAbsent(key, cone);
+            }
+        }
+        return cone;
+    }
+
+    private static Cone compute(final Key key) {
+        final DirectionVector dir = new DirectionVectorImpl(key.x(), key.y());
+        final Pos center = new PosImpl(0, 0);
+        final int distance = key.distance();
+        final int side = 2 * distance + 1;
+        final int[] offsets = new int[2 * side * side];
+        final boolean[] mask = new boolean[side * side];
+        int size = 0;
+        for (int dx = -distance; dx <= distance; dx++) {
+            for (int dy = -distance; dy <= distance; dy++) {
+                if ((dx != 0 || dy != 0)
+                        && ComputationUtils.insideCone(new PosImpl(dx, dy), center, dir, distance, key.angle())) {
+                    offsets[size++] = dx;
+                    offsets[size++] = dy;
+                    mask[(dy + distance) * side + dx + distance] = true;
+                }
+            }
+        }
+        return new Cone(Arrays.copyOf(offsets, size), mask);
+    }
+}
@@ -1,24 +1,30 @@
 package it.unibo.ares.core.utils;
 
 import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Random;
-import java.util.Set;
-import java.util.stream.Stream;
+import java.util.function.IntFunction;
 
 /**
  * This class provides a method to get a unique position from a list of
- * positions.
+ * positions, or from the cells of a grid.
+ * The positions are drawn with a partial Fisher-Yates shuffle of their
+ * indexes that is carried on one step at every call, so every extraction is
+ * O(1) however full the grid becomes, and the positions of a grid are created
+ * only when they are extracted.
  */
 public class UniquePositionGetter implements Iterator<Pos> {
-    private final List<Pos> positions;
+    private final IntFunction<Pos> positions;
+    private final int size;
     private final Random r;
-    private final Set<Integer> extracted;
+    // indice contenuto in ogni slot meno lo slot, zero finché lo slot non è scambiato
+    private final int[] swaps;
+    private int extracted;
 
     /**
      * Creates a new UniquePositionGetter.
@@ -26,9 +32,42 @@ public class UniquePositionGetter implements Iterator<Pos> {
      * @param positions the list of positions to get the index.
      */
     public UniquePositionGetter(final List<Pos> positions) {
-        r = new Random();
-        this.positions = Collections.unmodifiableList(positions);
-        this.extracted = new HashSet<>();
+        this(Collections.unmodifiableList(positions)::get, positions.size());
+    }
+
+    /**
+     * Creates a new UniquePositionGetter over all the cells of a grid, without
+     * building the list of the cells.
+     *
+     * @param width  the width of the grid.
+     * @param height the height of the grid.
+     * @throws IllegalArgumentException if a dimension is negative or the grid
+     *                                  has too many cells.
+     */
+    public UniquePositionGetter(final int width, final int height) {
+        this(i -> new PosImpl(i / height, i % height), cellsOf(width, height));
+    }
+
+    private UniquePositionGetter(final IntFunction<Pos> positions, final int size) {
+        this.r = new Random();
+        this.positions = positions;
+        this.size = size;
+        this.swaps = new int[size];
+    }
+
+    private static int cellsOf(final int width, final int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("The dimensions of the grid cannot be negative");
+        }
+        final long cells = (long) width * height;
+        if (cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The grid has too many cells: " + cells);
+        }
+        return (int) cells;
+    }
+
+    private int indexAt(final int slot) {
+        return slot + swaps[slot];
     }
 
     /**
@@ -38,27 +77,26 @@ public class UniquePositionGetter implements Iterator<Pos> {
      */
     @Override
     public boolean hasNext() {
-        return extracted.size() < positions.size();
+        return extracted < size;
     }
 
     /**
      * Returns the next unique position if present, otherwise throws a
      * NoSuchElementException.
-     * 
+     *
      * @throws NoSuchElementException if all positions have been extracted.
      * @return the next unique position.
      */
     @Override
     public Pos next() {
-        if (extracted.size() == positions.size()) {
+        if (extracted == size) {
             throw new NoSuchElementException("All positions have been extracted");
         }
-        final int position = Stream.generate(() -> r.nextInt(positions.size()))
-                .filter(i -> !extracted.contains(i))
-                .limit(1)
-                .findAny()
-                .orElseThrow(() -> new NoSuchElementException("All positions have been extracted"));
-        extracted.add(position);
-        return positions.get(position);
+        final int slot = extracted + r.nextInt(size - extracted);
+        final int index = indexAt(slot);
+        // lo slot estratto prende l'indice del primo slot non ancora estratto
+        swaps[slot] = indexAt(extracted) - slot;
+        extracted++;
+        return positions.apply(index);
     }
 }
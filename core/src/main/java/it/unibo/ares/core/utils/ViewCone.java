@@ -0,0 +1,59 @@
+package it.unibo.ares.core.utils;
+
+import it.unibo.ares.core.utils.directionvector.DirectionVector;
+import it.unibo.ares.core.utils.pos.Pos;
+
+/**
+ * The cells seen by an observer, the same ones of
+ * {@link ComputationUtils#closeCells(Pos, DirectionVector, int, int)}, with a
+ * test of membership in O(1): the agents found around the observer can be
+ * filtered by the cone without listing its cells.
+ */
+public final class ViewCone {
+    private final int x;
+    private final int y;
+    private final int distance;
+    private final int width;
+    private final int height;
+    private final boolean[] mask;
+
+    /**
+     * Creates the view cone of an observer.
+     *
+     * @param pos      the position of the observer
+     * @param dir      the direction of the observer
+     * @param distance the observable distance
+     * @param angle    the observable angle
+     */
+    ViewCone(final Pos pos, final DirectionVector dir, final int distance, final int angle) {
+        this.x = pos.getX();
+        this.y = pos.getY();
+        this.distance = distance;
+        this.width = ComputationUtils.viewLimit(x, dir.getX(), distance);
+        this.height = ComputationUtils.viewLimit(y, dir.getY(), distance);
+        this.mask = ConeOffsets.maskOf(dir, distance, angle);
+    }
+
+    /**
+     * @return the observable distance, no cell farther than it along an axis
+     *         is inside the cone
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    /**
+     * Tests whether a cell is inside the cone.
+     *
+     * @param cellX the x of the cell
+     * @param cellY the y of the cell
+     * @return true if the cell is one of the close cells of the observer
+     */
+    public boolean contains(final int cellX, final int cellY) {
+        final int dx = cellX - x;
+        final int dy = cellY - y;
+        return mask.length > 0 && Math.abs(dx) <= distance && Math.abs(dy) <= distance
+                && cellX >= 0 && cellX < width && cellY >= 0 && cellY < height
+                && mask[(dy + distance) * (2 * distance + 1) + dx + distance];
+    }
+}
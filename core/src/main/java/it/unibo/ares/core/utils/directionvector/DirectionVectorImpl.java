@@ -1,16 +1,34 @@
 package it.unibo.ares.core.utils.directionvector;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+
 /**
  * Implementation of the DirectionVector interface.
- * Represents a vector with x and y components.
+ * Represents a vector with x and y components, stored as primitive doubles;
+ * the math on the components is done by {@link Vectors}.
+ * The serialized form still has the components as {@link Double}, as it had
+ * when they were stored boxed, so the simulations saved before can be loaded.
  */
 public final class DirectionVectorImpl implements DirectionVector {
 
     private static final long serialVersionUID = 1L;
-    private final Double x;
-    private final Double y;
+    private static final String X = "x";
+    private static final String Y = "y";
+    private static final String MAGNITUDE = "magnitude";
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField(X, Double.class),
+        new ObjectStreamField(Y, Double.class),
+        new ObjectStreamField(MAGNITUDE, Double.class),
+    };
 
-    private final Double magnitude;
+    // non final solo per poterli leggere in readObject, non cambiano mai
+    private double x;
+    private double y;
+    private double magnitude;
 
     /**
      * Constructs a DirectionVectorImpl object with the given x and y components.
@@ -19,10 +37,21 @@ public final class DirectionVectorImpl implements DirectionVector {
      * @param x the x component of the vector
      * @param y the y component of the vector
      */
-    public DirectionVectorImpl(final Double x, final Double y) {
+    public DirectionVectorImpl(final double x, final double y) {
         this.x = x;
         this.y = y;
-        this.magnitude = x == 0 && y == 0 ? 1 : Math.sqrt(x * x + y * y);
+        this.magnitude = Vectors.magnitude(x, y);
+    }
+
+    /**
+     * Constructs a DirectionVectorImpl object with the given x and y components.
+     * The vector is normalized to have a magnitude of 1.
+     *
+     * @param x the x component of the vector
+     * @param y the y component of the vector
+     */
+    public DirectionVectorImpl(final Double x, final Double y) {
+        this(x.doubleValue(), y.doubleValue());
     }
 
     /**
@@ -81,7 +110,7 @@ public final class DirectionVectorImpl implements DirectionVector {
      */
     @Override
     public Double pointProduct(final DirectionVector other) {
-        return x * other.getX() + y * other.getY();
+        return Vectors.dot(x, y, other.getX(), other.getY());
     }
 
     /**
@@ -100,12 +129,32 @@ public final class DirectionVectorImpl implements DirectionVector {
         return new DirectionVectorImpl(x + other.getX(), y + other.getY());
     }
 
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        final ObjectOutputStream.PutField fields = out.putFields();
+        fields.put(X, Double.valueOf(x));
+        fields.put(Y, Double.valueOf(y));
+        fields.put(MAGNITUDE, Double.valueOf(magnitude));
+        out.writeFields();
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        final ObjectInputStream.GetField fields = in.readFields();
+        final Double readX = (Double) fields.get(X, null);
+        final Double readY = (Double) fields.get(Y, null);
+        if (readX == null || readY == null) {
+            throw new InvalidObjectException("Missing component of the vector");
+        }
+        this.x = readX;
+        this.y = readY;
+        this.magnitude = Vectors.magnitude(x, y);
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((x == null) ? 0 : x.hashCode());
-        result = prime * result + ((y == null) ? 0 : y.hashCode());
+        result = prime * result + Double.hashCode(x);
+        result = prime * result + Double.hashCode(y);
         return result;
     }
 
@@ -121,20 +170,6 @@ public final class DirectionVectorImpl implements DirectionVector {
             return false;
         }
         final DirectionVectorImpl other = (DirectionVectorImpl) obj;
-        if (x == null) {
-            if (other.x != null) {
-                return false;
-            }
-        } else if (!x.equals(other.x)) {
-            return false;
-        }
-        if (y == null) {
-            if (other.y != null) {
-                return false;
-            }
-        } else if (!y.equals(other.y)) {
-            return false;
-        }
-        return true;
+        return Double.compare(x, other.x) == 0 && Double.compare(y, other.y) == 0;
     }
 }
@@ -0,0 +1,120 @@
+package it.unibo.ares.core.utils.directionvector;
+
+/**
+ * Vector math on primitive doubles, for the computations that the agents do
+ * at every tick: a vector is passed as its two components, so nothing is
+ * boxed or allocated until the result has to be stored as a
+ * {@link DirectionVector}.
+ * The results are the same, bit for bit, of the ones of
+ * {@link DirectionVectorImpl}.
+ */
+public final class Vectors {
+    private static final int MAX_ANGLE = 180;
+    private static final int SIGN_SHIFT = Long.SIZE - 1;
+    // per ogni angolo intero, il più piccolo coseno il cui arcocoseno non supera l'angolo
+    private static final double[] MIN_COSINES = new double[MAX_ANGLE + 1];
+
+    static {
+        for (int angle = 0; angle <= MAX_ANGLE; angle++) {
+            MIN_COSINES[angle] = minCosine(Math.toRadians(angle));
+        }
+    }
+
+    private Vectors() {
+        throw new IllegalAccessError();
+    }
+
+    /**
+     * Gets the magnitude of a vector, as {@link DirectionVector#getMagnitude()}
+     * does: the magnitude of the zero vector is 1, so that it can be
+     * normalized.
+     *
+     * @param x the x component of the vector
+     * @param y the y component of the vector
+     * @return the magnitude of the vector
+     */
+    public static double magnitude(final double x, final double y) {
+        return x == 0 && y == 0 ? 1 : Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Gets the dot product of two vectors.
+     *
+     * @param ax the x component of the first vector
+     * @param ay the y component of the first vector
+     * @param bx the x component of the second vector
+     * @param by the y component of the second vector
+     * @return the dot product
+     */
+    public static double dot(final double ax, final double ay, final double bx, final double by) {
+        return ax * bx + ay * by;
+    }
+
+    /**
+     * Creates the normalized direction of a vector.
+     *
+     * @param x the x component of the vector
+     * @param y the y component of the vector
+     * @return the normalized direction
+     */
+    public static DirectionVector normalized(final double x, final double y) {
+        final double magnitude = magnitude(x, y);
+        return new DirectionVectorImpl(x / magnitude, y / magnitude);
+    }
+
+    /**
+     * Tests whether the angle between two normalized vectors is not greater
+     * than an angle, given the cosine of the angle between them.
+     * The result is the same of comparing the arccosine of the cosine with
+     * the angle in radians, but the arccosine is not computed: the cosine is
+     * compared with the smallest cosine inside the angle, computed once for
+     * every angle.
+     *
+     * @param cosine the cosine of the angle between the vectors, their dot
+     *               product
+     * @param angle  the angle in degrees
+     * @return whether the angle between the vectors is inside the angle
+     */
+    public static boolean withinAngle(final double cosine, final int angle) {
+        if (angle < 0) {
+            return false;
+        }
+        return cosine >= (angle > MAX_ANGLE ? -1 : MIN_COSINES[angle]) && cosine <= 1;
+    }
+
+    /**
+     * Finds the smallest cosine whose arccosine is not greater than an angle,
+     * by bisection on the doubles in [-1, 1], which are ordered as their bits.
+     *
+     * @param radians the angle in radians
+     * @return the smallest cosine
+     */
+    private static double minCosine(final double radians) {
+        if (Math.acos(1) > radians) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (Math.acos(-1) <= radians) {
+            return -1;
+        }
+        long outside = orderedBits(-1);
+        long inside = orderedBits(1);
+        while (inside - outside > 1) {
+            final long middle = outside + (inside - outside) / 2;
+            if (Math.acos(fromOrderedBits(middle)) <= radians) {
+                inside = middle;
+            } else {
+                outside = middle;
+            }
+        }
+        return fromOrderedBits(inside);
+    }
+
+    private static long orderedBits(final double value) {
+        final long bits = Double.doubleToLongBits(value);
+        return bits ^ (bits >> SIGN_SHIFT & Long.MAX_VALUE);
+    }
+
+    private static double fromOrderedBits(final long ordered) {
+        return Double.longBitsToDouble(ordered ^ (ordered >> SIGN_SHIFT & Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,16 @@
+package it.unibo.ares.core.utils.lambda;
+
+import java.io.Serializable;
+import java.util.function.Consumer;
+
+/**
+ * A functional interface that extends the {@link java.util.function.Consumer} interface and
+ * {@link java.io.Serializable} interface. It represents an operation that takes an argument of
+ * type T and returns no result. This interface is designed to be serializable, allowing instances
+ * of this interface to be transferred over the network or stored in a file.
+ *
+ * @param <T> the type of the input to the operation
+ */
+public interface SerializableConsumer<T> extends Consumer<T>, Serializable {
+
+}
@@ -0,0 +1,228 @@
+package it.unibo.ares.core.utils.parameters;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Parameters with a fixed layout, described by a {@link ParameterSchema}: the
+ * values are stored by slot, so they can be read through the handles of the
+ * schema without hashing the key or boxing the value.
+ * The generic methods of {@link Parameters} are still supported, they look up
+ * the slot of the key and expose the values as {@link Parameter} objects.
+ * The set of parameters is fixed, no parameter can be added.
+ * The values are shared with the other agents of the schema until the agent
+ * changes them: a user settable value set through
+ * {@link #setParameter(String, Serializable)} moves the agent to the shared
+ * block of values with that change, so the agents of a kind that are given
+ * the same values by the user keep sharing a single block, while any other
+ * write, and the first write through a handle, gives the agent a block of its
+ * own, which is then updated in place.
+ */
+public final class CompiledParameters implements Parameters {
+    private static final long serialVersionUID = 1L;
+
+    private final ParameterSchema schema;
+    private ParameterValues values;
+    private boolean shared;
+
+    /**
+     * Creates the parameters of a schema that share a block of values.
+     *
+     * @param schema the schema
+     * @param values the shared values, they are never modified
+     */
+    CompiledParameters(final ParameterSchema schema, final ParameterValues values) {
+        this.schema = schema;
+        this.values = values;
+        this.shared = true;
+    }
+
+    private CompiledParameters(final CompiledParameters other) {
+        this.schema = other.schema;
+        this.shared = other.shared;
+        this.values = shared ? other.values : other.values.copy();
+    }
+
+    /**
+     * @return the schema of the parameters
+     */
+    public ParameterSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @param handleSchema the schema of a handle
+     * @return true if the handle can access the values by slot
+     */
+    boolean hasSchema(final ParameterSchema handleSchema) {
+        return schema.matches(handleSchema);
+    }
+
+    /**
+     * @return the values, laid out as described by the schema, to be read
+     */
+    ParameterValues values() {
+        return values;
+    }
+
+    /**
+     * @return the values, laid out as described by the schema, to be
+     *         modified; they are copied first if they are shared
+     */
+    ParameterValues ownValues() {
+        if (shared) {
+            values = values.copy();
+            shared = false;
+        }
+        return values;
+    }
+
+    /**
+     * Throws if the value of a slot is not set.
+     *
+     * @param slot the slot
+     * @throws IllegalStateException if the value is not set
+     */
+    void assertSet(final int slot) {
+        if (!values.isSet(slot)) {
+            throw new IllegalStateException("Value not set for parameter: " + schema.prototype(slot).getKey());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Serializable> Parameter<T> view(final int slot) {
+        final Parameter<T> prototype = (Parameter<T>) schema.prototype(slot);
+        return new ParameterImpl<>(prototype.getKey(), prototype.getType(), (T) values.get(schema, slot),
+                prototype.getDomain().orElse(null), prototype.userSettable());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the parameter already exists
+     * @throws IllegalStateException    if the parameter is not in the schema
+     */
+    @Override
+    public <T extends Serializable> void addParameter(final String key, final Class<T> type,
+            final Boolean userSettable) {
+        assertNotInSchema(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the parameter already exists
+     * @throws IllegalStateException    if the parameter is not in the schema
+     */
+    @Override
+    public <T extends Serializable> void addParameter(final String key, final T value,
+            final Boolean userSettable) {
+        assertNotInSchema(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the parameter already exists
+     * @throws IllegalStateException    if the parameter is not in the schema
+     */
+    @Override
+    public <T extends Serializable> void addParameter(final Parameter<T> parameter) {
+        assertNotInSchema(parameter.getKey());
+    }
+
+    private void assertNotInSchema(final String key) {
+        if (schema.slotOf(key) >= 0) {
+            throw new IllegalArgumentException("Parameter " + key + " already exists");
+        }
+        throw new IllegalStateException("Parameter " + key + " is not in the schema, it cannot be added");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends Serializable> Optional<Parameter<T>> getParameter(final String key, final Class<T> type) {
+        final int slot = schema.slotOf(key);
+        return slot >= 0 && schema.prototype(slot).getType().equals(type)
+                ? Optional.of(view(slot))
+                : Optional.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends Serializable> Optional<Parameter<T>> getParameter(final String key) {
+        final int slot = schema.slotOf(key);
+        return slot >= 0 ? Optional.of(view(slot)) : Optional.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The value is checked against the type and the domain of the parameter.
+     */
+    @Override
+    public <T extends Serializable> void setParameter(final String key, final T value) {
+        final int slot = schema.slotOf(key);
+        if (slot < 0 || !schema.prototype(slot).getType().isInstance(value)) {
+            throw new IllegalArgumentException(
+                    "Parameter " + key + " does not exist or not of type " + value.getClass().getName());
+        }
+        schema.validate(slot, value);
+        if (shared && Boolean.TRUE.equals(schema.prototype(slot).userSettable())) {
+            values = values.with(schema, slot, value);
+        } else {
+            ownValues().put(schema, slot, value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Parameter<?>> getParameters() {
+        final Set<Parameter<?>> out = new HashSet<>();
+        for (int slot = 0; slot < schema.size(); slot++) {
+            out.add(view(slot));
+        }
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Parameter<?>> getParametersToset() {
+        final Set<Parameter<?>> out = new HashSet<>();
+        for (int slot = 0; slot < schema.size(); slot++) {
+            if (schema.prototype(slot).userSettable() && !values.isSet(slot)) {
+                out.add(view(slot));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean areAllParametersSetted() {
+        for (int slot = 0; slot < schema.size(); slot++) {
+            if (schema.prototype(slot).userSettable() && !values.isSet(slot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Parameters copy() {
+        return new CompiledParameters(this);
+    }
+}
@@ -0,0 +1,82 @@
+package it.unibo.ares.core.utils.parameters;
+
+import java.io.Serializable;
+
+/**
+ * A handle to a parameter of a {@link ParameterSchema} whose type is neither
+ * {@link Integer} nor {@link Double}.
+ * It reads the value straight from its slot when the parameters are
+ * {@link CompiledParameters} of the same schema, and falls back to the lookup
+ * by key for any other parameters.
+ *
+ * @param <T> the type of the parameter
+ */
+public final class ObjectParam<T extends Serializable> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final ParameterSchema schema;
+    private final String key;
+    private final Class<T> type;
+    private final int slot;
+    private final int index;
+
+    /**
+     * Creates the handle of a slot.
+     *
+     * @param schema the schema
+     * @param key    the key of the parameter
+     * @param type   the type of the parameter
+     * @param slot   the slot of the parameter
+     */
+    ObjectParam(final ParameterSchema schema, final String key, final Class<T> type, final int slot) {
+        this.schema = schema;
+        this.key = key;
+        this.type = type;
+        this.slot = slot;
+        this.index = schema.index(slot);
+    }
+
+    /**
+     * @return the key of the parameter
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Reads the value of the parameter.
+     *
+     * @param parameters the parameters of an agent
+     * @return the value
+     * @throws IllegalArgumentException if there is no such parameter
+     * @throws IllegalStateException    if the value is not set
+     */
+    public T get(final Parameters parameters) {
+        if (parameters instanceof CompiledParameters compiled && compiled.hasSchema(schema)) {
+            compiled.assertSet(slot);
+            return type.cast(compiled.values().getObject(index));
+        }
+        return parameters.getParameter(key, type)
+                .orElseThrow(() -> new IllegalArgumentException("Parameter " + key + " does not exist"))
+                .getValue();
+    }
+
+    /**
+     * Writes the value of the parameter in place, without checking it against
+     * the domain: it is meant for the state that an agent updates at every
+     * tick, the values chosen by the user go through
+     * {@link Parameters#setParameter(String, Serializable)}, which validates
+     * them. Any other parameters are written through that method.
+     *
+     * @param parameters the parameters of an agent
+     * @param value      the new value
+     * @throws IllegalArgumentException if there is no such parameter
+     */
+    public void set(final Parameters parameters, final T value) {
+        if (parameters instanceof CompiledParameters compiled && compiled.hasSchema(schema)) {
+            compiled.ownValues().setObject(slot, index, value);
+        } else {
+            parameters.setParameter(key, value);
+        }
+    }
+}
@@ -59,6 +59,27 @@ public final class ParameterImpl<T extends Serializable> implements Parameter<T>
 
     }
 
+    /**
+     * Constructs a new ParameterImpl object with all its fields, used to expose
+     * the values stored elsewhere, whose class may be a subtype of the type of
+     * the parameter.
+     *
+     * @param key          the key of the parameter
+     * @param type         the type of the parameter
+     * @param value        the value of the parameter, null if not set
+     * @param domain       the domain of the parameter
+     * @param userSettable the flag indicating whether the parameter is
+     *                     user-settable
+     */
+    ParameterImpl(final String key, final Class<T> type, final T value,
+            final ParameterDomain<T> domain, final Boolean userSettable) {
+        this.key = key;
+        this.type = type;
+        this.domain = domain;
+        this.value = value;
+        this.userSettable = userSettable;
+    }
+
     /**
      * Constructs a new ParameterImpl object with the specified key, value, and
      * userSettable flag.
@@ -0,0 +1,235 @@
+package it.unibo.ares.core.utils.parameters;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The layout of the parameters of a kind of agent: the keys, types, domains and
+ * initial values, each one assigned to a fixed slot.
+ * A schema is meant to be built once per agent factory and shared by all the
+ * agents it creates, through {@link #newParameters()}. The values of the
+ * parameters of type {@link Integer} and {@link Double} are stored unboxed,
+ * and the handles returned by {@link #intParam(String)},
+ * {@link #doubleParam(String)} and {@link #objectParam(String, Class)} read
+ * them by slot, without looking up the key.
+ * A schema is identified by its layout: a schema read back from a saved
+ * simulation is replaced by the one with the same layout already built, so
+ * the handles keep reading the values of the loaded agents by slot.
+ */
+public final class ParameterSchema implements Serializable {
+    private static final long serialVersionUID = 1L;
+    // il primo schema costruito per ogni layout, quello usato dalle maniglie
+    private static final Map<String, ParameterSchema> REGISTRY = new ConcurrentHashMap<>();
+
+    /**
+     * How the values of a slot are stored.
+     */
+    enum Storage {
+        INT, DOUBLE, OBJECT
+    }
+
+    private final List<Parameter<?>> prototypes;
+    private final Map<String, Integer> slots;
+    private final Storage[] storages;
+    // posizione del valore di ogni slot nell'array del suo tipo
+    private final int[] indexes;
+    private final int[] sizes;
+    private final ParameterValues defaults;
+    private final String id;
+
+    /**
+     * Creates a schema from the prototypes of the parameters, their values (if
+     * present) are the initial values of the parameters.
+     *
+     * @param prototypes the parameters, one for each key
+     * @throws IllegalArgumentException if two parameters have the same key or
+     *                                  a parameter has no key or type
+     */
+    public ParameterSchema(final List<Parameter<?>> prototypes) {
+        this.prototypes = List.copyOf(prototypes);
+        this.slots = new HashMap<>();
+        this.storages = new Storage[prototypes.size()];
+        this.indexes = new int[prototypes.size()];
+        this.sizes = new int[Storage.values().length];
+        for (int slot = 0; slot < this.prototypes.size(); slot++) {
+            final Parameter<?> prototype = this.prototypes.get(slot);
+            if (prototype.getKey() == null || prototype.getType() == null) {
+                throw new IllegalArgumentException("Parameter key or type is null");
+            }
+            if (slots.put(prototype.getKey(), slot) != null) {
+                throw new IllegalArgumentException("Parameter " + prototype.getKey() + " already exists");
+            }
+            storages[slot] = storageOf(prototype.getType());
+            indexes[slot] = sizes[storages[slot].ordinal()]++;
+        }
+        this.defaults = new ParameterValues(this);
+        this.id = this.prototypes.stream()
+                .map(ParameterSchema::describe)
+                .collect(Collectors.joining(";"));
+        REGISTRY.putIfAbsent(id, this);
+    }
+
+    private static String describe(final Parameter<?> prototype) {
+        return prototype.getKey() + ":" + prototype.getType().getName()
+                + ":" + prototype.userSettable()
+                + ":" + prototype.getDomain().map(ParameterDomain::getDescription).orElse("")
+                + ":" + prototype.getOptionalValue().map(String::valueOf).orElse("");
+    }
+
+    /**
+     * Replaces a schema read back from a stream with the one with the same
+     * layout built before, if any.
+     *
+     * @return the schema to use
+     */
+    private Object readResolve() {
+        return REGISTRY.computeIfAbsent(id, k -> this);
+    }
+
+    /**
+     * Checks whether another schema has the same layout, so that the values of
+     * one can be accessed by slot through the handles of the other.
+     *
+     * @param other the other schema
+     * @return true if the two schemas are the same or have the same keys,
+     *         types, domains and initial values, in the same order
+     */
+    public boolean matches(final ParameterSchema other) {
+        return this == other || id.equals(other.id);
+    }
+
+    private static Storage storageOf(final Class<?> type) {
+        if (Integer.class.equals(type)) {
+            return Storage.INT;
+        }
+        return Double.class.equals(type) ? Storage.DOUBLE : Storage.OBJECT;
+    }
+
+    /**
+     * Creates the parameters of a new agent, set to the initial values.
+     * The values are shared with all the other agents of the schema until
+     * they are changed, so a new agent costs a single small object.
+     *
+     * @return the parameters
+     */
+    public CompiledParameters newParameters() {
+        return new CompiledParameters(this, defaults);
+    }
+
+    /**
+     * Gets the handle of a parameter of type {@link Integer}.
+     *
+     * @param key the key of the parameter
+     * @return the handle
+     * @throws IllegalArgumentException if there is no such parameter or it is
+     *                                  not an integer
+     */
+    public IntParam intParam(final String key) {
+        return new IntParam(this, key, slotOf(key, Integer.class));
+    }
+
+    /**
+     * Gets the handle of a parameter of type {@link Double}.
+     *
+     * @param key the key of the parameter
+     * @return the handle
+     * @throws IllegalArgumentException if there is no such parameter or it is
+     *                                  not a double
+     */
+    public DoubleParam doubleParam(final String key) {
+        return new DoubleParam(this, key, slotOf(key, Double.class));
+    }
+
+    /**
+     * Gets the handle of a parameter of any other type.
+     *
+     * @param <T>  the type of the parameter
+     * @param key  the key of the parameter
+     * @param type the type of the parameter
+     * @return the handle
+     * @throws IllegalArgumentException if there is no such parameter or it is
+     *                                  not of that type
+     */
+    public <T extends Serializable> ObjectParam<T> objectParam(final String key, final Class<T> type) {
+        return new ObjectParam<>(this, key, type, slotOf(key, type));
+    }
+
+    private int slotOf(final String key, final Class<?> type) {
+        final int slot = slotOf(key);
+        if (slot < 0 || !prototypes.get(slot).getType().equals(type)) {
+            throw new IllegalArgumentException("Parameter " + key + " does not exist or not of type "
+                    + type.getName());
+        }
+        return slot;
+    }
+
+    /**
+     * @param key the key of a parameter
+     * @return the slot of the parameter, or -1 if there is no such parameter
+     */
+    int slotOf(final String key) {
+        return slots.getOrDefault(key, -1);
+    }
+
+    /**
+     * @return the number of slots
+     */
+    int size() {
+        return prototypes.size();
+    }
+
+    /**
+     * @param slot the slot
+     * @return the prototype of the parameter of the slot
+     */
+    Parameter<?> prototype(final int slot) {
+        return prototypes.get(slot);
+    }
+
+    /**
+     * @param slot the slot
+     * @return how the value of the slot is stored
+     */
+    Storage storage(final int slot) {
+        return storages[slot];
+    }
+
+    /**
+     * @param slot the slot
+     * @return the position of the value of the slot in the storage of its type
+     */
+    int index(final int slot) {
+        return indexes[slot];
+    }
+
+    /**
+     * @param storage a kind of storage
+     * @return the number of slots stored that way
+     */
+    int count(final Storage storage) {
+        return sizes[storage.ordinal()];
+    }
+
+    /**
+     * Checks that a value can be assigned to a slot.
+     *
+     * @param slot  the slot
+     * @param value the value
+     * @throws IllegalArgumentException if the value has the wrong type or is
+     *                                  outside the domain of the parameter
+     */
+    @SuppressWarnings("unchecked")
+    void validate(final int slot, final Serializable value) {
+        final Parameter<Serializable> prototype = (Parameter<Serializable>) prototypes.get(slot);
+        if (!prototype.getType().isInstance(value)) {
+            throw new IllegalArgumentException("Value is not of type " + prototype.getType().getName());
+        }
+        if (prototype.getDomain().isPresent() && !prototype.getDomain().get().isValueValid(value)) {
+            throw new IllegalArgumentException("Value is not inside the domain: " + prototype.getKey());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package it.unibo.ares.core.utils.parameters;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The values of the parameters of an agent, laid out as described by a
+ * {@link ParameterSchema}: one array for each kind of storage, plus a flag
+ * for each slot that tells if the value has been set.
+ * A block of values can be shared by many agents, in that case it is never
+ * modified: {@link #with(ParameterSchema, int, Serializable)} gives the shared
+ * block with one value changed, the same one to all the agents that make the
+ * same change.
+ */
+final class ParameterValues implements Serializable {
+    private static final long serialVersionUID = 1L;
+    // quanti blocchi derivati tiene ogni blocco, i meno usati di recente sono scartati
+    private static final int MAX_DERIVED = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int[] ints;
+    private final double[] doubles;
+    private final Serializable[] objects;
+    private final boolean[] set;
+    // blocchi condivisi ottenuti da questo cambiando il valore di uno slot
+    private transient Map<Change, ParameterValues> derived;
+
+    /**
+     * The change of the value of a slot.
+     *
+     * @param slot  the slot
+     * @param value the new value
+     */
+    private record Change(int slot, Serializable value) {
+    }
+
+    /**
+     * Creates the values of a schema, set to the values of the prototypes.
+     *
+     * @param schema the schema
+     */
+    ParameterValues(final ParameterSchema schema) {
+        this.ints = new int[schema.count(ParameterSchema.Storage.INT)];
+        this.doubles = new double[schema.count(ParameterSchema.Storage.DOUBLE)];
+        this.objects = new Serializable[schema.count(ParameterSchema.Storage.OBJECT)];
+        this.set = new boolean[schema.size()];
+        for (int slot = 0; slot < schema.size(); slot++) {
+            final int s = slot;
+            schema.prototype(slot).getOptionalValue().ifPresent(v -> put(schema, s, v));
+        }
+    }
+
+    private ParameterValues(final ParameterValues other) {
+        this.ints = other.ints.clone();
+        this.doubles = other.doubles.clone();
+        this.objects = other.objects.clone();
+        this.set = other.set.clone();
+    }
+
+    boolean isSet(final int slot) {
+        return set[slot];
+    }
+
+    int getInt(final int index) {
+        return ints[index];
+    }
+
+    double getDouble(final int index) {
+        return doubles[index];
+    }
+
+    Serializable getObject(final int index) {
+        return objects[index];
+    }
+
+    void setInt(final int slot, final int index, final int value) {
+        ints[index] = value;
+        set[slot] = true;
+    }
+
+    void setDouble(final int slot, final int index, final double value) {
+        doubles[index] = value;
+        set[slot] = true;
+    }
+
+    void setObject(final int slot, final int index, final Serializable value) {
+        objects[index] = value;
+        set[slot] = value != null;
+    }
+
+    /**
+     * Reads the value of a slot, boxing it if needed.
+     *
+     * @param schema the schema of the values
+     * @param slot   the slot
+     * @return the value, or null if it is not set
+     */
+    Serializable get(final ParameterSchema schema, final int slot) {
+        if (!set[slot]) {
+            return null;
+        }
+        final int index = schema.index(slot);
+        switch (schema.storage(slot)) {
+            case INT:
+                return ints[index];
+            case DOUBLE:
+                return doubles[index];
+            default:
+                return objects[index];
+        }
+    }
+
+    /**
+     * Writes the value of a slot, unboxing it if needed.
+     *
+     * @param schema the schema of the values
+     * @param slot   the slot
+     * @param value  the value, of the type of the slot
+     */
+    void put(final ParameterSchema schema, final int slot, final Serializable value) {
+        final int index = schema.index(slot);
+        switch (schema.storage(slot)) {
+            case INT:
+                setInt(slot, index, (Integer) value);
+                break;
+            case DOUBLE:
+                setDouble(slot, index, (Double) value);
+                break;
+            default:
+                setObject(slot, index, value);
+        }
+    }
+
+    ParameterValues copy() {
+        return new ParameterValues(this);
+    }
+
+    /**
+     * Gets the shared block equal to this one but for the value of a slot, it
+     * is created on the first request and then reused. Only the last
+     * {@value #MAX_DERIVED} blocks requested are kept, so the values that
+     * change at every tick don't pile up.
+     *
+     * @param schema the schema of the values
+     * @param slot   the slot
+     * @param value  the value, of the type of the slot
+     * @return the shared block
+     */
+    synchronized ParameterValues with(final ParameterSchema schema, final int slot, final Serializable value) {
+        if (derived == null) {
+            derived = new LinkedHashMap<>(MAX_DERIVED, LOAD_FACTOR, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Change, ParameterValues> eldest) {
+                    return size() > MAX_DERIVED;
+                }
+            };
+        }
+        return derived.computeIfAbsent(new Change(slot, value), c -> {
+            final ParameterValues values = copy();
+            values.put(schema, slot, value);
+            return values;
+        });
+    }
+}
@@ -0,0 +1,203 @@
+package it.unibo.ares.core.utils.state;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A spatial hash of the cells with an agent: the board is split in square
+ * buckets of {@value #SIDE} cells per side and every bucket keeps a doubly
+ * linked list of its cells, so the agents around a cell are found by walking
+ * the few buckets that overlap the radius instead of scanning every cell of
+ * it. Adding, removing and moving a cell are O(1). Like the other paged
+ * structures copies are O(1) and copy-on-write.
+ */
+final class AgentBuckets implements Serializable {
+    private static final long serialVersionUID = 1L;
+    static final int SIDE = 8;
+
+    private final int width;
+    private final int columns;
+    // prima cella della lista di ogni secchio più uno, zero se il secchio è vuoto
+    private final PagedIntArray heads;
+    private final PagedIntArray sizes;
+    // cella successiva e precedente nella lista del secchio più uno, zero alle estremità
+    private final PagedIntArray next;
+    private final PagedIntArray previous;
+
+    /**
+     * Creates the empty buckets of a board.
+     *
+     * @param width  the width of the board
+     * @param height the height of the board
+     */
+    AgentBuckets(final int width, final int height) {
+        this.width = width;
+        this.columns = (width + SIDE - 1) / SIDE;
+        final int buckets = columns * ((height + SIDE - 1) / SIDE);
+        this.heads = new PagedIntArray(buckets);
+        this.sizes = new PagedIntArray(buckets);
+        this.next = new PagedIntArray(width * height);
+        this.previous = new PagedIntArray(width * height);
+    }
+
+    private AgentBuckets(final AgentBuckets other) {
+        this.width = other.width;
+        this.columns = other.columns;
+        this.heads = other.heads.copy();
+        this.sizes = other.sizes.copy();
+        this.next = other.next.copy();
+        this.previous = other.previous.copy();
+    }
+
+    private int bucketOf(final int cell) {
+        return cell / width / SIDE * columns + cell % width / SIDE;
+    }
+
+    /**
+     * Adds a cell that is in no bucket.
+     *
+     * @param cell the cell
+     */
+    void add(final int cell) {
+        add(cell, cell);
+    }
+
+    /**
+     * Adds a cell that is in no bucket to the bucket of another cell, so the
+     * cell can be found as if it were there.
+     *
+     * @param cell the cell
+     * @param at   the cell whose bucket takes the cell
+     */
+    void add(final int cell, final int at) {
+        final int bucket = bucketOf(at);
+        final int head = heads.get(bucket);
+        next.set(cell, head);
+        if (head > 0) {
+            previous.set(head - 1, cell + 1);
+        }
+        heads.set(bucket, cell + 1);
+        sizes.set(bucket, sizes.get(bucket) + 1);
+    }
+
+    /**
+     * Removes a cell from its bucket.
+     *
+     * @param cell the cell, it must be in a bucket
+     */
+    void remove(final int cell) {
+        remove(cell, cell);
+    }
+
+    /**
+     * Removes a cell from the bucket of another cell.
+     *
+     * @param cell the cell, it must be in the bucket of {@code at}
+     * @param at   the cell whose bucket has the cell
+     */
+    void remove(final int cell, final int at) {
+        final int bucket = bucketOf(at);
+        final int after = next.get(cell);
+        final int before = previous.get(cell);
+        if (before > 0) {
+            next.set(before - 1, after);
+        } else {
+            heads.set(bucket, after);
+        }
+        if (after > 0) {
+            previous.set(after - 1, before);
+        }
+        next.set(cell, 0);
+        previous.set(cell, 0);
+        sizes.set(bucket, sizes.get(bucket) - 1);
+    }
+
+    /**
+     * Moves a cell to a cell that is in no bucket.
+     *
+     * @param from the cell in a bucket
+     * @param to   the cell that takes its place
+     */
+    void move(final int from, final int to) {
+        remove(from);
+        add(to);
+    }
+
+    /**
+     * Counts the cells in the buckets that overlap a rectangle of the board,
+     * it is an upper bound of the cells inside the rectangle.
+     *
+     * @param minX the first column of the rectangle
+     * @param minY the first row of the rectangle
+     * @param maxX the last column of the rectangle
+     * @param maxY the last row of the rectangle
+     * @return the number of cells in the overlapping buckets
+     */
+    int countAround(final int minX, final int minY, final int maxX, final int maxY) {
+        int count = 0;
+        for (int by = minY / SIDE; by <= maxY / SIDE; by++) {
+            for (int bx = minX / SIDE; bx <= maxX / SIDE; bx++) {
+                count += sizes.get(by * columns + bx);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the cells inside a rectangle of the board.
+     *
+     * @param minX the first column of the rectangle, inside the board
+     * @param minY the first row of the rectangle, inside the board
+     * @param maxX the last column of the rectangle, inside the board
+     * @param maxY the last row of the rectangle, inside the board
+     * @return the cells, sorted row by row
+     */
+    int[] cellsIn(final int minX, final int minY, final int maxX, final int maxY) {
+        if (minX > maxX || minY > maxY) {
+            return new int[0];
+        }
+        final int[] cells = new int[countAround(minX, minY, maxX, maxY)];
+        int size = 0;
+        for (int by = minY / SIDE; by <= maxY / SIDE; by++) {
+            for (int bx = minX / SIDE; bx <= maxX / SIDE; bx++) {
+                for (int c = heads.get(by * columns + bx); c > 0; c = next.get(c - 1)) {
+                    final int x = (c - 1) % width;
+                    final int y = (c - 1) / width;
+                    if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                        cells[size++] = c - 1;
+                    }
+                }
+            }
+        }
+        Arrays.sort(cells, 0, size);
+        return size == cells.length ? cells : Arrays.copyOf(cells, size);
+    }
+
+    /**
+     * Visits every cell in the buckets that overlap a rectangle of the board,
+     * bucket by bucket, without checking where the cells are.
+     *
+     * @param minX    the first column of the rectangle, inside the board
+     * @param minY    the first row of the rectangle, inside the board
+     * @param maxX    the last column of the rectangle, inside the board
+     * @param maxY    the last row of the rectangle, inside the board
+     * @param visitor the visitor of the cells
+     */
+    void forEachAround(final int minX, final int minY, final int maxX, final int maxY, final IntConsumer visitor) {
+        for (int by = minY / SIDE; by <= maxY / SIDE; by++) {
+            for (int bx = minX / SIDE; bx <= maxX / SIDE; bx++) {
+                for (int c = heads.get(by * columns + bx); c > 0; c = next.get(c - 1)) {
+                    visitor.accept(c - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return an O(1) copy-on-write copy of the buckets
+     */
+    AgentBuckets copy() {
+        return new AgentBuckets(this);
+    }
+}
@@ -0,0 +1,693 @@
+package it.unibo.ares.core.utils.state;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.agent.Entity;
+import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+
+/**
+ * A view over a state that is never changed: reads go to the underlying state
+ * and the changes are kept in a log, on top of which they are also visible to
+ * the reads of the view itself.
+ * Many views can share the same underlying state, also from different threads,
+ * as long as nobody changes it. The changes are applied to a state with
+ * {@link #commit(State)}, in the order they were made; a change that is no
+ * longer possible on that state (the target cell has been claimed by another
+ * view, or the agent is not where it was) is dropped, so the first view that
+ * claims a cell wins.
+ * Over a {@link ContinuousState} the view is a continuous state too, see
+ * {@link #asContinuous()}: the precise moves are kept in the log as well and
+ * are never dropped for a claimed cell, the agent keeps its cell instead.
+ */
+public final class BufferedState implements ContinuousState {
+    private static final long serialVersionUID = 1L;
+
+    private enum Kind {
+        ADD_AGENT, REMOVE_AGENT, MOVE_AGENT, PLACE_AGENT, ADD_ENTITY, REMOVE_ENTITY, MOVE_ENTITY
+    }
+
+    private record Change(Kind kind, Pos from, Pos to, Serializable subject) implements Serializable {
+    }
+
+    private record Placed(Agent agent, double x, double y) implements Serializable {
+    }
+
+    private static final Comparator<Pos> ROW_ORDER = Comparator.comparingInt(Pos::getY)
+            .thenComparingInt(Pos::getX);
+
+    private final State base;
+    // celle cambiate dalla vista, il valore null indica una cella svuotata
+    private final Map<Pos, Agent> agents;
+    private final Map<Pos, Entity> entities;
+    // posizioni precise degli agenti spostati dalla vista nello spazio continuo
+    private final Map<Pos, Pair<Double, Double>> points;
+    private final List<Change> changes;
+
+    /**
+     * Creates an empty view over a state.
+     *
+     * @param base the state that is read, it must not change while the view is
+     *             in use
+     */
+    public BufferedState(final State base) {
+        this.base = base;
+        this.agents = new HashMap<>();
+        this.entities = new HashMap<>();
+        this.points = new HashMap<>();
+        this.changes = new ArrayList<>();
+    }
+
+    private BufferedState(final BufferedState other) {
+        this.base = other.base;
+        this.agents = new HashMap<>(other.agents);
+        this.entities = new HashMap<>(other.entities);
+        this.points = new HashMap<>(other.points);
+        this.changes = new ArrayList<>(other.changes);
+    }
+
+    /**
+     * Applies the changes made through the view to a state, the changes that
+     * are no longer possible are dropped.
+     *
+     * @param target the state to change, usually the underlying one
+     * @return the number of dropped changes
+     */
+    public int commit(final State target) {
+        int dropped = 0;
+        for (final Change change : changes) {
+            if (!apply(target, change)) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    private static boolean apply(final State target, final Change change) {
+        final Pos from = change.from();
+        final Pos to = change.to();
+        switch (change.kind()) {
+            case ADD_AGENT:
+                if (target.isInside(to) && target.getAgentAt(to).isEmpty()) {
+                    target.addAgent(to, (Agent) change.subject());
+                    return true;
+                }
+                return false;
+            case REMOVE_AGENT:
+                if (target.getAgentAt(from).filter(change.subject()::equals).isPresent()) {
+                    target.removeAgent(from, (Agent) change.subject());
+                    return true;
+                }
+                return false;
+            case MOVE_AGENT:
+                if (target.getAgentAt(from).filter(change.subject()::equals).isPresent()
+                        && (from.equals(to) || target.isInside(to) && target.getAgentAt(to).isEmpty())) {
+                    target.moveAgent(from, to);
+                    return true;
+                }
+                return false;
+            case PLACE_AGENT:
+                return place(target, change);
+            case ADD_ENTITY:
+                if (target.isInside(to) && target.getEntityAt(to).isEmpty()) {
+                    target.addEntity(to, (Entity) change.subject());
+                    return true;
+                }
+                return false;
+            case REMOVE_ENTITY:
+                if (target.getEntityAt(from).filter(change.subject()::equals).isPresent()) {
+                    target.removeEntity(from, (Entity) change.subject());
+                    return true;
+                }
+                return false;
+            case MOVE_ENTITY:
+                if (target.getEntityAt(from).filter(change.subject()::equals).isPresent()
+                        && (from.equals(to) || target.isInside(to) && target.getEntityAt(to).isEmpty())) {
+                    target.moveEntity(from, to);
+                    return true;
+                }
+                return false;
+            default:
+                throw new IllegalStateException("Unknown change " + change.kind());
+        }
+    }
+
+    private static boolean place(final State target, final Change change) {
+        final Placed placed = (Placed) change.subject();
+        if (target.getAgentAt(change.from()).filter(placed.agent()::equals).isEmpty()) {
+            return false;
+        }
+        final Optional<ContinuousState> space = target.asContinuous();
+        if (space.isPresent()) {
+            space.get().moveAgent(change.from(), placed.x(), placed.y());
+            return true;
+        }
+        if (change.from().equals(change.to())
+                || target.isInside(change.to()) && target.getAgentAt(change.to()).isEmpty()) {
+            target.moveAgent(change.from(), change.to());
+            return true;
+        }
+        return false;
+    }
+
+    private static <V> Optional<V> lookup(final Map<Pos, V> changed, final Pos pos, final Optional<V> original) {
+        return changed.containsKey(pos) ? Optional.ofNullable(changed.get(pos)) : original;
+    }
+
+    private void assertInsideBoard(final Pos pos) {
+        if (!isInside(pos)) {
+            throw new IllegalArgumentException("Position " + pos + " is outside the board");
+        }
+    }
+
+    private static <V> V assertOccupied(final Optional<V> occupant, final Pos pos) {
+        return occupant.orElseThrow(() -> new IllegalArgumentException("Position " + pos + " is not occupied"));
+    }
+
+    private static void assertFree(final Optional<?> occupant, final Pos pos) {
+        occupant.ifPresent(o -> {
+            throw new IllegalArgumentException("Position " + pos + " is already occupied by " + o);
+        });
+    }
+
+    private static <V extends Serializable> Set<Pair<Pos, V>> merge(final Set<Pair<Pos, V>> original,
+            final Map<Pos, V> changed) {
+        final Set<Pair<Pos, V>> out = new HashSet<>();
+        for (final Pair<Pos, V> pair : original) {
+            if (!changed.containsKey(pair.getFirst())) {
+                out.add(pair);
+            }
+        }
+        changed.forEach((pos, value) -> {
+            if (value != null) {
+                out.add(new Pair<>(pos, value));
+            }
+        });
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pair<Pos, Entity>> getEntities() {
+        return merge(base.getEntities(), entities);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pair<Pos, Agent>> getAgents() {
+        return merge(base.getAgents(), agents);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addAgent(final Pos pos, final Agent agent) {
+        assertInsideBoard(pos);
+        assertFree(getAgentAt(pos), pos);
+        agents.put(pos, agent);
+        points.remove(pos);
+        changes.add(new Change(Kind.ADD_AGENT, pos, pos, agent));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeAgent(final Pos pos, final Agent agent) {
+        if (assertOccupied(getAgentAt(pos), pos).equals(agent)) {
+            agents.put(pos, null);
+            points.remove(pos);
+            changes.add(new Change(Kind.REMOVE_AGENT, pos, pos, agent));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveAgent(final Pos from, final Pos to) {
+        assertInsideBoard(to);
+        final Agent agent = assertOccupied(getAgentAt(from), from);
+        if (!from.equals(to)) {
+            assertFree(getAgentAt(to), to);
+            agents.put(from, null);
+            agents.put(to, agent);
+            points.remove(from);
+            changes.add(new Change(Kind.MOVE_AGENT, from, to, agent));
+        }
+    }
+
+    private ContinuousState continuousBase() {
+        return base.asContinuous()
+                .orElseThrow(() -> new IllegalStateException("The underlying state is not continuous"));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the underlying state is not continuous
+     */
+    @Override
+    public Pair<Double, Double> getPoint(final Pos pos) {
+        assertOccupied(getAgentAt(pos), pos);
+        if (points.containsKey(pos)) {
+            return points.get(pos);
+        }
+        if (agents.containsKey(pos)) {
+            return new Pair<>((double) pos.getX(), (double) pos.getY());
+        }
+        return continuousBase().getPoint(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the underlying state is not continuous
+     */
+    @Override
+    public Pos moveAgent(final Pos from, final double x, final double y) {
+        continuousBase();
+        final Agent agent = assertOccupied(getAgentAt(from), from);
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            throw new IllegalArgumentException("The position of an agent must be a number");
+        }
+        final Pos target = new PosImpl(x, y);
+        assertInsideBoard(target);
+        Pos at = from;
+        if (!target.equals(from) && isFree(target)) {
+            agents.put(from, null);
+            points.remove(from);
+            at = target;
+        }
+        agents.put(at, agent);
+        points.put(at, new Pair<>(x, y));
+        changes.add(new Change(Kind.PLACE_AGENT, from, at, new Placed(agent, x, y)));
+        return at;
+    }
+
+    private double squaredDistance(final Pos pos, final double x, final double y) {
+        final Pair<Double, Double> point = getPoint(pos);
+        final double dx = point.getFirst() - x;
+        final double dy = point.getSecond() - y;
+        return dx * dx + dy * dy;
+    }
+
+    // gli agenti del risultato dello stato sottostante che la vista non ha cambiato, più quelli cambiati
+    private List<Pos> mergeFound(final List<Pos> original, final double x, final double y, final double radius) {
+        final List<Pos> found = new ArrayList<>(original.size() + agents.size());
+        for (final Pos pos : original) {
+            if (!agents.containsKey(pos)) {
+                found.add(pos);
+            }
+        }
+        agents.forEach((pos, agent) -> {
+            if (agent != null && squaredDistance(pos, x, y) <= radius * radius) {
+                found.add(pos);
+            }
+        });
+        found.sort(Comparator.comparingDouble((Pos pos) -> squaredDistance(pos, x, y)).thenComparing(ROW_ORDER));
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the underlying state is not continuous
+     */
+    @Override
+    public List<Pos> getAgentsInRange(final double x, final double y, final double radius) {
+        final List<Pos> original = continuousBase().getAgentsInRange(x, y, radius);
+        return agents.isEmpty() ? original : mergeFound(original, x, y, radius);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the underlying state is not continuous
+     */
+    @Override
+    public List<Pos> getNearestAgents(final double x, final double y, final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of agents cannot be negative");
+        }
+        // le celle cambiate dalla vista possono togliere al più tanti agenti quanti sono
+        final List<Pos> original = continuousBase().getNearestAgents(x, y, count + agents.size());
+        if (agents.isEmpty()) {
+            return original;
+        }
+        final List<Pos> found = mergeFound(original, x, y, Double.POSITIVE_INFINITY);
+        return found.size() > count ? new ArrayList<>(found.subList(0, count)) : found;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Agent> getAgentAt(final Pos pos) {
+        return lookup(agents, pos, base.getAgentAt(pos));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Entity> getEntityAt(final Pos pos) {
+        return lookup(entities, pos, base.getEntityAt(pos));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addEntity(final Pos pos, final Entity entity) {
+        assertInsideBoard(pos);
+        assertFree(getEntityAt(pos), pos);
+        entities.put(pos, entity);
+        changes.add(new Change(Kind.ADD_ENTITY, pos, pos, entity));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeEntity(final Pos pos, final Entity entity) {
+        if (assertOccupied(getEntityAt(pos), pos).equals(entity)) {
+            entities.put(pos, null);
+            changes.add(new Change(Kind.REMOVE_ENTITY, pos, pos, entity));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveEntity(final Pos from, final Pos to) {
+        assertInsideBoard(to);
+        final Entity entity = assertOccupied(getEntityAt(from), from);
+        if (!from.equals(to)) {
+            assertFree(getEntityAt(to), to);
+            entities.put(from, null);
+            entities.put(to, entity);
+            changes.add(new Change(Kind.MOVE_ENTITY, from, to, entity));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pair<Integer, Integer> getDimensions() {
+        return base.getDimensions();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Agent> getAgentsByPosAndRadius(final Pos pos, final Integer radius) {
+        final Set<Agent> out = new HashSet<>();
+        forEachAgentInRadius(pos, radius, Neighborhood.MOORE, (x, y, agent) -> out.add(agent));
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pos> getPosByPosAndRadius(final Pos pos, final Integer radius) {
+        return base.getPosByPosAndRadius(pos, radius);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachPosInRadius(final Pos pos, final int radius, final Neighborhood neighborhood,
+            final CellVisitor visitor) {
+        if (agents.isEmpty()) {
+            base.forEachPosInRadius(pos, radius, neighborhood, visitor);
+        } else {
+            base.forEachPosInRadius(pos, radius, neighborhood,
+                    (x, y, agent) -> visitor.visit(x, y, occupant(x, y, agent)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachAgentInRadius(final Pos pos, final int radius, final Neighborhood neighborhood,
+            final CellVisitor visitor) {
+        if (agents.isEmpty()) {
+            base.forEachAgentInRadius(pos, radius, neighborhood, visitor);
+        } else if (agents.size() < (2L * radius + 1) * (2L * radius + 1)) {
+            // gli agenti dello stato sottostante e quelli cambiati dalla vista, in ordine di riga
+            final Map<Pos, Agent> visits = new TreeMap<>(ROW_ORDER);
+            base.forEachAgentInRadius(pos, radius, neighborhood, (x, y, agent) -> {
+                final Pos p = new PosImpl(x, y);
+                if (!agents.containsKey(p)) {
+                    visits.put(p, agent);
+                }
+            });
+            agents.forEach((p, agent) -> {
+                if (agent != null && !p.equals(pos) && isInside(p)
+                        && neighborhood.contains(p.getX() - pos.getX(), p.getY() - pos.getY(), radius)) {
+                    visits.put(p, agent);
+                }
+            });
+            visits.forEach((p, agent) -> visitor.visit(p.getX(), p.getY(), agent));
+        } else {
+            // le celle riempite dalla vista non sono visitate dallo stato sottostante
+            base.forEachPosInRadius(pos, radius, neighborhood, (x, y, agent) -> {
+                final Agent occupant = occupant(x, y, agent);
+                if (occupant != null) {
+                    visitor.visit(x, y, occupant);
+                }
+            });
+        }
+    }
+
+    private Agent occupant(final int x, final int y, final Agent original) {
+        final Pos pos = new PosImpl(x, y);
+        return agents.containsKey(pos) ? agents.get(pos) : original;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAgentsByType(final String type) {
+        int count = base.countAgentsByType(type);
+        for (final Map.Entry<Pos, Agent> changed : agents.entrySet()) {
+            if (base.getAgentAt(changed.getKey()).filter(a -> Objects.equals(a.getType(), type)).isPresent()) {
+                count--;
+            }
+            if (changed.getValue() != null && Objects.equals(changed.getValue().getType(), type)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pos> getPosByType(final String type) {
+        final Set<Pos> out = base.getPosByType(type);
+        agents.forEach((pos, agent) -> update(out, pos, agent, type));
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pos> getPosByTypeAndRadius(final Pos pos, final Integer radius, final String type) {
+        final Set<Pos> out = base.getPosByTypeAndRadius(pos, radius, type);
+        agents.forEach((p, agent) -> {
+            if (Math.abs(p.getX() - pos.getX()) <= radius && Math.abs(p.getY() - pos.getY()) <= radius
+                    && !p.equals(pos)) {
+                update(out, p, agent, type);
+            }
+        });
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAgentsInRadius(final Pos pos, final int radius) {
+        return countInRadius(base.countAgentsInRadius(pos, radius), pos, radius, a -> true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAgentsByTypeInRadius(final Pos pos, final int radius, final String type) {
+        return countInRadius(base.countAgentsByTypeInRadius(pos, radius, type), pos, radius,
+                a -> Objects.equals(a.getType(), type));
+    }
+
+    private int countInRadius(final int original, final Pos pos, final int radius, final Predicate<Agent> counted) {
+        int count = original;
+        for (final Map.Entry<Pos, Agent> changed : agents.entrySet()) {
+            final Pos p = changed.getKey();
+            if (Math.abs(p.getX() - pos.getX()) <= radius && Math.abs(p.getY() - pos.getY()) <= radius
+                    && !p.equals(pos) && isInside(p)) {
+                if (base.getAgentAt(p).filter(counted).isPresent()) {
+                    count--;
+                }
+                if (changed.getValue() != null && counted.test(changed.getValue())) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void update(final Set<Pos> positions, final Pos pos, final Agent agent, final String type) {
+        if (agent != null && Objects.equals(agent.getType(), type)) {
+            positions.add(pos);
+        } else {
+            positions.remove(pos);
+        }
+    }
+
+    private Set<Pos> changedCells() {
+        final Set<Pos> changed = new HashSet<>(agents.keySet());
+        changed.addAll(entities.keySet());
+        return changed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countFreeCells() {
+        int count = base.countFreeCells();
+        for (final Pos pos : changedCells()) {
+            count += (isFree(pos) ? 1 : 0) - (base.isFree(pos) ? 1 : 0);
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The cells freed by the view are drawn directly, the other ones are drawn
+     * from the underlying state discarding the cells taken by the view.
+     */
+    @Override
+    public Optional<Pos> getRandomFreePos(final Random random) {
+        final List<Pos> freed = new ArrayList<>();
+        final Set<Pos> taken = new HashSet<>();
+        for (final Pos pos : changedCells()) {
+            if (isFree(pos) && !base.isFree(pos)) {
+                freed.add(pos);
+            } else if (!isFree(pos) && base.isFree(pos)) {
+                taken.add(pos);
+            }
+        }
+        final int total = base.countFreeCells() - taken.size() + freed.size();
+        if (total == 0) {
+            return Optional.empty();
+        }
+        final int drawn = random.nextInt(total);
+        if (drawn < freed.size()) {
+            return Optional.of(freed.get(drawn));
+        }
+        Optional<Pos> pos = base.getRandomFreePos(random);
+        while (taken.contains(pos.get())) {
+            pos = base.getRandomFreePos(random);
+        }
+        return pos;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Agent> getAgentsFromASetOfPos(final Set<Pos> positions) {
+        final Set<Agent> out = new HashSet<>();
+        for (final Pos pos : positions) {
+            getAgentAt(pos).ifPresent(out::add);
+        }
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entity> getEntitiesFromASetOfPos(final Set<Pos> positions) {
+        final Set<Entity> out = new HashSet<>();
+        for (final Pos pos : positions) {
+            getEntityAt(pos).ifPresent(out::add);
+        }
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The copy shares the underlying state and starts with the changes made so
+     * far.
+     */
+    @Override
+    public State copy() {
+        return new BufferedState(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFree(final Pos pos) {
+        return !isInside(pos) || getAgentAt(pos).isEmpty() && getEntityAt(pos).isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOccupied(final Pos pos) {
+        return !isFree(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isInside(final Pos pos) {
+        return base.isInside(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The view is continuous if the underlying state is.
+     */
+    @Override
+    public Optional<ContinuousState> asContinuous() {
+        return base.asContinuous().isPresent() ? Optional.of(this) : Optional.empty();
+    }
+}
@@ -0,0 +1,153 @@
+package it.unibo.ares.core.utils.state;
+
+import java.io.Serializable;
+
+/**
+ * Partitions the cells of a board in numbered groups, each cell belongs to at
+ * most one group.
+ * Every group keeps the list of its cells and every cell remembers its slot in
+ * that list, so adding, removing and moving a cell are O(1) and the cells of a
+ * group can be visited without scanning the board. Like the other paged
+ * structures copies are O(1) and copy-on-write.
+ */
+final class CellGroups implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int cells;
+    // group of each cell plus one, zero if the cell is in no group
+    private final PagedIntArray groups;
+    private final PagedIntArray slots;
+    private PagedIntArray[] members;
+    private int[] sizes;
+
+    /**
+     * Creates the groups for a board.
+     *
+     * @param cells the number of cells of the board
+     */
+    CellGroups(final int cells) {
+        this.cells = cells;
+        this.groups = new PagedIntArray(cells);
+        this.slots = new PagedIntArray(cells);
+        this.members = new PagedIntArray[0];
+        this.sizes = new int[0];
+    }
+
+    private CellGroups(final CellGroups other) {
+        this.cells = other.cells;
+        this.groups = other.groups.copy();
+        this.slots = other.slots.copy();
+        this.members = new PagedIntArray[other.members.length];
+        for (int g = 0; g < members.length; g++) {
+            this.members[g] = other.members[g].copy();
+        }
+        this.sizes = other.sizes.clone();
+    }
+
+    private void ensureGroup(final int group) {
+        if (group >= members.length) {
+            final PagedIntArray[] newMembers = new PagedIntArray[group + 1];
+            System.arraycopy(members, 0, newMembers, 0, members.length);
+            for (int g = members.length; g <= group; g++) {
+                newMembers[g] = new PagedIntArray(cells);
+            }
+            final int[] newSizes = new int[group + 1];
+            System.arraycopy(sizes, 0, newSizes, 0, sizes.length);
+            members = newMembers;
+            sizes = newSizes;
+        }
+    }
+
+    /**
+     * Adds a cell that is in no group to a group.
+     *
+     * @param group the group, not negative
+     * @param cell  the cell
+     */
+    void add(final int group, final int cell) {
+        ensureGroup(group);
+        members[group].set(sizes[group], cell);
+        slots.set(cell, sizes[group]);
+        groups.set(cell, group + 1);
+        sizes[group]++;
+    }
+
+    /**
+     * Removes a cell from its group, nothing happens if the cell is in no group.
+     *
+     * @param cell the cell
+     */
+    void remove(final int cell) {
+        final int group = groupOf(cell);
+        if (group < 0) {
+            return;
+        }
+        final int slot = slots.get(cell);
+        sizes[group]--;
+        final int last = members[group].get(sizes[group]);
+        members[group].set(slot, last);
+        slots.set(last, slot);
+        members[group].set(sizes[group], 0);
+        groups.set(cell, 0);
+        slots.set(cell, 0);
+    }
+
+    /**
+     * Moves the group membership of a cell to a cell that is in no group.
+     *
+     * @param from the cell in a group
+     * @param to   the cell that takes its place
+     */
+    void move(final int from, final int to) {
+        final int group = groupOf(from);
+        if (group < 0 || from == to) {
+            return;
+        }
+        final int slot = slots.get(from);
+        members[group].set(slot, to);
+        slots.set(to, slot);
+        groups.set(to, group + 1);
+        groups.set(from, 0);
+        slots.set(from, 0);
+    }
+
+    /**
+     * @param cell the cell
+     * @return the group of the cell, or -1 if it is in no group
+     */
+    int groupOf(final int cell) {
+        return groups.get(cell) - 1;
+    }
+
+    /**
+     * @return the number of groups, some of them may be empty
+     */
+    int groups() {
+        return sizes.length;
+    }
+
+    /**
+     * @param group the group
+     * @return the number of cells in the group
+     */
+    int size(final int group) {
+        return group < sizes.length ? sizes[group] : 0;
+    }
+
+    /**
+     * @param group the group
+     * @param i     the index of the cell inside the group, lower than
+     *              {@link #size(int)}
+     * @return the i-th cell of the group
+     */
+    int get(final int group, final int i) {
+        return members[group].get(i);
+    }
+
+    /**
+     * @return an O(1) copy-on-write copy of the groups
+     */
+    CellGroups copy() {
+        return new CellGroups(this);
+    }
+}
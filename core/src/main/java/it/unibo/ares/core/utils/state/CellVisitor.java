@@ -0,0 +1,19 @@
+package it.unibo.ares.core.utils.state;
+
+import it.unibo.ares.core.agent.Agent;
+
+/**
+ * A callback invoked for each visited cell of a {@link State}, it receives the
+ * coordinates as primitives so that visiting a cell doesn't allocate.
+ */
+@FunctionalInterface
+public interface CellVisitor {
+    /**
+     * Visits a cell.
+     *
+     * @param x        the x coordinate of the cell
+     * @param y        the y coordinate of the cell
+     * @param occupant the agent in the cell, null if the cell has no agent
+     */
+    void visit(int x, int y, Agent occupant);
+}
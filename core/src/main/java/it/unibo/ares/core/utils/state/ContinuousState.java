@@ -0,0 +1,66 @@
+package it.unibo.ares.core.utils.state;
+
+import java.util.List;
+
+import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.pos.Pos;
+
+/**
+ * A state whose agents have a precise position in a continuous space besides
+ * their cell: the agents move by any fraction of a cell and are found by
+ * distance from a point, while the cells stay the positions used by the rest
+ * of the state.
+ * The cell of an agent is the one its precise position rounds to; when that
+ * cell is taken the agent keeps its cell and moves only in the continuous
+ * space, so a move never fails because of another agent.
+ */
+public interface ContinuousState extends State {
+    /**
+     * Retrieves the precise position of the agent in a cell, an agent that
+     * was put in its cell with the methods of {@link State} is at the center
+     * of the cell.
+     *
+     * @param pos the cell of the agent.
+     * @return the x and the y of the agent.
+     * @throws IllegalArgumentException if there is no agent in the cell.
+     */
+    Pair<Double, Double> getPoint(Pos pos);
+
+    /**
+     * Moves an agent to a precise position. The agent moves to the cell the
+     * position rounds to if that cell is free, otherwise it keeps its cell.
+     *
+     * @param from the cell of the agent.
+     * @param x    the new x of the agent.
+     * @param y    the new y of the agent.
+     * @return the cell of the agent after the move.
+     * @throws IllegalArgumentException if there is no agent in the cell.
+     * @throws IllegalArgumentException if the position rounds to a cell
+     *                                  outside the state.
+     */
+    Pos moveAgent(Pos from, double x, double y);
+
+    /**
+     * Finds the agents whose precise position is within a distance from a
+     * point.
+     *
+     * @param x      the x of the point.
+     * @param y      the y of the point.
+     * @param radius the distance.
+     * @return the cells of the agents, from the nearest to the farthest, the
+     *         agents at the same distance row by row.
+     */
+    List<Pos> getAgentsInRange(double x, double y, double radius);
+
+    /**
+     * Finds the agents whose precise position is nearest to a point.
+     *
+     * @param x     the x of the point.
+     * @param y     the y of the point.
+     * @param count the number of agents to find.
+     * @return the cells of at most {@code count} agents, ordered as in
+     *         {@link #getAgentsInRange(double, double, double)}.
+     * @throws IllegalArgumentException if the number of agents is negative.
+     */
+    List<Pos> getNearestAgents(double x, double y, int count);
+}
@@ -0,0 +1,529 @@
+package it.unibo.ares.core.utils.state;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.agent.Entity;
+import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+
+/**
+ * Implementation of the ContinuousState interface on top of a state of
+ * cells, which keeps the agents and the entities and answers all the
+ * queries about cells.
+ * The precise position of the agent of every cell is stored as two floats
+ * in paged arrays indexed like the cells, and the agents are hashed in the
+ * square buckets of a uniform grid by the cell their position rounds to, so
+ * the agents within a distance or nearest to a point are found by walking
+ * the few buckets around the point. Like the other paged structures copies
+ * are O(1) and copy-on-write, as long as the state of cells copies in O(1).
+ */
+public final class ContinuousStateImpl implements ContinuousState {
+    private static final long serialVersionUID = 1L;
+    private static final double HALF = 0.5;
+    private static final Comparator<Found> NEAREST = Comparator.comparingDouble(Found::distance)
+            .thenComparingInt(Found::cell);
+
+    private final State grid;
+    private final int width;
+    private final int height;
+    // le coordinate dell'agente di ogni cella, come bit di un float
+    private final PagedIntArray xs;
+    private final PagedIntArray ys;
+    // ogni cella con un agente sta nel secchio della cella in cui cade la sua posizione
+    private final AgentBuckets buckets;
+
+    /**
+     * An agent found by a query.
+     *
+     * @param cell     the cell of the agent
+     * @param distance the squared distance of the agent from the point
+     */
+    private record Found(int cell, double distance) {
+    }
+
+    /**
+     * Constructs a new empty state with the specified dimensions, the cells
+     * are kept in a {@link DenseStateImpl}.
+     *
+     * @param width  the width of the state
+     * @param height the height of the state
+     * @throws IllegalArgumentException if one of the dimensions is negative
+     */
+    public ContinuousStateImpl(final Integer width, final Integer height) {
+        this(new DenseStateImpl(width, height));
+    }
+
+    /**
+     * Constructs a new state on top of a state of cells, which is then
+     * changed by this state and must not be changed directly. The agents
+     * already in the state of cells are at the center of their cells.
+     *
+     * @param grid the state of cells
+     */
+    public ContinuousStateImpl(final State grid) {
+        this.grid = grid;
+        this.width = grid.getDimensions().getFirst();
+        this.height = grid.getDimensions().getSecond();
+        this.xs = new PagedIntArray(width * height);
+        this.ys = new PagedIntArray(width * height);
+        this.buckets = new AgentBuckets(width, height);
+        for (final Pair<Pos, Agent> agent : grid.getAgents()) {
+            final Pos pos = agent.getFirst();
+            index(indexOf(pos), pos.getX(), pos.getY());
+        }
+    }
+
+    private ContinuousStateImpl(final ContinuousStateImpl other) {
+        this.grid = other.grid.copy();
+        this.width = other.width;
+        this.height = other.height;
+        this.xs = other.xs.copy();
+        this.ys = other.ys.copy();
+        this.buckets = other.buckets.copy();
+    }
+
+    private int indexOf(final Pos pos) {
+        return pos.getY() * width + pos.getX();
+    }
+
+    private Pos posOf(final int index) {
+        return new PosImpl(index % width, index / width);
+    }
+
+    // arrotonda come PosImpl, così la cella di una posizione è la stessa
+    private static int round(final double value) {
+        return Math.round((float) value);
+    }
+
+    private static int clamp(final int value, final int max) {
+        return Math.max(0, Math.min(max - 1, value));
+    }
+
+    private float xOf(final int index) {
+        return Float.intBitsToFloat(xs.get(index));
+    }
+
+    private float yOf(final int index) {
+        return Float.intBitsToFloat(ys.get(index));
+    }
+
+    // la cella in cui cade la posizione dell'agente di una cella
+    private int keyOf(final int index) {
+        return clamp(round(yOf(index)), height) * width + clamp(round(xOf(index)), width);
+    }
+
+    private void index(final int index, final float x, final float y) {
+        xs.set(index, Float.floatToRawIntBits(x));
+        ys.set(index, Float.floatToRawIntBits(y));
+        buckets.add(index, keyOf(index));
+    }
+
+    private void unindex(final int index) {
+        buckets.remove(index, keyOf(index));
+    }
+
+    private Agent assertOccupied(final Pos pos) {
+        return grid.getAgentAt(pos)
+                .orElseThrow(() -> new IllegalArgumentException("Position " + pos + " is not occupied"));
+    }
+
+    private Found found(final int index, final double x, final double y) {
+        final double dx = xOf(index) - x;
+        final double dy = yOf(index) - y;
+        return new Found(index, dx * dx + dy * dy);
+    }
+
+    private List<Pos> cellsOf(final List<Found> found) {
+        final List<Pos> cells = new ArrayList<>(found.size());
+        for (final Found f : found) {
+            cells.add(posOf(f.cell()));
+        }
+        return cells;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pair<Double, Double> getPoint(final Pos pos) {
+        assertOccupied(pos);
+        final int index = indexOf(pos);
+        return new Pair<>((double) xOf(index), (double) yOf(index));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pos moveAgent(final Pos from, final double x, final double y) {
+        assertOccupied(from);
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            throw new IllegalArgumentException("The position of an agent must be a number");
+        }
+        final Pos target = new PosImpl(x, y);
+        if (!grid.isInside(target)) {
+            throw new IllegalArgumentException("Position " + target + " is outside the board");
+        }
+        unindex(indexOf(from));
+        Pos at = from;
+        if (!target.equals(from) && grid.isFree(target)) {
+            grid.moveAgent(from, target);
+            at = target;
+        }
+        index(indexOf(at), (float) x, (float) y);
+        return at;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the buckets of the cells that the circle can round to are visited.
+     */
+    @Override
+    public List<Pos> getAgentsInRange(final double x, final double y, final double radius) {
+        final int minX = Math.max(0, round(x - radius));
+        final int minY = Math.max(0, round(y - radius));
+        final int maxX = Math.min(width - 1, round(x + radius));
+        final int maxY = Math.min(height - 1, round(y + radius));
+        if (!(radius >= 0) || minX > maxX || minY > maxY) {
+            return List.of();
+        }
+        final double limit = radius * radius;
+        final List<Found> found = new ArrayList<>();
+        buckets.forEachAround(minX, minY, maxX, maxY, index -> {
+            final Found f = found(index, x, y);
+            if (f.distance() <= limit) {
+                found.add(f);
+            }
+        });
+        found.sort(NEAREST);
+        return cellsOf(found);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The buckets are visited ring after ring around the point, until the
+     * farthest agent found is nearer than any cell of the next ring.
+     */
+    @Override
+    public List<Pos> getNearestAgents(final double x, final double y, final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of agents cannot be negative");
+        }
+        if (count == 0 || width == 0 || height == 0) {
+            return List.of();
+        }
+        final int side = AgentBuckets.SIDE;
+        final int columns = (width + side - 1) / side;
+        final int rows = (height + side - 1) / side;
+        final int centerX = clamp(round(x), width) / side;
+        final int centerY = clamp(round(y), height) / side;
+        final PriorityQueue<Found> nearest = new PriorityQueue<>(NEAREST.reversed());
+        for (int ring = 0;; ring++) {
+            final int minX = centerX - ring;
+            final int minY = centerY - ring;
+            final int maxX = centerX + ring;
+            final int maxY = centerY + ring;
+            for (int by = Math.max(0, minY); by <= Math.min(rows - 1, maxY); by++) {
+                if (by == minY || by == maxY) {
+                    for (int bx = Math.max(0, minX); bx <= Math.min(columns - 1, maxX); bx++) {
+                        visitBucket(bx * side, by * side, x, y, count, nearest);
+                    }
+                } else {
+                    if (minX >= 0) {
+                        visitBucket(minX * side, by * side, x, y, count, nearest);
+                    }
+                    if (maxX < columns) {
+                        visitBucket(maxX * side, by * side, x, y, count, nearest);
+                    }
+                }
+            }
+            // la distanza minima delle celle fuori dagli anelli già visitati
+            double bound = Double.POSITIVE_INFINITY;
+            if (minX > 0) {
+                bound = Math.min(bound, x - (minX * side - HALF));
+            }
+            if (minY > 0) {
+                bound = Math.min(bound, y - (minY * side - HALF));
+            }
+            if (maxX < columns - 1) {
+                bound = Math.min(bound, (maxX + 1) * side - HALF - x);
+            }
+            if (maxY < rows - 1) {
+                bound = Math.min(bound, (maxY + 1) * side - HALF - y);
+            }
+            if (bound == Double.POSITIVE_INFINITY
+                    || nearest.size() == count && bound >= 0 && nearest.peek().distance() <= bound * bound) {
+                break;
+            }
+        }
+        final List<Found> found = new ArrayList<>(nearest);
+        found.sort(NEAREST);
+        return cellsOf(found);
+    }
+
+    private void visitBucket(final int cellX, final int cellY, final double x, final double y, final int count,
+            final PriorityQueue<Found> nearest) {
+        buckets.forEachAround(cellX, cellY, cellX, cellY, index -> {
+            final Found f = found(index, x, y);
+            if (nearest.size() < count) {
+                nearest.add(f);
+            } else if (NEAREST.compare(f, nearest.peek()) < 0) {
+                nearest.poll();
+                nearest.add(f);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pair<Pos, Entity>> getEntities() {
+        return grid.getEntities();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pair<Pos, Agent>> getAgents() {
+        return grid.getAgents();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The agent is at the center of the cell.
+     */
+    @Override
+    public void addAgent(final Pos pos, final Agent agent) {
+        grid.addAgent(pos, agent);
+        index(indexOf(pos), pos.getX(), pos.getY());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeAgent(final Pos pos, final Agent agent) {
+        if (assertOccupied(pos).equals(agent)) {
+            unindex(indexOf(pos));
+            grid.removeAgent(pos, agent);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The agent is moved to the center of the cell.
+     */
+    @Override
+    public void moveAgent(final Pos from, final Pos to) {
+        assertOccupied(from);
+        if (!from.equals(to)) {
+            grid.moveAgent(from, to);
+            unindex(indexOf(from));
+            index(indexOf(to), to.getX(), to.getY());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Agent> getAgentAt(final Pos pos) {
+        return grid.getAgentAt(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Entity> getEntityAt(final Pos pos) {
+        return grid.getEntityAt(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addEntity(final Pos pos, final Entity entity) {
+        grid.addEntity(pos, entity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeEntity(final Pos pos, final Entity entity) {
+        grid.removeEntity(pos, entity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveEntity(final Pos from, final Pos to) {
+        grid.moveEntity(from, to);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pair<Integer, Integer> getDimensions() {
+        return grid.getDimensions();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Agent> getAgentsByPosAndRadius(final Pos pos, final Integer radius) {
+        return grid.getAgentsByPosAndRadius(pos, radius);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pos> getPosByPosAndRadius(final Pos pos, final Integer radius) {
+        return grid.getPosByPosAndRadius(pos, radius);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachPosInRadius(final Pos pos, final int radius, final Neighborhood neighborhood,
+            final CellVisitor visitor) {
+        grid.forEachPosInRadius(pos, radius, neighborhood, visitor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachAgentInRadius(final Pos pos, final int radius, final Neighborhood neighborhood,
+            final CellVisitor visitor) {
+        grid.forEachAgentInRadius(pos, radius, neighborhood, visitor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAgentsByType(final String type) {
+        return grid.countAgentsByType(type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pos> getPosByType(final String type) {
+        return grid.getPosByType(type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pos> getPosByTypeAndRadius(final Pos pos, final Integer radius, final String type) {
+        return grid.getPosByTypeAndRadius(pos, radius, type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAgentsInRadius(final Pos pos, final int radius) {
+        return grid.countAgentsInRadius(pos, radius);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAgentsByTypeInRadius(final Pos pos, final int radius, final String type) {
+        return grid.countAgentsByTypeInRadius(pos, radius, type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countFreeCells() {
+        return grid.countFreeCells();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Pos> getRandomFreePos(final Random random) {
+        return grid.getRandomFreePos(random);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Agent> getAgentsFromASetOfPos(final Set<Pos> positions) {
+        return grid.getAgentsFromASetOfPos(positions);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entity> getEntitiesFromASetOfPos(final Set<Pos> positions) {
+        return grid.getEntitiesFromASetOfPos(positions);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public State copy() {
+        return new ContinuousStateImpl(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFree(final Pos pos) {
+        return grid.isFree(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOccupied(final Pos pos) {
+        return grid.isOccupied(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isInside(final Pos pos) {
+        return grid.isInside(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<ContinuousState> asContinuous() {
+        return Optional.of(this);
+    }
+}
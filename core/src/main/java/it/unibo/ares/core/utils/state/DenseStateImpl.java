@@ -0,0 +1,581 @@
+package it.unibo.ares.core.utils.state;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.agent.AgentTypes;
+import it.unibo.ares.core.agent.Entity;
+import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+
+/**
+ * Implementation of the State interface backed by flat arrays.
+ * Every cell of the board is stored at the index {@code y * width + x}, so
+ * lookups and updates don't need to hash positions. It is meant for large,
+ * densely populated boards.
+ * The arrays are copy-on-write: {@link #copy()} is O(1) and each of the two
+ * states pays only for the cells it changes afterwards.
+ * The agents are also indexed by type, so that counting them or visiting the
+ * ones of a type doesn't need a scan of the board, and the free cells are
+ * kept in a set that can be sampled in O(1). The number of agents of each
+ * type around every cell is updated at every change for the radii that were
+ * requested, so counting the neighbors of an agent is O(1), and the cells
+ * with an agent are hashed in square buckets, so visiting the agents within a
+ * large radius costs as the agents around the cell rather than as the area.
+ */
+public final class DenseStateImpl implements State {
+    private static final long serialVersionUID = 1L;
+    private final int width;
+    private final int height;
+    private final Pair<Integer, Integer> size;
+    private final PagedArray<Agent> agents;
+    private final PagedArray<Entity> entities;
+    // il tipo degli agenti di ogni gruppo di agentsByType
+    private final List<String> groupTypes;
+    // il gruppo di ogni codice di tipo più uno, -1 se il tipo non ha un gruppo
+    private transient int[] typeGroups;
+    private final CellGroups agentsByType;
+    private final FreeCells freeCells;
+    private final NeighborCounts neighborCounts;
+    private final AgentBuckets buckets;
+    private int agentCount;
+    private int entityCount;
+
+    /**
+     * Constructs a new State object with the specified dimensions.
+     *
+     * @param width  the width of the state
+     * @param height the height of the state
+     * @throws IllegalArgumentException if one of the dimensions is negative
+     */
+    public DenseStateImpl(final Integer width, final Integer height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("The dimensions of the state cannot be negative");
+        }
+        this.width = width;
+        this.height = height;
+        this.size = new Pair<>(width, height);
+        this.agents = new PagedArray<>(width * height);
+        this.entities = new PagedArray<>(width * height);
+        this.groupTypes = new ArrayList<>();
+        this.typeGroups = new int[0];
+        this.agentsByType = new CellGroups(width * height);
+        this.freeCells = new FreeCells(width * height);
+        this.neighborCounts = new NeighborCounts(width, height);
+        this.buckets = new AgentBuckets(width, height);
+    }
+
+    private DenseStateImpl(final DenseStateImpl other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.size = other.size;
+        this.agents = other.agents.copy();
+        this.entities = other.entities.copy();
+        this.groupTypes = new ArrayList<>(other.groupTypes);
+        this.typeGroups = other.typeGroups.clone();
+        this.agentsByType = other.agentsByType.copy();
+        this.freeCells = other.freeCells.copy();
+        this.neighborCounts = other.neighborCounts.copy(other.agentsByType);
+        this.buckets = other.buckets.copy();
+        this.agentCount = other.agentCount;
+        this.entityCount = other.entityCount;
+    }
+
+    private boolean isValidPosition(final int x, final int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private boolean isValidPosition(final Pos pos) {
+        return isValidPosition(pos.getX(), pos.getY());
+    }
+
+    private int indexOf(final int x, final int y) {
+        return y * width + x;
+    }
+
+    private int indexOf(final Pos pos) {
+        return indexOf(pos.getX(), pos.getY());
+    }
+
+    private Pos posOf(final int index) {
+        return new PosImpl(index % width, index / width);
+    }
+
+    private int assertInsideBoard(final Pos pos) {
+        if (!isValidPosition(pos)) {
+            throw new IllegalArgumentException("Position " + pos + " is outside the board");
+        }
+        return indexOf(pos);
+    }
+
+    private int assertOccupied(final PagedArray<?> cells, final Pos pos) {
+        if (!isValidPosition(pos) || cells.get(indexOf(pos)) == null) {
+            throw new IllegalArgumentException("Position " + pos + " is not occupied");
+        }
+        return indexOf(pos);
+    }
+
+    private static void assertFree(final PagedArray<?> cells, final int index, final Pos pos) {
+        if (cells.get(index) != null) {
+            throw new IllegalArgumentException("Position " + pos + " is already occupied by " + cells.get(index));
+        }
+    }
+
+    private void updateFree(final int index) {
+        if (agents.get(index) == null && entities.get(index) == null) {
+            freeCells.add(index);
+        }
+    }
+
+    private int groupOf(final int typeCode) {
+        return typeCode + 1 < typeGroups.length ? typeGroups[typeCode + 1] : -1;
+    }
+
+    private int groupOf(final String type) {
+        return groupOf(AgentTypes.find(type));
+    }
+
+    private int groupFor(final Agent agent) {
+        final int typeCode = agent.getTypeCode();
+        final int group = groupOf(typeCode);
+        if (group >= 0) {
+            return group;
+        }
+        groupTypes.add(agent.getType());
+        assignGroup(typeCode, groupTypes.size() - 1);
+        return groupTypes.size() - 1;
+    }
+
+    private void assignGroup(final int typeCode, final int group) {
+        if (typeCode + 1 >= typeGroups.length) {
+            final int oldLength = typeGroups.length;
+            typeGroups = Arrays.copyOf(typeGroups, typeCode + 2);
+            Arrays.fill(typeGroups, oldLength, typeGroups.length, -1);
+        }
+        typeGroups[typeCode + 1] = group;
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // i codici dei tipi non sono salvati, vengono riassegnati dai nomi
+        typeGroups = new int[0];
+        for (int group = 0; group < groupTypes.size(); group++) {
+            assignGroup(AgentTypes.codeOf(groupTypes.get(group)), group);
+        }
+    }
+
+    private <V extends Serializable> Set<Pair<Pos, V>> collect(final PagedArray<V> cells, final int count) {
+        final Set<Pair<Pos, V>> out = new HashSet<>();
+        int index = count > 0 ? cells.nextNonNull(0) : -1;
+        while (index >= 0) {
+            out.add(new Pair<>(posOf(index), cells.get(index)));
+            index = out.size() < count ? cells.nextNonNull(index + 1) : -1;
+        }
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pair<Pos, Entity>> getEntities() {
+        return collect(entities, entityCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pair<Pos, Agent>> getAgents() {
+        return collect(agents, agentCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addAgent(final Pos pos, final Agent agent) {
+        final int index = assertInsideBoard(pos);
+        assertFree(agents, index, pos);
+        agents.set(index, agent);
+        final int type = groupFor(agent);
+        agentsByType.add(type, index);
+        neighborCounts.add(type, index);
+        buckets.add(index);
+        freeCells.remove(index);
+        agentCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeAgent(final Pos pos, final Agent agent) {
+        final int index = assertOccupied(agents, pos);
+        if (agents.get(index).equals(agent)) {
+            agents.set(index, null);
+            neighborCounts.remove(agentsByType.groupOf(index), index);
+            agentsByType.remove(index);
+            buckets.remove(index);
+            updateFree(index);
+            agentCount--;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveAgent(final Pos from, final Pos to) {
+        final int target = assertInsideBoard(to);
+        final int source = assertOccupied(agents, from);
+        if (source != target) {
+            assertFree(agents, target, to);
+            agents.set(target, agents.get(source));
+            agents.set(source, null);
+            final int type = agentsByType.groupOf(source);
+            neighborCounts.remove(type, source);
+            neighborCounts.add(type, target);
+            agentsByType.move(source, target);
+            buckets.move(source, target);
+            freeCells.remove(target);
+            updateFree(source);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addEntity(final Pos pos, final Entity entity) {
+        final int index = assertInsideBoard(pos);
+        assertFree(entities, index, pos);
+        entities.set(index, entity);
+        freeCells.remove(index);
+        entityCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeEntity(final Pos pos, final Entity entity) {
+        final int index = assertOccupied(entities, pos);
+        if (entities.get(index).equals(entity)) {
+            entities.set(index, null);
+            updateFree(index);
+            entityCount--;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveEntity(final Pos from, final Pos to) {
+        final int target = assertInsideBoard(to);
+        final int source = assertOccupied(entities, from);
+        if (source != target) {
+            assertFree(entities, target, to);
+            entities.set(target, entities.get(source));
+            entities.set(source, null);
+            freeCells.remove(target);
+            updateFree(source);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Agent> getAgentAt(final Pos pos) {
+        return isValidPosition(pos) ? Optional.ofNullable(agents.get(indexOf(pos))) : Optional.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Entity> getEntityAt(final Pos pos) {
+        return isValidPosition(pos) ? Optional.ofNullable(entities.get(indexOf(pos))) : Optional.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pair<Integer, Integer> getDimensions() {
+        return this.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pos> getPosByPosAndRadius(final Pos pos, final Integer radius) {
+        final Set<Pos> out = new HashSet<>();
+        forEachPosInRadius(pos, radius, Neighborhood.MOORE, (x, y, agent) -> out.add(new PosImpl(x, y)));
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Agent> getAgentsByPosAndRadius(final Pos pos, final Integer radius) {
+        final Set<Agent> out = new HashSet<>();
+        forEachAgentInRadius(pos, radius, Neighborhood.MOORE, (x, y, agent) -> out.add(agent));
+        return out;
+    }
+
+    private void visit(final Pos pos, final int radius, final Neighborhood neighborhood,
+            final CellVisitor visitor, final boolean onlyAgents) {
+        final int cx = pos.getX();
+        final int cy = pos.getY();
+        final int maxX = Math.min(width - 1, cx + radius);
+        final int maxY = Math.min(height - 1, cy + radius);
+        final int minX = Math.max(0, cx - radius);
+        final int minY = Math.max(0, cy - radius);
+        if (onlyAgents && minX <= maxX && minY <= maxY
+                && buckets.countAround(minX, minY, maxX, maxY) < (long) (maxX - minX + 1) * (maxY - minY + 1)) {
+            // ci sono meno agenti vicini che celle, si visitano quelli dei secchi
+            for (final int index : buckets.cellsIn(minX, minY, maxX, maxY)) {
+                final int x = index % width;
+                final int y = index / width;
+                if ((x != cx || y != cy) && neighborhood.contains(x - cx, y - cy, radius)) {
+                    visitor.visit(x, y, agents.get(index));
+                }
+            }
+            return;
+        }
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if ((x != cx || y != cy) && neighborhood.contains(x - cx, y - cy, radius)) {
+                    final Agent agent = agents.get(indexOf(x, y));
+                    if (agent != null || !onlyAgents) {
+                        visitor.visit(x, y, agent);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachPosInRadius(final Pos pos, final int radius, final Neighborhood neighborhood,
+            final CellVisitor visitor) {
+        visit(pos, radius, neighborhood, visitor, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The agents are found through the buckets of the spatial hash when they
+     * are fewer than the cells in the radius, otherwise the cells are scanned.
+     */
+    @Override
+    public void forEachAgentInRadius(final Pos pos, final int radius, final Neighborhood neighborhood,
+            final CellVisitor visitor) {
+        visit(pos, radius, neighborhood, visitor, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAgentsByType(final String type) {
+        final int code = groupOf(type);
+        return code < 0 ? 0 : agentsByType.size(code);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pos> getPosByType(final String type) {
+        final Set<Pos> out = new HashSet<>();
+        final int code = groupOf(type);
+        if (code >= 0) {
+            for (int i = 0; i < agentsByType.size(code); i++) {
+                out.add(posOf(agentsByType.get(code, i)));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The agents of the type are visited through the index when they are fewer
+     * than the cells in the radius, otherwise the cells are scanned.
+     */
+    @Override
+    public Set<Pos> getPosByTypeAndRadius(final Pos pos, final Integer radius, final String type) {
+        final Set<Pos> out = new HashSet<>();
+        final int code = groupOf(type);
+        if (code < 0 || radius < 0) {
+            return out;
+        }
+        final int cx = pos.getX();
+        final int cy = pos.getY();
+        final long side = 2L * radius + 1;
+        if (agentsByType.size(code) < side * side) {
+            for (int i = 0; i < agentsByType.size(code); i++) {
+                final int index = agentsByType.get(code, i);
+                final int x = index % width;
+                final int y = index / width;
+                if (Math.abs(x - cx) <= radius && Math.abs(y - cy) <= radius && (x != cx || y != cy)) {
+                    out.add(new PosImpl(x, y));
+                }
+            }
+        } else {
+            for (int y = Math.max(0, cy - radius); y <= Math.min(height - 1, cy + radius); y++) {
+                for (int x = Math.max(0, cx - radius); x <= Math.min(width - 1, cx + radius); x++) {
+                    if ((x != cx || y != cy) && agentsByType.groupOf(indexOf(x, y)) == code) {
+                        out.add(new PosImpl(x, y));
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The counts of each radius are kept up to date incrementally once the
+     * radius has been requested, so this is a single lookup.
+     */
+    @Override
+    public int countAgentsInRadius(final Pos pos, final int radius) {
+        return countInRadius(pos, radius, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The counts of each radius are kept up to date incrementally once the
+     * radius has been requested, so this is a single lookup.
+     */
+    @Override
+    public int countAgentsByTypeInRadius(final Pos pos, final int radius, final String type) {
+        final int code = groupOf(type);
+        return code < 0 ? 0 : countInRadius(pos, radius, code);
+    }
+
+    private int countInRadius(final Pos pos, final int radius, final int code) {
+        if (radius <= 0) {
+            return 0;
+        }
+        if (!isValidPosition(pos)) {
+            final int[] count = new int[1];
+            forEachAgentInRadius(pos, radius, Neighborhood.MOORE, (x, y, agent) -> {
+                if (code < 0 || agentsByType.groupOf(indexOf(x, y)) == code) {
+                    count[0]++;
+                }
+            });
+            return count[0];
+        }
+        final int index = indexOf(pos);
+        final int center = agents.get(index) != null && (code < 0 || agentsByType.groupOf(index) == code) ? 1 : 0;
+        if (radius >= Math.max(width, height)) {
+            // il quadrato copre tutta la griglia, non serve una tabella
+            return (code < 0 ? agentCount : agentsByType.size(code)) - center;
+        }
+        return neighborCounts.count(radius, code, index, agentsByType) - center;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countFreeCells() {
+        return freeCells.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Pos> getRandomFreePos(final Random random) {
+        return freeCells.size() == 0
+                ? Optional.empty()
+                : Optional.of(posOf(freeCells.get(random.nextInt(freeCells.size()))));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Agent> getAgentsFromASetOfPos(final Set<Pos> positions) {
+        final Set<Agent> out = new HashSet<>();
+        for (final Pos pos : positions) {
+            getAgentAt(pos).ifPresent(out::add);
+        }
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entity> getEntitiesFromASetOfPos(final Set<Pos> positions) {
+        final Set<Entity> out = new HashSet<>();
+        for (final Pos pos : positions) {
+            getEntityAt(pos).ifPresent(out::add);
+        }
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public State copy() {
+        return new DenseStateImpl(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFree(final Pos pos) {
+        if (!isValidPosition(pos)) {
+            return true;
+        }
+        final int index = indexOf(pos);
+        return agents.get(index) == null && entities.get(index) == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOccupied(final Pos pos) {
+        return !isFree(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isInside(final Pos pos) {
+        return isValidPosition(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<ContinuousState> asContinuous() {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,105 @@
+package it.unibo.ares.core.utils.state;
+
+import java.io.Serializable;
+
+/**
+ * The set of the free cells of a board, stored as a sparse set: an array with
+ * the cells of the set and, for each cell, its slot in that array. Adding and
+ * removing a cell and picking the i-th cell are O(1), so a free cell can be
+ * drawn uniformly at random in O(1) whatever the occupancy of the board.
+ * Both the arrays store the difference from the index, so the initial set,
+ * where every cell is free and the i-th slot holds the cell i, is all zeros
+ * and takes no memory. Like the other paged structures copies are O(1) and
+ * copy-on-write.
+ */
+final class FreeCells implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // cella nello slot meno lo slot
+    private final PagedIntArray members;
+    // slot della cella meno la cella, valido solo se la cella è nell'insieme
+    private final PagedIntArray slots;
+    private int size;
+
+    /**
+     * Creates the set of a board where every cell is free.
+     *
+     * @param cells the number of cells of the board
+     */
+    FreeCells(final int cells) {
+        this.members = new PagedIntArray(cells);
+        this.slots = new PagedIntArray(cells);
+        this.size = cells;
+    }
+
+    private FreeCells(final FreeCells other) {
+        this.members = other.members.copy();
+        this.slots = other.slots.copy();
+        this.size = other.size;
+    }
+
+    private int slotOf(final int cell) {
+        return slots.get(cell) + cell;
+    }
+
+    private void place(final int slot, final int cell) {
+        members.set(slot, cell - slot);
+        slots.set(cell, slot - cell);
+    }
+
+    /**
+     * @param cell the cell
+     * @return true if the cell is in the set
+     */
+    boolean contains(final int cell) {
+        final int slot = slotOf(cell);
+        return slot < size && get(slot) == cell;
+    }
+
+    /**
+     * Adds a cell, nothing happens if it is already in the set.
+     *
+     * @param cell the cell
+     */
+    void add(final int cell) {
+        if (!contains(cell)) {
+            place(size, cell);
+            size++;
+        }
+    }
+
+    /**
+     * Removes a cell, nothing happens if it is not in the set.
+     *
+     * @param cell the cell
+     */
+    void remove(final int cell) {
+        if (contains(cell)) {
+            final int last = get(size - 1);
+            place(slotOf(cell), last);
+            size--;
+        }
+    }
+
+    /**
+     * @param i the index of the cell, lower than {@link #size()}
+     * @return the i-th cell of the set
+     */
+    int get(final int i) {
+        return members.get(i) + i;
+    }
+
+    /**
+     * @return the number of cells in the set
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return an O(1) copy-on-write copy of the set
+     */
+    FreeCells copy() {
+        return new FreeCells(this);
+    }
+}
@@ -0,0 +1,211 @@
+package it.unibo.ares.core.utils.state;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * For every cell of a board and every radius that was asked for, the number of
+ * agents of each type in the square of that radius around the cell, the cell
+ * included.
+ * The table of a radius is built on the first request and from then on every
+ * change of the board is applied as a delta to the cells around it, so a count
+ * is a single lookup, while adding or removing an agent costs (2r + 1)^2
+ * updates for each radius r with a table, and moving it twice as much. The
+ * radii that were requested are shared with the copies, which build the
+ * missing tables when they are copied again, so a chain of copies pays for
+ * building a table at most twice; they are the radii the agents of the model
+ * look at, so they are few and stop growing after the first ticks.
+ * The tables are paged and copy-on-write like the board.
+ * Counting doesn't take locks: the tables are published through a volatile
+ * field only once they are complete, and a missing table is built under a
+ * lock of its own, so many threads can count on the same state while nobody
+ * changes it. Adding, removing and copying follow the rules of the state and
+ * must not run together with other calls.
+ */
+final class NeighborCounts implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int width;
+    private final int height;
+    private final Set<Integer> requested;
+    // costruisce le tabelle mancanti, chi conta non lo prende mai
+    private final ReentrantLock builder;
+    // le tabelle complete, la mappa viene sostituita e mai modificata
+    private volatile Map<Integer, Table> tables;
+
+    /**
+     * The counts of a single radius.
+     */
+    private static final class Table implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int cells;
+        private final PagedIntArray all;
+        private PagedIntArray[] byType;
+
+        Table(final int cells) {
+            this.cells = cells;
+            this.all = new PagedIntArray(cells);
+            this.byType = new PagedIntArray[0];
+        }
+
+        private Table(final Table other) {
+            this.cells = other.cells;
+            this.all = other.all.copy();
+            this.byType = new PagedIntArray[other.byType.length];
+            for (int t = 0; t < byType.length; t++) {
+                this.byType[t] = other.byType[t].copy();
+            }
+        }
+
+        int get(final int type, final int cell) {
+            if (type < 0) {
+                return all.get(cell);
+            }
+            // un tipo senza array non ha mai avuto agenti in questa tabella
+            return type < byType.length ? byType[type].get(cell) : 0;
+        }
+
+        PagedIntArray ofType(final int type) {
+            if (type >= byType.length) {
+                final PagedIntArray[] grown = new PagedIntArray[type + 1];
+                System.arraycopy(byType, 0, grown, 0, byType.length);
+                for (int t = byType.length; t <= type; t++) {
+                    grown[t] = new PagedIntArray(cells);
+                }
+                byType = grown;
+            }
+            return byType[type];
+        }
+
+        Table copy() {
+            return new Table(this);
+        }
+    }
+
+    /**
+     * Creates the counts of an empty board, no table is built until a radius
+     * is requested.
+     *
+     * @param width  the width of the board
+     * @param height the height of the board
+     */
+    NeighborCounts(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        this.requested = ConcurrentHashMap.newKeySet();
+        this.builder = new ReentrantLock();
+        this.tables = Map.of();
+    }
+
+    private NeighborCounts(final NeighborCounts other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.requested = other.requested;
+        this.builder = new ReentrantLock();
+        final Map<Integer, Table> copied = new HashMap<>();
+        other.tables.forEach((radius, table) -> copied.put(radius, table.copy()));
+        this.tables = Map.copyOf(copied);
+    }
+
+    private void apply(final int radius, final Table table, final int type, final int cell, final int delta) {
+        final int cx = cell % width;
+        final int cy = cell / width;
+        final PagedIntArray ofType = table.ofType(type);
+        final int maxX = Math.min(width - 1, cx + radius);
+        final int maxY = Math.min(height - 1, cy + radius);
+        for (int y = Math.max(0, cy - radius); y <= maxY; y++) {
+            for (int x = Math.max(0, cx - radius); x <= maxX; x++) {
+                final int index = y * width + x;
+                table.all.set(index, table.all.get(index) + delta);
+                ofType.set(index, ofType.get(index) + delta);
+            }
+        }
+    }
+
+    private Table tableOf(final int radius, final CellGroups agents) {
+        final Table published = tables.get(radius);
+        if (published != null) {
+            return published;
+        }
+        builder.lock();
+        try {
+            Table table = tables.get(radius);
+            if (table == null) {
+                table = new Table(width * height);
+                for (int type = 0; type < agents.groups(); type++) {
+                    for (int i = 0; i < agents.size(type); i++) {
+                        apply(radius, table, type, agents.get(type, i), 1);
+                    }
+                }
+                final Map<Integer, Table> grown = new HashMap<>(tables);
+                grown.put(radius, table);
+                tables = Map.copyOf(grown);
+                requested.add(radius);
+            }
+            return table;
+        } finally {
+            builder.unlock();
+        }
+    }
+
+    /**
+     * Counts the agents in the square of a radius around a cell, the cell
+     * included.
+     *
+     * @param radius the radius, not negative
+     * @param type   the type code of the agents, or a negative number to count
+     *               all the agents
+     * @param cell   the cell
+     * @param agents the agents of the board grouped by type code, used to build
+     *               the table the first time the radius is requested
+     * @return the number of agents
+     */
+    int count(final int radius, final int type, final int cell, final CellGroups agents) {
+        return tableOf(radius, agents).get(type, cell);
+    }
+
+    /**
+     * Records an agent that was added to a cell, in O(r^2) for each radius r
+     * with a table.
+     *
+     * @param type the type code of the agent
+     * @param cell the cell
+     */
+    void add(final int type, final int cell) {
+        tables.forEach((radius, table) -> apply(radius, table, type, cell, 1));
+    }
+
+    /**
+     * Records an agent that was removed from a cell, in O(r^2) for each radius
+     * r with a table.
+     *
+     * @param type the type code of the agent
+     * @param cell the cell
+     */
+    void remove(final int type, final int cell) {
+        tables.forEach((radius, table) -> apply(radius, table, type, cell, -1));
+    }
+
+    /**
+     * Creates a copy-on-write copy of the counts, building first the tables
+     * that were requested by another copy and are missing here.
+     *
+     * @param agents the agents of the board grouped by type code
+     * @return the copy
+     */
+    NeighborCounts copy(final CellGroups agents) {
+        builder.lock();
+        try {
+            for (final int radius : requested) {
+                tableOf(radius, agents);
+            }
+            return new NeighborCounts(this);
+        } finally {
+            builder.unlock();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package it.unibo.ares.core.utils.state;
+
+/**
+ * The shapes of the neighborhood of a cell within a radius.
+ */
+public enum Neighborhood {
+    /**
+     * The cells whose x and y distances are both within the radius, it is the
+     * square around the cell.
+     */
+    MOORE {
+        @Override
+        public boolean contains(final int dx, final int dy, final int radius) {
+            return Math.abs(dx) <= radius && Math.abs(dy) <= radius;
+        }
+    },
+    /**
+     * The cells whose manhattan distance is within the radius, it is the
+     * diamond around the cell.
+     */
+    VON_NEUMANN {
+        @Override
+        public boolean contains(final int dx, final int dy, final int radius) {
+            return Math.abs(dx) + Math.abs(dy) <= radius;
+        }
+    };
+
+    /**
+     * Checks if a cell belongs to the neighborhood of the center.
+     *
+     * @param dx     the x offset of the cell from the center
+     * @param dy     the y offset of the cell from the center
+     * @param radius the radius of the neighborhood
+     * @return true if the cell is in the neighborhood, false otherwise
+     */
+    public abstract boolean contains(int dx, int dy, int radius);
+}
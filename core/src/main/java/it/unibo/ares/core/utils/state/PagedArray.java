@@ -0,0 +1,118 @@
+package it.unibo.ares.core.utils.state;
+
+import java.io.Serializable;
+
+/**
+ * A fixed length array split in pages that can be shared between copies.
+ * Copying is O(1): the copy and the original share every page and a page is
+ * cloned only the first time one of them writes into it, so each copy pays
+ * just for the pages it changes. Pages that were never written are not
+ * allocated at all.
+ *
+ * @param <T> the type of the elements
+ */
+final class PagedArray<T extends Serializable> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int length;
+    private Object[][] pages;
+    private boolean[] ownedPages;
+    private boolean ownsDirectory;
+
+    /**
+     * Creates a new array filled with nulls.
+     *
+     * @param length the length of the array
+     */
+    PagedArray(final int length) {
+        this.length = length;
+        this.pages = new Object[(length + PAGE_MASK) >> PAGE_BITS][];
+        this.ownedPages = new boolean[pages.length];
+        this.ownsDirectory = true;
+    }
+
+    private PagedArray(final PagedArray<T> other) {
+        this.length = other.length;
+        this.pages = other.pages;
+        this.ownsDirectory = false;
+    }
+
+    /**
+     * @return the length of the array
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Gets the element at the specified index.
+     *
+     * @param index the index of the element
+     * @return the element, or null if the cell is empty
+     */
+    @SuppressWarnings("unchecked")
+    T get(final int index) {
+        final Object[] page = pages[index >> PAGE_BITS];
+        return page == null ? null : (T) page[index & PAGE_MASK];
+    }
+
+    /**
+     * Sets the element at the specified index, cloning the page if it is shared
+     * with another copy.
+     *
+     * @param index the index of the element
+     * @param value the new value, null empties the cell
+     */
+    void set(final int index, final T value) {
+        final int p = index >> PAGE_BITS;
+        if (value == null && pages[p] == null) {
+            return;
+        }
+        if (!ownsDirectory) {
+            pages = pages.clone();
+            ownedPages = new boolean[pages.length];
+            ownsDirectory = true;
+        }
+        if (!ownedPages[p]) {
+            pages[p] = pages[p] == null ? new Object[PAGE_SIZE] : pages[p].clone();
+            ownedPages[p] = true;
+        }
+        pages[p][index & PAGE_MASK] = value;
+    }
+
+    /**
+     * Finds the first non empty cell starting from the specified index, pages
+     * that were never written are skipped.
+     *
+     * @param from the index where the search starts
+     * @return the index of the first non empty cell, or -1 if there is none
+     */
+    int nextNonNull(final int from) {
+        int index = from;
+        while (index < length) {
+            final Object[] page = pages[index >> PAGE_BITS];
+            if (page == null) {
+                index = (index | PAGE_MASK) + 1;
+            } else if (page[index & PAGE_MASK] == null) {
+                index++;
+            } else {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates a copy of the array in O(1), the pages are shared until one of
+     * the two arrays writes into them.
+     *
+     * @return the copy
+     */
+    PagedArray<T> copy() {
+        this.ownsDirectory = false;
+        return new PagedArray<>(this);
+    }
+}
@@ -0,0 +1,81 @@
+package it.unibo.ares.core.utils.state;
+
+import java.io.Serializable;
+
+/**
+ * The primitive counterpart of {@link PagedArray}: a fixed length int array
+ * split in pages that are shared between copies and cloned on the first
+ * write. Pages that were never written are not allocated and read as zero.
+ */
+final class PagedIntArray implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private int[][] pages;
+    private boolean[] ownedPages;
+    private boolean ownsDirectory;
+
+    /**
+     * Creates a new array filled with zeros.
+     *
+     * @param length the length of the array
+     */
+    PagedIntArray(final int length) {
+        this.pages = new int[(length + PAGE_MASK) >> PAGE_BITS][];
+        this.ownedPages = new boolean[pages.length];
+        this.ownsDirectory = true;
+    }
+
+    private PagedIntArray(final PagedIntArray other) {
+        this.pages = other.pages;
+        this.ownsDirectory = false;
+    }
+
+    /**
+     * Gets the element at the specified index.
+     *
+     * @param index the index of the element
+     * @return the element
+     */
+    int get(final int index) {
+        final int[] page = pages[index >> PAGE_BITS];
+        return page == null ? 0 : page[index & PAGE_MASK];
+    }
+
+    /**
+     * Sets the element at the specified index, cloning the page if it is shared
+     * with another copy.
+     *
+     * @param index the index of the element
+     * @param value the new value
+     */
+    void set(final int index, final int value) {
+        final int p = index >> PAGE_BITS;
+        if (value == 0 && pages[p] == null) {
+            return;
+        }
+        if (!ownsDirectory) {
+            pages = pages.clone();
+            ownedPages = new boolean[pages.length];
+            ownsDirectory = true;
+        }
+        if (!ownedPages[p]) {
+            pages[p] = pages[p] == null ? new int[PAGE_SIZE] : pages[p].clone();
+            ownedPages[p] = true;
+        }
+        pages[p][index & PAGE_MASK] = value;
+    }
+
+    /**
+     * Creates a copy of the array in O(1), the pages are shared until one of
+     * the two arrays writes into them.
+     *
+     * @return the copy
+     */
+    PagedIntArray copy() {
+        this.ownsDirectory = false;
+        return new PagedIntArray(this);
+    }
+}
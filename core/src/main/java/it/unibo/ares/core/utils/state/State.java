@@ -6,6 +6,7 @@ import it.unibo.ares.core.utils.Pair;
 import it.unibo.ares.core.utils.pos.Pos;
 
 import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
 import java.io.Serializable;
 
@@ -130,6 +131,100 @@ public interface State extends Serializable {
      */
     Set<Pos> getPosByPosAndRadius(Pos pos, Integer radius);
 
+    /**
+     * Visits the cells of the board within a specified radius of a given
+     * position, the position itself is excluded. The cells are visited row by
+     * row and each one is passed to the visitor with its agent, if any.
+     *
+     * @param pos          the center position.
+     * @param radius       the radius of the neighborhood.
+     * @param neighborhood the shape of the neighborhood.
+     * @param visitor      the visitor called for each cell.
+     */
+    void forEachPosInRadius(Pos pos, int radius, Neighborhood neighborhood, CellVisitor visitor);
+
+    /**
+     * Visits the agents within a specified radius of a given position, the
+     * position itself is excluded. It works like
+     * {@link #forEachPosInRadius(Pos, int, Neighborhood, CellVisitor)} but only
+     * the cells with an agent are visited.
+     *
+     * @param pos          the center position.
+     * @param radius       the radius of the neighborhood.
+     * @param neighborhood the shape of the neighborhood.
+     * @param visitor      the visitor called for each agent.
+     */
+    void forEachAgentInRadius(Pos pos, int radius, Neighborhood neighborhood, CellVisitor visitor);
+
+    /**
+     * Counts the agents of the specified type. The type of an agent is read
+     * when the agent is added to the state.
+     *
+     * @param type the type of the agents.
+     * @return the number of agents of that type.
+     */
+    int countAgentsByType(String type);
+
+    /**
+     * Retrieves the positions of the agents of the specified type.
+     *
+     * @param type the type of the agents.
+     * @return a set of the positions of the agents of that type.
+     */
+    Set<Pos> getPosByType(String type);
+
+    /**
+     * Retrieves the positions of the agents of the specified type within a
+     * specified radius of a given position, the position itself is excluded.
+     *
+     * @param pos    the center position.
+     * @param radius the radius within which to search for agents.
+     * @param type   the type of the agents.
+     * @return a set of the positions of the agents of that type.
+     */
+    Set<Pos> getPosByTypeAndRadius(Pos pos, Integer radius, String type);
+
+    /**
+     * Counts the agents in the square of the given radius around a position,
+     * the agent at the position excluded. It is the number of positions
+     * returned by {@link #getAgentsByPosAndRadius(Pos, Integer)} without the
+     * need to build the set.
+     *
+     * @param pos    the position around which to count.
+     * @param radius the radius within which to count.
+     * @return the number of agents in the radius.
+     */
+    int countAgentsInRadius(Pos pos, int radius);
+
+    /**
+     * Counts the agents of a type in the square of the given radius around a
+     * position, the agent at the position excluded. It is the size of
+     * {@link #getPosByTypeAndRadius(Pos, Integer, String)} without the need to
+     * build the set.
+     *
+     * @param pos    the position around which to count.
+     * @param radius the radius within which to count.
+     * @param type   the type of the agents.
+     * @return the number of agents of that type in the radius.
+     */
+    int countAgentsByTypeInRadius(Pos pos, int radius, String type);
+
+    /**
+     * Counts the free cells of the board, the ones that are free according to
+     * {@link #isFree(Pos)}.
+     *
+     * @return the number of free cells.
+     */
+    int countFreeCells();
+
+    /**
+     * Draws a free cell of the board uniformly at random.
+     *
+     * @param random the source of randomness.
+     * @return a random free position, or an empty optional if the board is full.
+     */
+    Optional<Pos> getRandomFreePos(Random random);
+
     /**
      * Retrieves the agents at the specified positions, if any.
      *
@@ -176,4 +271,13 @@ public interface State extends Serializable {
      * @return true if the position is inside the state, false otherwise.
      */
     boolean isInside(Pos pos);
+
+    /**
+     * Gets the state as a continuous space, if the agents of the state have
+     * precise positions besides their cells.
+     *
+     * @return an optional containing this state as a continuous space, or
+     *         empty if the agents have only their cells.
+     */
+    Optional<ContinuousState> asContinuous();
 }
@@ -0,0 +1,19 @@
+package it.unibo.ares.core.utils.state;
+
+import java.io.Serializable;
+
+/**
+ * A factory of empty states, it permits a model to choose which
+ * implementation of {@link State} backs its board.
+ */
+@FunctionalInterface
+public interface StateFactory extends Serializable {
+    /**
+     * Creates a new empty state with the specified dimensions.
+     *
+     * @param width  the width of the state
+     * @param height the height of the state
+     * @return a new empty state
+     */
+    State create(Integer width, Integer height);
+}
@@ -1,9 +1,14 @@
 package it.unibo.ares.core.utils.state;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import it.unibo.ares.core.agent.Agent;
 import it.unibo.ares.core.agent.Entity;
@@ -22,6 +27,7 @@ public final class StateImpl implements State {
     private static final long serialVersionUID = 1L;
     private final Board<Entity> entityBoard = new BoardImpl<>();
     private final Board<Agent> agentBoard = new BoardImpl<>();
+    private final Map<String, Set<Pos>> typeIndex = new HashMap<>();
     private final Pair<Integer, Integer> size;
 
     /**
@@ -68,6 +74,7 @@ public final class StateImpl implements State {
     public void addAgent(final Pos pos, final Agent agent) {
         assertInsideBoard(pos);
         agentBoard.addEntity(pos, agent);
+        typeIndex.computeIfAbsent(agent.getType(), t -> new HashSet<>()).add(pos);
     }
 
     /**
@@ -76,6 +83,9 @@ public final class StateImpl implements State {
     @Override
     public void removeAgent(final Pos pos, final Agent agent) {
         agentBoard.removeEntity(pos, agent);
+        if (agentBoard.getEntity(pos).isEmpty()) {
+            typeIndex.get(agent.getType()).remove(pos);
+        }
     }
 
     /**
@@ -84,9 +94,19 @@ public final class StateImpl implements State {
     @Override
     public void moveAgent(final Pos from, final Pos to) {
         assertInsideBoard(to);
-        final Agent agent = agentBoard.getEntity(from).get();
+        final Agent agent = agentBoard.getEntity(from).orElseThrow(
+                () -> new IllegalArgumentException("Position " + from + " is not occupied"));
+        if (from.equals(to)) {
+            return;
+        }
+        agentBoard.getEntity(to).ifPresent(a -> {
+            throw new IllegalArgumentException("Position " + to + " is already occupied by " + a);
+        });
         agentBoard.removeEntity(from, agent);
         agentBoard.addEntity(to, agent);
+        final Set<Pos> positions = typeIndex.get(agent.getType());
+        positions.remove(from);
+        positions.add(to);
     }
 
     /**
@@ -146,13 +166,9 @@ public final class StateImpl implements State {
      */
     @Override
     public Set<Pos> getPosByPosAndRadius(final Pos pos, final Integer radius) {
-        return IntStream.rangeClosed(pos.getX() - radius, pos.getX() + radius)
-                .boxed()
-                .flatMap(x -> IntStream.rangeClosed(pos.getY() - radius, pos.getY() + radius)
-                        .mapToObj(y -> new PosImpl(x, y)))
-                .filter(this::isValidPosition)
-                .filter(p -> !p.equals(pos))
-                .collect(Collectors.toSet());
+        final Set<Pos> out = new HashSet<>();
+        forEachPosInRadius(pos, radius, Neighborhood.MOORE, (x, y, agent) -> out.add(new PosImpl(x, y)));
+        return out;
     }
 
     /**
@@ -160,13 +176,121 @@ public final class StateImpl implements State {
      */
     @Override
     public Set<Agent> getAgentsByPosAndRadius(final Pos pos, final Integer radius) {
-        return getPosByPosAndRadius(pos, radius).stream()
-                .map(this::getAgentAt)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
+        final Set<Agent> out = new HashSet<>();
+        forEachAgentInRadius(pos, radius, Neighborhood.MOORE, (x, y, agent) -> out.add(agent));
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachPosInRadius(final Pos pos, final int radius, final Neighborhood neighborhood,
+            final CellVisitor visitor) {
+        final int cx = pos.getX();
+        final int cy = pos.getY();
+        for (int y = Math.max(0, cy - radius); y <= Math.min(size.getSecond() - 1, cy + radius); y++) {
+            for (int x = Math.max(0, cx - radius); x <= Math.min(size.getFirst() - 1, cx + radius); x++) {
+                if ((x != cx || y != cy) && neighborhood.contains(x - cx, y - cy, radius)) {
+                    visitor.visit(x, y, agentBoard.getEntity(new PosImpl(x, y)).orElse(null));
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachAgentInRadius(final Pos pos, final int radius, final Neighborhood neighborhood,
+            final CellVisitor visitor) {
+        forEachPosInRadius(pos, radius, neighborhood, (x, y, agent) -> {
+            if (agent != null) {
+                visitor.visit(x, y, agent);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAgentsByType(final String type) {
+        return typeIndex.getOrDefault(type, Set.of()).size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pos> getPosByType(final String type) {
+        return new HashSet<>(typeIndex.getOrDefault(type, Set.of()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Pos> getPosByTypeAndRadius(final Pos pos, final Integer radius, final String type) {
+        return typeIndex.getOrDefault(type, Set.of()).stream()
+                .filter(p -> Math.abs(p.getX() - pos.getX()) <= radius
+                        && Math.abs(p.getY() - pos.getY()) <= radius)
+                .filter(p -> !p.equals(pos))
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAgentsInRadius(final Pos pos, final int radius) {
+        final int[] count = new int[1];
+        forEachAgentInRadius(pos, radius, Neighborhood.MOORE, (x, y, agent) -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAgentsByTypeInRadius(final Pos pos, final int radius, final String type) {
+        return getPosByTypeAndRadius(pos, radius, type).size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countFreeCells() {
+        return size.getFirst() * size.getSecond() - occupiedCells().size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The free cells are found scanning the board.
+     */
+    @Override
+    public Optional<Pos> getRandomFreePos(final Random random) {
+        final Set<Pos> occupied = occupiedCells();
+        final List<Pos> free = new ArrayList<>();
+        for (int x = 0; x < size.getFirst(); x++) {
+            for (int y = 0; y < size.getSecond(); y++) {
+                final Pos pos = new PosImpl(x, y);
+                if (!occupied.contains(pos)) {
+                    free.add(pos);
+                }
+            }
+        }
+        return free.isEmpty() ? Optional.empty() : Optional.of(free.get(random.nextInt(free.size())));
+    }
+
+    private Set<Pos> occupiedCells() {
+        final Set<Pos> occupied = new HashSet<>();
+        agentBoard.getEntities().forEach(p -> occupied.add(p.getFirst()));
+        entityBoard.getEntities().forEach(p -> occupied.add(p.getFirst()));
+        return occupied;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -209,4 +333,12 @@ public final class StateImpl implements State {
         return isValidPosition(pos);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<ContinuousState> asContinuous() {
+        return Optional.empty();
+    }
+
 }
@@ -3,7 +3,16 @@ package it.unibo.ares.core.agent;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 
 import it.unibo.ares.core.utils.lambda.SerializableBiFunction;
 import it.unibo.ares.core.utils.parameters.ParameterImpl;
@@ -43,4 +52,31 @@ final class AgentBuilderImplTest {
                     .addParameter(new ParameterImpl<>("testKey3", true, true));
         });
     }
+
+    /**
+     * Agents should get distinct ids, kept when they are saved and loaded, and
+     * the agents built after a load should not reuse the ids of the loaded ones.
+     */
+    @Test
+    void testIds() throws IOException, ClassNotFoundException {
+        final AgentBuilderImpl agentBuilder = new AgentBuilderImpl();
+        agentBuilder.addStrategy((state, pos) -> state);
+        final Agent first = agentBuilder.build();
+        final Agent second = agentBuilder.build();
+        assertNotEquals(first.getId(), second.getId());
+        assertNotEquals(first, second);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(second);
+        }
+        final Agent loaded;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (Agent) ois.readObject();
+        }
+        assertEquals(second.getId(), loaded.getId());
+        assertEquals(second, loaded);
+        assertEquals(second.hashCode(), loaded.hashCode());
+        assertTrue(agentBuilder.build().getId() > loaded.getId());
+    }
 }
@@ -0,0 +1,51 @@
+package it.unibo.ares.core.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link AgentTypes}.
+ */
+class AgentTypesTest {
+
+    /**
+     * Every type should get its own code, and the code should give back the
+     * name of the type.
+     */
+    @Test
+    void testCodes() {
+        final int first = AgentTypes.codeOf("agentTypesTestFirst");
+        final int second = AgentTypes.codeOf("agentTypesTestSecond");
+        assertNotEquals(first, second);
+        assertEquals(first, AgentTypes.codeOf("agentTypesTestFirst"));
+        assertEquals(first, AgentTypes.find("agentTypesTestFirst"));
+        assertEquals("agentTypesTestSecond", AgentTypes.nameOf(second));
+    }
+
+    /**
+     * The types that were never registered and the missing types should have
+     * no code.
+     */
+    @Test
+    void testNoType() {
+        assertEquals(AgentTypes.NONE, AgentTypes.find("agentTypesTestNeverRegistered"));
+        assertEquals(AgentTypes.NONE, AgentTypes.codeOf(null));
+        assertNull(AgentTypes.nameOf(AgentTypes.NONE));
+        assertThrows(IllegalArgumentException.class, () -> AgentTypes.nameOf(Integer.MAX_VALUE));
+    }
+
+    /**
+     * The code of an agent should follow its type.
+     */
+    @Test
+    void testAgentTypeCode() {
+        final Agent agent = new AgentBuilderImpl().addStrategy((state, pos) -> state).build();
+        assertEquals(AgentTypes.NONE, agent.getTypeCode());
+        agent.setType("agentTypesTestAgent");
+        assertEquals(AgentTypes.codeOf("agentTypesTestAgent"), agent.getTypeCode());
+    }
+}
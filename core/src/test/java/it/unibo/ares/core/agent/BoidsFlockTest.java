@@ -0,0 +1,73 @@
+package it.unibo.ares.core.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.State;
+
+/**
+ * Unit test for {@link BoidsFlock}.
+ */
+class BoidsFlockTest {
+    // CHECKSTYLE: MagicNumber OFF
+    private static List<Pos> flock(final State state, final long seed, final int count) {
+        final Random random = new Random(seed);
+        final BoidsAgentFactory factory = new BoidsAgentFactory();
+        final List<Pos> positions = new ArrayList<>();
+        while (positions.size() < count) {
+            final Pos pos = new PosImpl(random.nextInt(state.getDimensions().getFirst()),
+                    random.nextInt(state.getDimensions().getSecond()));
+            final Agent boid = factory.createAgent();
+            boid.setParameter("distance", random.nextInt(1, 8));
+            boid.setParameter("angle", random.nextInt(1, 181));
+            // alcuni boid fermi, per le corsie con vettori nulli
+            boid.setParameter("direction", random.nextInt(10) == 0 ? new DirectionVectorImpl(0, 0)
+                    : new DirectionVectorImpl(random.nextDouble(-1, 1), random.nextDouble(-1, 1)));
+            boid.setParameter("collisionAvoidanceWeight", random.nextDouble());
+            boid.setParameter("alignmentWeight", random.nextDouble());
+            boid.setParameter("cohesionWeight", random.nextDouble());
+            boid.setParameter("stepSize", random.nextInt(1, 4));
+            if (state.isFree(pos)) {
+                state.addAgent(pos, boid);
+                positions.add(pos);
+            }
+        }
+        return positions;
+    }
+
+    private static List<Object> steer(final long seed, final boolean vectorized) {
+        final State state = new DenseStateImpl(60, 40);
+        // un numero di boid che non è un multiplo delle corsie, per la coda scalare
+        final List<Pos> positions = flock(state, seed, 1001);
+        final BoidsFlock boids = new BoidsFlock();
+        boids.load(state, positions);
+        boids.sense(0, boids.size());
+        boids.steer(vectorized);
+        boids.apply(state.copy());
+        return positions.stream()
+                .map(pos -> state.getAgentAt(pos).get().getParameters().getParameter("direction").get().getValue())
+                .map(Object.class::cast)
+                .toList();
+    }
+
+    /**
+     * The Vector API, when it is available, should give the directions of
+     * the scalar loop, bit for bit.
+     */
+    @Test
+    void testVectorizedSteering() {
+        for (final long seed : List.of(3L, 11L, 42L)) {
+            assertEquals(steer(seed, false), steer(seed, true));
+        }
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
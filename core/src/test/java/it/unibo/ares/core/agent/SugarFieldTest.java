@@ -0,0 +1,112 @@
+package it.unibo.ares.core.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.State;
+
+/**
+ * Unit test for {@link SugarField}.
+ */
+class SugarFieldTest {
+    // CHECKSTYLE: MagicNumber OFF
+    private final SugarAgentFactory sugarFactory = new SugarAgentFactory();
+    private final ConsumerAgentFactory consumerFactory = new ConsumerAgentFactory();
+
+    private static int distance(final Pos a, final Pos b) {
+        return Math.abs(a.getX() - b.getX()) + Math.abs(a.getY() - b.getY());
+    }
+
+    private void addSugar(final State state, final Random random, final int count) {
+        for (int i = 0; i < count; i++) {
+            state.getRandomFreePos(random).ifPresent(pos -> state.addAgent(pos, sugarFactory.createAgent()));
+        }
+    }
+
+    // le due distanze più piccole dello zucchero da ogni cella, calcolate su tutte le celle di zucchero
+    private static void assertNearest(final SugarField field, final State state) {
+        final List<Pos> sugars = List.copyOf(state.getPosByType(SugarAgentFactory.SUGAR));
+        for (int x = 0; x < state.getDimensions().getFirst(); x++) {
+            for (int y = 0; y < state.getDimensions().getSecond(); y++) {
+                final Pos pos = new PosImpl(x, y);
+                final List<Integer> expected = sugars.stream().map(s -> distance(s, pos)).sorted().limit(2).toList();
+                assertEquals(expected, field.nearestSugars(pos).stream().map(s -> distance(s, pos)).toList());
+            }
+        }
+    }
+
+    /**
+     * Every cell should know its two nearest sugar cells, also after new
+     * sugar is added or some sugar is removed.
+     */
+    @Test
+    void testNearestSugars() {
+        final Random random = new Random(5);
+        final State state = new DenseStateImpl(30, 20);
+        addSugar(state, random, 12);
+        final SugarField field = new SugarField(state);
+        assertNearest(field, state);
+        addSugar(state, random, 5);
+        field.update(state);
+        assertNearest(field, state);
+        final Pos removed = state.getPosByType(SugarAgentFactory.SUGAR).iterator().next();
+        state.removeAgent(removed, state.getAgentAt(removed).get());
+        field.update(state);
+        assertNearest(field, state);
+    }
+
+    /**
+     * The consumers should be counted on their nearest sugar, and the field
+     * should be usable only for the state it was updated for.
+     */
+    @Test
+    void testCompetition() {
+        final State state = new DenseStateImpl(10, 10);
+        state.addAgent(new PosImpl(3, 2), sugarFactory.createAgent());
+        state.addAgent(new PosImpl(8, 2), sugarFactory.createAgent());
+        state.addAgent(new PosImpl(2, 2), consumerFactory.createAgent());
+        state.addAgent(new PosImpl(5, 2), consumerFactory.createAgent());
+        state.addAgent(new PosImpl(9, 9), consumerFactory.createAgent());
+        final SugarField field = new SugarField(state);
+        assertEquals(List.of(new PosImpl(3, 2), new PosImpl(8, 2)), field.nearestSugars(new PosImpl(5, 2)));
+        assertEquals(2, field.competitionFor(new PosImpl(3, 2)));
+        assertEquals(1, field.competitionFor(new PosImpl(8, 2)));
+        assertTrue(field.isFor(state));
+        assertFalse(field.isFor(state.copy()));
+    }
+
+    /**
+     * A consumer ticked with the field should go for the sugar with less
+     * competition even if it's not the nearest one, as it does by scanning.
+     */
+    @Test
+    void testConsumerUsesField() {
+        final State state = new DenseStateImpl(10, 10);
+        for (final Pos pos : List.of(new PosImpl(2, 2), new PosImpl(5, 2))) {
+            state.addAgent(pos, consumerFactory.createAgent());
+            state.getAgentAt(pos).get().setParameter("visionRadius", 5);
+            state.getAgentAt(pos).get().setParameter("metabolismRate", 1);
+            state.getAgentAt(pos).get().setParameter("sugar", 5);
+            state.getAgentAt(pos).get().setParameter("maxSugar", 10);
+        }
+        for (final Pos pos : List.of(new PosImpl(3, 2), new PosImpl(8, 2))) {
+            state.addAgent(pos, sugarFactory.createAgent());
+            state.getAgentAt(pos).get().setParameter("sugarAmount", 3);
+        }
+        consumerFactory.updateSugarField(state);
+        final Pos consumer = new PosImpl(5, 2);
+        state.getAgentAt(consumer).get().tick(state, consumer);
+        assertTrue(state.getAgentAt(new PosImpl(6, 2)).isPresent());
+        assertTrue(state.isFree(consumer));
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
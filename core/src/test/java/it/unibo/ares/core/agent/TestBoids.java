@@ -1,12 +1,12 @@
 package it.unibo.ares.core.agent;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
+import it.unibo.ares.core.utils.Pair;
 import it.unibo.ares.core.utils.directionvector.DirectionVector;
 import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
 import it.unibo.ares.core.utils.pos.Pos;
@@ -14,111 +14,64 @@ import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
 import it.unibo.ares.core.utils.state.StateImpl;
 
-@SuppressWarnings({ "PMD.AvoidUncheckedExceptionsInSignatures", "PMD.AvoidAccessibilityAlteration" })
-// Reflection utilizzata per accedere a metodi privati
 class TestBoids {
-    private static final String BOIDSFACTORY = "it.unibo.ares.core.agent.BoidsAgentFactory";
-    private static final String COLL = "collisionAvoindance";
+    private static final Integer RADIUS = 3;
 
-    @Test
-    void testCollisionAvoidanceNotOutOfScope()
-            throws NoSuchMethodException, SecurityException, ClassNotFoundException,
-            IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-        final BoidsAgentFactory b = new BoidsAgentFactory();
-        final Agent movingAgent = b.createAgent();
-        final Pos movingAgentPos = new PosImpl(0, 0);
-        final DirectionVector movingAgentDir = new DirectionVectorImpl(1.0, 0.0);
-        final Integer radius = 3;
-        final Integer angle = 90;
+    private final BoidsAgentFactory b = new BoidsAgentFactory();
 
-        final Agent obstacleAgent = b.createAgent();
-        final Pos obstaclePos = new PosImpl(4, 0);
-        // CREATE STATE
-        final State state = new StateImpl(10, 10);
-        state.addAgent(movingAgentPos, movingAgent);
-        state.addAgent(obstaclePos, obstacleAgent);
-        // TEST NOT VIEWED
+    private static DirectionVector collision(final BoidsAgentFactory.Steering steering) {
+        return new DirectionVectorImpl(steering.collisionX(), steering.collisionY());
+    }
 
-        final Method method = Class.forName(BOIDSFACTORY)
-                .getDeclaredMethod(COLL, State.class, Pos.class, DirectionVector.class,
-                        Integer.class,
-                        Integer.class);
+    private static DirectionVector alignment(final BoidsAgentFactory.Steering steering) {
+        return new DirectionVectorImpl(steering.alignmentX(), steering.alignmentY());
+    }
 
-        method.setAccessible(true);
+    private static DirectionVector cohesion(final BoidsAgentFactory.Steering steering) {
+        return new DirectionVectorImpl(steering.cohesionX(), steering.cohesionY());
+    }
 
-        final DirectionVector newDir = (DirectionVectorImpl) method.invoke(b, state, movingAgentPos,
-                movingAgentDir,
-                radius,
-                angle);
-        assertEquals(newDir, movingAgentDir);
+    private State stateWith(final Pos movingAgentPos, final Pos... obstacles) {
+        final State state = new StateImpl(10, 10);
+        state.addAgent(movingAgentPos, b.createAgent());
+        for (final Pos obstacle : obstacles) {
+            state.addAgent(obstacle, b.createAgent());
+        }
+        return state;
     }
 
     @Test
-    void testCollisionAvoidance()
-            throws NoSuchMethodException, SecurityException, ClassNotFoundException,
-            IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-        final BoidsAgentFactory b = new BoidsAgentFactory();
-        final Agent movingAgent = b.createAgent();
+    void testCollisionAvoidanceNotOutOfScope() {
         final Pos movingAgentPos = new PosImpl(0, 0);
         final DirectionVector movingAgentDir = new DirectionVectorImpl(1.0, 0.0);
-        final Integer radius = 3;
         final Integer angle = 90;
-
-        final Agent obstacleAgent = b.createAgent();
-        final Pos obstaclePos = new PosImpl(1, 0);
-        // CREATE STATE
-        final State state = new StateImpl(10, 10);
-        state.addAgent(movingAgentPos, movingAgent);
-        state.addAgent(obstaclePos, obstacleAgent);
         // TEST NOT VIEWED
+        final State state = stateWith(movingAgentPos, new PosImpl(4, 0));
 
-        final Method method = Class.forName(BOIDSFACTORY)
-                .getDeclaredMethod(COLL, State.class, Pos.class, DirectionVector.class,
-                        Integer.class,
-                        Integer.class);
+        final DirectionVector newDir = collision(b.steer(state, movingAgentPos, movingAgentDir, RADIUS, angle));
+        assertEquals(newDir, movingAgentDir);
+    }
 
-        method.setAccessible(true);
+    @Test
+    void testCollisionAvoidance() {
+        final Pos movingAgentPos = new PosImpl(0, 0);
+        final DirectionVector movingAgentDir = new DirectionVectorImpl(1.0, 0.0);
+        final Integer angle = 90;
+        final State state = stateWith(movingAgentPos, new PosImpl(1, 0));
 
-        final DirectionVector newDir = (DirectionVectorImpl) method.invoke(b, state, movingAgentPos,
-                movingAgentDir,
-                radius,
-                angle);
+        final DirectionVector newDir = collision(b.steer(state, movingAgentPos, movingAgentDir, RADIUS, angle));
         final DirectionVector expectedDir = new DirectionVectorImpl(-1.0, 0.0);
         assertEquals(newDir, expectedDir);
     }
 
     @Test
-    void testCollisionAvoidanceWithTwoObstacles()
-            throws NoSuchMethodException, SecurityException, ClassNotFoundException,
-            IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-        final BoidsAgentFactory b = new BoidsAgentFactory();
-        final Agent movingAgent = b.createAgent();
+    void testCollisionAvoidanceWithTwoObstacles() {
         final Pos movingAgentPos = new PosImpl(0, 0);
         final DirectionVector movingAgentDir = new DirectionVectorImpl(1.0, 0.0);
-        final Integer radius = 3;
         final Integer angle = 90;
+        final State state = stateWith(movingAgentPos, new PosImpl(1, 0), new PosImpl(1, 1));
 
-        final Agent obstacleAgent = b.createAgent();
-        final Pos obstaclePos = new PosImpl(1, 0);
-        final Agent obstacleAgent2 = b.createAgent();
-        final Pos obstaclePos2 = new PosImpl(1, 1);
-
-        // CREATE STATE
-        final State state = new StateImpl(10, 10);
-        state.addAgent(movingAgentPos, movingAgent);
-        state.addAgent(obstaclePos, obstacleAgent);
-        state.addAgent(obstaclePos2, obstacleAgent2);
-        // TEST NOT VIEWED
-
-        final Method method = Class.forName(BOIDSFACTORY)
-                .getDeclaredMethod(COLL, State.class, Pos.class, DirectionVector.class,
-                        Integer.class,
-                        Integer.class);
-        method.setAccessible(true);
-        final DirectionVector newDir = (DirectionVectorImpl) method.invoke(
-                b, state, movingAgentPos, movingAgentDir,
-                radius,
-                angle);
+        final DirectionVector newDir = collision(b.steer(state, movingAgentPos, movingAgentDir, RADIUS, angle));
         // CHECKSTYLE: MagicNumber OFF sono i risultati attesi
         final DirectionVector expectedDir = new DirectionVectorImpl(-2.0, -1.0);
         // CHECKSTYLE: MagicNumber ON
@@ -126,122 +79,83 @@ class TestBoids {
     }
 
     @Test
-    void testDirectionCenterCohesion()
-            throws NoSuchMethodException, SecurityException, ClassNotFoundException,
-            IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-        final BoidsAgentFactory b = new BoidsAgentFactory();
-        final Agent movingAgent = b.createAgent();
+    void testDirectionCenterCohesion() {
         final Pos movingAgentPos = new PosImpl(0, 0);
         final DirectionVector movingAgentDir = new DirectionVectorImpl(1.0, 0.0);
-        final Integer radius = 3;
         final Integer angle = 90;
+        final State state = stateWith(movingAgentPos, new PosImpl(0, 1), new PosImpl(2, 1));
 
-        final Agent obstacleAgent = b.createAgent();
-        final Pos obstaclePos = new PosImpl(0, 1);
-        final Agent obstacleAgent2 = b.createAgent();
-        final Pos obstaclePos2 = new PosImpl(2, 1);
-
-        // CREATE STATE
-        final State state = new StateImpl(10, 10);
-        state.addAgent(movingAgentPos, movingAgent);
-        state.addAgent(obstaclePos, obstacleAgent);
-        state.addAgent(obstaclePos2, obstacleAgent2);
-        // TEST NOT VIEWED
-
-        final Method method = Class.forName(BOIDSFACTORY)
-                .getDeclaredMethod("centerCohesion", State.class, Pos.class, DirectionVector.class,
-                        Integer.class,
-                        Integer.class);
-
-        method.setAccessible(true);
-        final DirectionVector newDir = (DirectionVectorImpl) method.invoke(
-                b, state, movingAgentPos, movingAgentDir,
-                radius, angle);
+        final DirectionVector newDir = cohesion(b.steer(state, movingAgentPos, movingAgentDir, RADIUS, angle));
         final DirectionVector expectedDir = new DirectionVectorImpl(1, 1);
         assertEquals(newDir, expectedDir.getNormalized());
     }
 
     @Test
-    void testDirectionCenterCohesionRemainingStill()
-            throws NoSuchMethodException, SecurityException, ClassNotFoundException,
-            IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-        final BoidsAgentFactory b = new BoidsAgentFactory();
-        final Agent movingAgent = b.createAgent();
+    void testDirectionCenterCohesionRemainingStill() {
         final Pos movingAgentPos = new PosImpl(1, 1);
         final DirectionVector movingAgentDir = new DirectionVectorImpl(1.0, 0.0);
-        final Integer radius = 3;
         final Integer angle = 180;
+        final State state = stateWith(movingAgentPos,
+                new PosImpl(0, 0), new PosImpl(2, 0), new PosImpl(0, 2), new PosImpl(2, 2));
 
-        final Agent obstacleAgent = b.createAgent();
-        final Pos obstaclePos = new PosImpl(0, 0);
-        final Agent obstacleAgent2 = b.createAgent();
-        final Pos obstaclePos2 = new PosImpl(2, 0);
-        final Agent obstacleAgent3 = b.createAgent();
-        final Pos obstaclePos3 = new PosImpl(0, 2);
-        final Agent obstacleAgent4 = b.createAgent();
-        final Pos obstaclePos4 = new PosImpl(2, 2);
-
-        // CREATE STATE
-        final State state = new StateImpl(10, 10);
-        state.addAgent(movingAgentPos, movingAgent);
-        state.addAgent(obstaclePos, obstacleAgent);
-        state.addAgent(obstaclePos2, obstacleAgent2);
-        state.addAgent(obstaclePos3, obstacleAgent3);
-        state.addAgent(obstaclePos4, obstacleAgent4);
-        // TEST NOT VIEWED
-
-        final Method method = Class.forName(BOIDSFACTORY)
-                .getDeclaredMethod(COLL, State.class, Pos.class, DirectionVector.class,
-                        Integer.class,
-                        Integer.class);
-
-        method.setAccessible(true);
-        final DirectionVector newDir = (DirectionVectorImpl) method.invoke(
-                b, state, movingAgentPos, movingAgentDir,
-                radius, angle);
+        final DirectionVector newDir = collision(b.steer(state, movingAgentPos, movingAgentDir, RADIUS, angle));
         final DirectionVector expectedDir = new DirectionVectorImpl(0, 0);
         assertEquals(newDir, expectedDir.getNormalized());
     }
 
+    /**
+     * A boid that finds its cell taken should move to a free cell in front of
+     * it, widening the search, and stay still if the board is full.
+     */
+    @Test
+    void testMoveToFreeCellInFront() {
+        // CHECKSTYLE: MagicNumber OFF la scacchiera è piena davanti al boid
+        final Pos movingAgentPos = new PosImpl(5, 5);
+        final State state = stateWith(movingAgentPos);
+        for (int x = 6; x <= 8; x++) {
+            for (int y = 3; y <= 7; y++) {
+                state.addAgent(new PosImpl(x, y), b.createAgent());
+            }
+        }
+        BoidsAgentFactory.move(state, movingAgentPos, new DirectionVectorImpl(1.0, 0.0), 1);
+        assertTrue(state.isFree(movingAgentPos));
+        final Pos newPos = state.getAgents().stream()
+                .map(Pair::getFirst)
+                .filter(p -> p.getX() < 6 || p.getX() > 8 || p.getY() < 3 || p.getY() > 7)
+                .findAny().get();
+        // le celle libere dietro al boid sono più vicine, ma non vanno scelte
+        assertTrue(newPos.getX() >= 6);
+
+        final State full = stateWith(movingAgentPos);
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                if (x != 5 || y != 5) {
+                    full.addAgent(new PosImpl(x, y), b.createAgent());
+                }
+            }
+        }
+        BoidsAgentFactory.move(full, movingAgentPos, new DirectionVectorImpl(1.0, 0.0), 1);
+        assertFalse(full.isFree(movingAgentPos));
+        // CHECKSTYLE: MagicNumber ON
+    }
+
     @Test
-    void testDirectionDirectionAligment()
-            throws NoSuchMethodException, SecurityException, ClassNotFoundException,
-            IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-        final BoidsAgentFactory b = new BoidsAgentFactory();
-        final Agent movingAgent = b.createAgent();
+    void testDirectionDirectionAligment() {
         final Pos movingAgentPos = new PosImpl(0, 0);
-        final Integer radius = 3;
         // CHECKSTYLE: MagicNumber OFF angolo per testare, in base a questo valore si
         // calcola la direzione
         final Integer angle = 30;
-        // CHECKSTYLE: MagicNumber OFF just the dimension of the state, not important
-
+        // CHECKSTYLE: MagicNumber ON
         final DirectionVector movinAgentDir = new DirectionVectorImpl(-1.0, 0.0);
         final DirectionVector obstacleAgentsDir = new DirectionVectorImpl(1.0, 0.0);
-        final Agent obstacleAgent = b.createAgent();
-        obstacleAgent.setParameter("direction", obstacleAgentsDir);
-        final Pos obstaclePos = new PosImpl(0, 1);
-        final Agent obstacleAgent2 = b.createAgent();
-        final Pos obstaclePos2 = new PosImpl(2, 1);
-        obstacleAgent2.setParameter("direction", obstacleAgentsDir);
-
-        // CREATE STATE
-        final State state = new StateImpl(10, 10);
-        state.addAgent(movingAgentPos, movingAgent);
-        state.addAgent(obstaclePos, obstacleAgent);
-        state.addAgent(obstaclePos2, obstacleAgent2);
-        // TEST NOT VIEWED
+        final State state = stateWith(movingAgentPos, new PosImpl(0, 1), new PosImpl(2, 1));
+        state.getAgentAt(new PosImpl(0, 1)).get().setParameter("direction", obstacleAgentsDir);
+        state.getAgentAt(new PosImpl(2, 1)).get().setParameter("direction", obstacleAgentsDir);
 
-        final Method method = Class.forName(BOIDSFACTORY)
-                .getDeclaredMethod(COLL, State.class, Pos.class, DirectionVector.class,
-                        Integer.class,
-                        Integer.class);
-
-        method.setAccessible(true);
-        final DirectionVector newDir = (DirectionVectorImpl) method.invoke(
-                b, state, movingAgentPos, movinAgentDir,
-                radius, angle);
+        // nessun boid nel cono, si tiene la direzione attuale
+        final DirectionVector newDir = alignment(b.steer(state, movingAgentPos, movinAgentDir, RADIUS, angle));
         assertEquals(newDir, movinAgentDir.getNormalized());
-
+        assertEquals(collision(b.steer(state, movingAgentPos, movinAgentDir, RADIUS, angle)),
+                movinAgentDir.getNormalized());
     }
 }
@@ -1,5 +1,7 @@
 package it.unibo.ares.core.agent;
 
+import it.unibo.ares.core.model.FireSpreadModelFactory;
+import it.unibo.ares.core.model.Model;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.pos.PosImpl;
 import it.unibo.ares.core.utils.state.State;
@@ -192,4 +194,44 @@ class TestFireSpread {
         final Boolean tree1 = "T".equals(state.getAgentAt(pos4).get().getType());
         assertTrue(fire1 && fire2 && tree1);
     }
+
+    /**
+     * Runs the whole model, the fire must burn out and the number of agents
+     * must stay the same: trees only become fires and fires only become
+     * extinguished agents.
+     */
+    @Test
+    void testFireSpreadModel() {
+        final Model model = new FireSpreadModelFactory().getModel();
+        // CHECKSTYLE: MagicNumber OFF
+        model.setParameter(Model.SIZEKEY, 20);
+        model.setParameter("numFire", 3);
+        model.setParameter("vegetation", 0.8);
+        State state = model.initilize();
+        state.getAgents().forEach(p -> {
+            if (FireAgentFactory.FIRE.equals(p.getSecond().getType())) {
+                p.getSecond().setParameter(FUEL, 1.0);
+                p.getSecond().setParameter(SPREAD, 2);
+                p.getSecond().setParameter(CONS, 0.3);
+            } else {
+                p.getSecond().setParameter(FUEL, 0.6);
+                p.getSecond().setParameter(FLAMM, 0.2);
+            }
+        });
+        final int agents = state.getAgents().size();
+        int trees = state.countAgentsByType("T");
+        int ticks = 0;
+        State old;
+        do {
+            old = state;
+            state = model.tick(state);
+            assertEquals(agents, state.getAgents().size());
+            assertTrue(state.countAgentsByType("T") <= trees);
+            trees = state.countAgentsByType("T");
+            ticks++;
+        } while (!model.isOver(old, state) && ticks < 1000);
+        assertEquals(0, state.countAgentsByType(FireAgentFactory.FIRE));
+        assertEquals(agents, trees + state.countAgentsByType("E"));
+        // CHECKSTYLE: MagicNumber ON
+    }
 }
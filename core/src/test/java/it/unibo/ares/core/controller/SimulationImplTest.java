@@ -0,0 +1,86 @@
+package it.unibo.ares.core.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ares.core.model.BoidsModelFactory;
+import it.unibo.ares.core.model.Model;
+import it.unibo.ares.core.model.SimpleModelFactory;
+import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+
+/**
+ * Unit test for the fast-forward of {@link SimulationImpl}.
+ */
+class SimulationImplTest {
+    // CHECKSTYLE: MagicNumber OFF
+
+    private static Simulation getSimulation(final int size) {
+        final Model model = new SimpleModelFactory().getModel();
+        model.setParameter(Model.SIZEKEY, size);
+        return new SimulationImpl(model.initilize(), model, 1000);
+    }
+
+    /**
+     * Advancing a simulation sends only the sampled statistics and the last
+     * frame.
+     */
+    @Test
+    void testAdvance() {
+        final Simulation simulation = getSimulation(10);
+        final List<SimulationOutputData> frames = new ArrayList<>();
+        assertFalse(simulation.advance("id", 7, 3, frames::add));
+        assertEquals(3, frames.size());
+        assertTrue(frames.get(0).getData().isEmpty());
+        assertTrue(frames.get(1).getData().isEmpty());
+        assertEquals("id", frames.get(2).getSimulationId());
+        assertEquals(List.of(new PosImpl(7, 7)), List.copyOf(frames.get(2).getData().keySet()));
+        assertFalse(frames.get(2).isFinished());
+    }
+
+    /**
+     * The simple model is over when its agent goes back to the origin.
+     */
+    @Test
+    void testRunToCompletion() {
+        final Simulation simulation = getSimulation(10);
+        final List<SimulationOutputData> frames = new ArrayList<>();
+        assertTrue(simulation.advance("id", Long.MAX_VALUE, 0, frames::add));
+        assertEquals(1, frames.size());
+        assertTrue(frames.get(0).isFinished());
+        assertTrue(simulation.getState().isOccupied(new PosImpl(0, 0)));
+    }
+
+    /**
+     * A running simulation is ticked by the ticker, so it cannot be advanced.
+     */
+    @Test
+    void testAdvanceRunning() {
+        final Simulation simulation = getSimulation(10);
+        simulation.start();
+        assertThrows(IllegalStateException.class, () -> simulation.advance("id", 1, 0, f -> { }));
+        simulation.pause();
+        assertThrows(IllegalArgumentException.class, () -> simulation.advance("id", -1, 0, f -> { }));
+    }
+    /**
+     * A model that never ends cannot be run to completion, it would block the
+     * caller forever.
+     */
+    @Test
+    void testRunEndlessToCompletion() {
+        final Model boids = new BoidsModelFactory().getModel();
+        assertFalse(boids.canBeOver());
+        assertTrue(new SimpleModelFactory().getModel().canBeOver());
+        final SimulationsControllerImpl controller = new SimulationsControllerImpl();
+        controller.addSimulation("boids", new SimulationImpl(new DenseStateImpl(5, 5), boids, 1000));
+        assertThrows(IllegalArgumentException.class, () -> controller.runSimulationToCompletion("boids", 0));
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
@@ -0,0 +1,52 @@
+package it.unibo.ares.core.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.agent.SimpleAgentFactory;
+import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.UniquePositionGetter;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.State;
+
+/**
+ * Unit test for {@link ParallelPopulator}.
+ */
+class ParallelPopulatorTest {
+    // CHECKSTYLE: MagicNumber OFF
+
+    /**
+     * A population large enough to be built in parallel must be placed whole,
+     * each agent in its own cell.
+     */
+    @Test
+    void testPopulate() {
+        final SimpleAgentFactory factory = new SimpleAgentFactory();
+        final State state = new DenseStateImpl(120, 100);
+        final UniquePositionGetter getter = new UniquePositionGetter(120, 100);
+        ParallelPopulator.populate(state, getter, 10_000, i -> {
+            final Agent agent = factory.createAgent();
+            agent.setType(i % 4 == 0 ? "A" : "B");
+            return agent;
+        });
+        ParallelPopulator.populate(state, getter, 10, i -> {
+            final Agent agent = factory.createAgent();
+            agent.setType("C");
+            return agent;
+        });
+        assertEquals(10_010, state.getAgents().size());
+        assertEquals(10_010, state.getAgents().stream().map(Pair::getSecond).collect(Collectors.toSet()).size());
+        assertEquals(2500, state.countAgentsByType("A"));
+        assertEquals(7500, state.countAgentsByType("B"));
+        assertEquals(10, state.countAgentsByType("C"));
+        assertEquals(1990, state.countFreeCells());
+        assertThrows(IllegalArgumentException.class,
+                () -> ParallelPopulator.populate(state, getter, -1, i -> factory.createAgent()));
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
@@ -0,0 +1,372 @@
+package it.unibo.ares.core.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.agent.BoidsAgentFactory;
+import it.unibo.ares.core.agent.SimpleAgentFactory;
+import it.unibo.ares.core.utils.Pair;
+import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
+import it.unibo.ares.core.utils.lambda.SerializableBiFunction;
+import it.unibo.ares.core.utils.parameters.Parameters;
+import it.unibo.ares.core.utils.parameters.ParametersImpl;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.BufferedState;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.State;
+
+/**
+ * Unit test for the {@link TickEngine} implementations.
+ */
+class TickEngineTest {
+    // CHECKSTYLE: MagicNumber OFF
+
+    /**
+     * A minimal agent with the specified strategy.
+     */
+    private static final class TestAgent implements Agent {
+        private static final long serialVersionUID = 1L;
+        private static final AtomicLong IDS = new AtomicLong();
+        private final long id = IDS.getAndIncrement();
+        private final Parameters parameters = new ParametersImpl();
+        private final SerializableBiFunction<State, Pos, State> strategy;
+        private String type;
+
+        TestAgent(final String type, final SerializableBiFunction<State, Pos, State> strategy) {
+            this.type = type;
+            this.strategy = strategy;
+        }
+
+        @Override
+        public State tick(final State state, final Pos pos) {
+            return strategy.apply(state, pos);
+        }
+
+        @Override
+        public Parameters getParameters() {
+            return parameters;
+        }
+
+        @Override
+        public <T extends Serializable> void setParameter(final String key, final T value) {
+            parameters.setParameter(key, value);
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public void setType(final String type) {
+            this.type = type;
+        }
+    }
+
+    private static State tick(final TickEngine engine, final State state) {
+        final State next = state.copy();
+        engine.tick(state, next, state.getAgents().stream().map(Pair::getFirst).collect(Collectors.toSet()));
+        return next;
+    }
+
+    private static Agent walker(final String type, final long seed) {
+        final Random random = new Random(seed);
+        return new TestAgent(type, (state, pos) -> {
+            final List<Pos> free = state.getPosByPosAndRadius(pos, 1).stream()
+                    .filter(state::isFree)
+                    .sorted((a, b) -> a.getX() == b.getX() ? a.getY() - b.getY() : a.getX() - b.getX())
+                    .toList();
+            if (!free.isEmpty()) {
+                state.moveAgent(pos, free.get(random.nextInt(free.size())));
+            }
+            return state;
+        });
+    }
+
+    /**
+     * Agents that don't interact must end up in the same cells with both the
+     * engines.
+     */
+    @Test
+    void testSameResultWithoutConflicts() {
+        final SimpleAgentFactory factory = new SimpleAgentFactory();
+        State sequential = new DenseStateImpl(60, 60);
+        for (int x = 0; x < 60; x += 3) {
+            for (int y = 0; y < 60; y += 3) {
+                sequential.addAgent(new PosImpl(x, y), factory.createAgent());
+            }
+        }
+        State parallel = sequential.copy();
+        final TickEngine engine = new ParallelTickEngine(8, 4);
+        for (int i = 0; i < 5; i++) {
+            sequential = tick(new SequentialTickEngine(), sequential);
+            parallel = tick(engine, parallel);
+            assertEquals(sequential.getAgents(), parallel.getAgents());
+        }
+    }
+
+    /**
+     * When two tiles claim the same cell the first tile in row-major order
+     * wins and the other one loses its changes on that cell.
+     */
+    @Test
+    void testConflicts() {
+        final Pos target = new PosImpl(4, 0);
+        final Pos moveTarget = new PosImpl(4, 8);
+        final State state = new DenseStateImpl(10, 10);
+        for (final Pos pos : List.of(new PosImpl(8, 0), new PosImpl(0, 0), new PosImpl(0, 4))) {
+            state.addAgent(pos, new TestAgent("S", (s, p) -> {
+                s.addAgent(target, new TestAgent("C" + p.getX() + p.getY(), (t, q) -> t));
+                return s;
+            }));
+        }
+        for (final Pos pos : List.of(new PosImpl(0, 8), new PosImpl(8, 8))) {
+            state.addAgent(pos, new TestAgent("M", (s, p) -> {
+                s.moveAgent(p, moveTarget);
+                return s;
+            }));
+        }
+        final State next = tick(new ParallelTickEngine(2, 4), state);
+        assertEquals("C00", next.getAgentAt(target).get().getType());
+        assertEquals(1, next.getPosByType("C00").size() + next.getPosByType("C80").size()
+                + next.getPosByType("C04").size());
+        assertEquals(state.getAgentAt(new PosImpl(0, 8)), next.getAgentAt(moveTarget));
+        assertTrue(next.isOccupied(new PosImpl(8, 8)));
+        assertEquals(6, next.getAgents().size());
+    }
+
+    /**
+     * Random walkers must be conserved by both the engines.
+     */
+    @Test
+    void testSameAggregateBehaviour() {
+        final Random random = new Random(3);
+        final State initial = new DenseStateImpl(40, 40);
+        for (int i = 0; i < 300; i++) {
+            final Pos pos = new PosImpl(random.nextInt(40), random.nextInt(40));
+            if (initial.isFree(pos)) {
+                initial.addAgent(pos, walker(i % 3 == 0 ? "A" : "B", i));
+            }
+        }
+        final Set<Agent> agents = initial.getAgents().stream().map(Pair::getSecond).collect(Collectors.toSet());
+        final int typeA = initial.countAgentsByType("A");
+        for (final TickEngine engine : List.of(new SequentialTickEngine(), new ParallelTickEngine(5, 4))) {
+            State state = initial;
+            for (int i = 0; i < 20; i++) {
+                state = tick(engine, state);
+                assertEquals(agents, state.getAgents().stream().map(Pair::getSecond).collect(Collectors.toSet()));
+                assertEquals(agents.size(), state.getAgents().size());
+                assertEquals(typeA, state.countAgentsByType("A"));
+                assertEquals(agents.size() - typeA, state.countAgentsByType("B"));
+            }
+            assertNotEquals(initial.getAgents(), state.getAgents());
+        }
+    }
+
+    /**
+     * With the synchronous engine every agent reads the previous state, so a
+     * row of agents that move right when the next cell is free moves only its
+     * first agent, whatever the order of the agents.
+     */
+    @Test
+    void testSynchronous() {
+        final State state = new DenseStateImpl(10, 3);
+        for (int x = 0; x < 5; x++) {
+            state.addAgent(new PosImpl(x, 1), new TestAgent("R", (s, p) -> {
+                final Pos right = new PosImpl(p.getX() + 1, p.getY());
+                if (s.isFree(right)) {
+                    s.moveAgent(p, right);
+                }
+                return s;
+            }));
+        }
+        // due agenti che vogliono la stessa cella, solo uno la ottiene
+        for (final Pos pos : List.of(new PosImpl(7, 0), new PosImpl(7, 2))) {
+            state.addAgent(pos, new TestAgent("M", (s, p) -> {
+                s.moveAgent(p, new PosImpl(7, 1));
+                return s;
+            }));
+        }
+        for (final TickEngine engine : List.of(new SynchronousTickEngine(), new SynchronousTickEngine(4))) {
+            final State next = tick(engine, state);
+            assertEquals(Set.of(new PosImpl(0, 1), new PosImpl(1, 1), new PosImpl(2, 1), new PosImpl(3, 1),
+                    new PosImpl(5, 1)), next.getPosByType("R"));
+            assertEquals(2, next.countAgentsByType("M"));
+            assertTrue(next.isOccupied(new PosImpl(7, 1)));
+            assertTrue(state.isFree(new PosImpl(7, 1)));
+            assertEquals(state.getAgents().size(), next.getAgents().size());
+        }
+    }
+
+    /**
+     * The models that let the user choose the engine should tick sequentially
+     * unless the parameter selects another engine.
+     */
+    @Test
+    void testSelectableEngine() {
+        final List<Boolean> buffered = new ArrayList<>();
+        final Model model = new ModelBuilderImpl()
+                .addExitFunction((o, n) -> false)
+                .addStateFactory(DenseStateImpl::new)
+                .addSelectableTickEngine()
+                .addInitFunction((p, states) -> {
+                    final State state = states.create(3, 1);
+                    state.addAgent(new PosImpl(0, 0), new TestAgent("T", (s, pos) -> {
+                        buffered.add(s instanceof BufferedState);
+                        return s;
+                    }));
+                    return state;
+                })
+                .build();
+        final State state = model.initilize();
+        model.tick(state);
+        model.setParameter(TickEngines.KEY, TickEngines.SYNCHRONOUS);
+        model.tick(state);
+        model.setParameter(TickEngines.KEY, TickEngines.PARALLEL);
+        model.tick(state);
+        assertEquals(List.of(false, true, true), buffered);
+        assertThrows(IllegalArgumentException.class, () -> model.setParameter(TickEngines.KEY, "nessuno"));
+        for (final ModelFactory factory : List.of(new SchellingModelFactory(), new VirusModelFactory(),
+                new FireSpreadModelFactory(), new PredatorPreyModelFactory(), new SugarscapeModelFactory())) {
+            assertEquals(TickEngines.SEQUENTIAL, factory.getModel().getParameters()
+                    .getParameter(TickEngines.KEY, String.class).get().getValue());
+        }
+    }
+
+    private static List<Pos> flock(final State state, final long seed, final int count) {
+        final Random random = new Random(seed);
+        final BoidsAgentFactory factory = new BoidsAgentFactory();
+        final List<Pos> positions = new ArrayList<>();
+        while (positions.size() < count) {
+            final Pos pos = new PosImpl(random.nextInt(state.getDimensions().getFirst()),
+                    random.nextInt(state.getDimensions().getSecond()));
+            final Agent boid = factory.createAgent();
+            boid.setType("B");
+            boid.setParameter("distance", random.nextInt(1, 8));
+            boid.setParameter("angle", random.nextInt(1, 181));
+            boid.setParameter("direction", new DirectionVectorImpl(random.nextDouble(-1, 1), random.nextDouble(-1, 1)));
+            boid.setParameter("collisionAvoidanceWeight", random.nextDouble());
+            boid.setParameter("alignmentWeight", random.nextDouble());
+            boid.setParameter("cohesionWeight", random.nextDouble());
+            boid.setParameter("stepSize", random.nextInt(1, 4));
+            if (state.isFree(pos)) {
+                state.addAgent(pos, boid);
+                positions.add(pos);
+            }
+        }
+        return positions;
+    }
+
+    private static Serializable direction(final State state, final Pos pos) {
+        return state.getAgentAt(pos).get().getParameters().getParameter("direction").get().getValue();
+    }
+
+    /**
+     * The flock engine should give every boid the same direction that the boid
+     * computes by itself on the previous state.
+     */
+    @Test
+    void testBoidsEngineDirections() {
+        final State state = new DenseStateImpl(30, 30);
+        final List<Pos> positions = flock(state, 17, 300);
+        final State next = state.copy();
+        new BoidsTickEngine(1).tick(state, next, Set.copyOf(positions));
+        for (int i = 0; i < positions.size(); i++) {
+            final State alone = new DenseStateImpl(30, 30);
+            flock(alone, 17, 300);
+            final Agent boid = alone.getAgentAt(positions.get(i)).get();
+            boid.tick(alone, positions.get(i));
+            assertEquals(boid.getParameters().getParameter("direction").get().getValue(),
+                    direction(state, positions.get(i)));
+        }
+    }
+
+    /**
+     * The boids that are not ticked should still be seen by the ones that are,
+     * with their own direction.
+     */
+    @Test
+    void testBoidsEnginePartialFlock() {
+        final State state = new DenseStateImpl(20, 20);
+        final List<Pos> positions = flock(state, 29, 120);
+        final List<Pos> active = positions.subList(0, positions.size() / 2);
+        final State next = state.copy();
+        new BoidsTickEngine(2).tick(state, next, Set.copyOf(active));
+        for (final Pos pos : active) {
+            final State alone = new DenseStateImpl(20, 20);
+            flock(alone, 29, 120);
+            final Agent boid = alone.getAgentAt(pos).get();
+            boid.tick(alone, pos);
+            assertEquals(boid.getParameters().getParameter("direction").get().getValue(), direction(state, pos));
+        }
+    }
+
+    /**
+     * The result of the flock engine should not depend on the number of
+     * threads.
+     */
+    @Test
+    void testBoidsEngineThreads() {
+        final State sequential = new DenseStateImpl(100, 100);
+        final List<Pos> positions = flock(sequential, 23, 3000);
+        final State parallel = new DenseStateImpl(100, 100);
+        flock(parallel, 23, 3000);
+        // lo stesso insieme, così gli stormi hanno lo stesso ordine
+        final Set<Pos> active = Set.copyOf(positions);
+        final State first = sequential.copy();
+        new BoidsTickEngine(1).tick(sequential, first, active);
+        final State second = parallel.copy();
+        new BoidsTickEngine(4).tick(parallel, second, active);
+        for (final Pos pos : positions) {
+            assertEquals(direction(sequential, pos), direction(parallel, pos));
+        }
+        assertEquals(first.getPosByType("B"), second.getPosByType("B"));
+        assertEquals(3000, second.countAgentsByType("B"));
+        assertNotEquals(parallel.getPosByType("B"), second.getPosByType("B"));
+    }
+
+    /**
+     * An engine that reuses its flock should tick like a new one, also when
+     * the flock shrinks, grows or moves to a board of another size.
+     */
+    @Test
+    void testBoidsEngineReused() {
+        final TickEngine reused = new BoidsTickEngine(2);
+        for (final int[] run : List.of(new int[] {40, 800}, new int[] {40, 200}, new int[] {40, 1200},
+                new int[] {25, 300}, new int[] {25, 300})) {
+            final State first = new DenseStateImpl(run[0], run[0]);
+            flock(first, run[1], run[1]);
+            final State second = new DenseStateImpl(run[0], run[0]);
+            final List<Pos> positions = flock(second, run[1], run[1]);
+            final Set<Pos> active = Set.copyOf(positions);
+            final State fresh = first.copy();
+            new BoidsTickEngine(2).tick(first, fresh, active);
+            final State ticked = second.copy();
+            reused.tick(second, ticked, active);
+            for (final Pos pos : positions) {
+                assertEquals(direction(first, pos), direction(second, pos));
+            }
+            assertEquals(fresh.getPosByType("B"), ticked.getPosByType("B"));
+        }
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
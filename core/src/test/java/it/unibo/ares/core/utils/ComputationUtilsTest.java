@@ -2,8 +2,10 @@ package it.unibo.ares.core.utils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -15,6 +17,7 @@ import it.unibo.ares.core.utils.directionvector.DirectionVector;
 import it.unibo.ares.core.utils.directionvector.DirectionVectorImpl;
 import it.unibo.ares.core.utils.pos.Pos;
 import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.StateImpl;
 
 class ComputationUtilsTest {
     @Test
@@ -51,6 +54,85 @@ class ComputationUtilsTest {
         }
     }
 
+    /*
+     * The close cells must be the ones found by looking for the cells in the
+     * radius on a board that ends at the border of the visual in the direction.
+     */
+    @Test
+    void testComputeCloseCells() {
+        final Random random = new Random(7);
+        // CHECKSTYLE: MagicNumber OFF posizioni e direzioni casuali su una griglia piccola
+        for (int i = 0; i < 500; i++) {
+            final Pos pos = new PosImpl(random.nextInt(10), random.nextInt(10));
+            final DirectionVector dir = new DirectionVectorImpl(random.nextInt(-5, 6), random.nextInt(-5, 6));
+            final int distance = random.nextInt(1, 5);
+            final int angle = random.nextBoolean() ? 360 : random.nextInt(30, 180);
+            final int xSign = dir.getX() > 0 ? 1 : -1;
+            final int ySign = dir.getY() > 0 ? 1 : -1;
+            final Set<Pos> expected = new StateImpl(
+                    Math.abs(pos.getX() + xSign * (distance + 1)),
+                    Math.abs(pos.getY() + ySign * (distance + 1)))
+                    .getPosByPosAndRadius(pos, distance).stream()
+                    .filter(p -> ComputationUtils.insideCone(p, pos, dir, distance, angle))
+                    .collect(Collectors.toSet());
+            assertEquals(expected, ComputationUtils.computeCloseCells(pos, dir, distance, angle));
+        }
+        // CHECKSTYLE: MagicNumber ON
+    }
+
+    /*
+     * The cells of a cone must be the same computed cell by cell, whatever the
+     * direction, up to the cells on the border of the cone for the directions
+     * that are quantized; the shape of a cone must be computed only once.
+     */
+    @Test
+    void testCloseCellsOfQuantizedDirections() {
+        final Random random = new Random(11);
+        // CHECKSTYLE: MagicNumber OFF direzioni casuali non intere
+        for (int i = 0; i < 200; i++) {
+            final Pos pos = new PosImpl(random.nextInt(5, 10), random.nextInt(5, 10));
+            final DirectionVector dir = new DirectionVectorImpl(random.nextDouble(-1, 1), random.nextDouble(-1, 1));
+            final int distance = random.nextInt(1, 5);
+            final int angle = random.nextInt(30, 180);
+            final int[] cells = ComputationUtils.closeCells(pos, dir, distance, angle);
+            final Set<Pos> found = IntStream.range(0, cells.length / 2)
+                    .mapToObj(c -> new PosImpl(cells[2 * c], cells[2 * c + 1]))
+                    .collect(Collectors.toSet());
+            assertEquals(ComputationUtils.computeCloseCells(pos, dir, distance, angle), found);
+            final double margin = 0.01;
+            for (final Pos p : found) {
+                assertTrue(ComputationUtils.insideCone(p, pos, dir, distance, (int) Math.ceil(angle + margin)));
+            }
+            assertSame(ConeOffsets.of(dir, distance, angle), ConeOffsets.of(dir, distance, angle));
+        }
+        // CHECKSTYLE: MagicNumber ON
+    }
+
+    /**
+     * A view cone should contain exactly the close cells of the observer.
+     */
+    @Test
+    void testViewCone() {
+        final Random random = new Random(13);
+        // CHECKSTYLE: MagicNumber OFF posizioni e direzioni casuali
+        for (int i = 0; i < 200; i++) {
+            final Pos pos = new PosImpl(random.nextInt(0, 12), random.nextInt(0, 12));
+            final DirectionVector dir = i % 2 == 0
+                    ? new DirectionVectorImpl(random.nextInt(-3, 4), random.nextInt(-3, 4))
+                    : new DirectionVectorImpl(random.nextDouble(-1, 1), random.nextDouble(-1, 1));
+            final int distance = random.nextInt(1, 6);
+            final int angle = random.nextInt(10, 181);
+            final Set<Pos> cells = ComputationUtils.computeCloseCells(pos, dir, distance, angle);
+            final ViewCone cone = ComputationUtils.viewCone(pos, dir, distance, angle);
+            for (int x = -2; x < 20; x++) {
+                for (int y = -2; y < 20; y++) {
+                    assertEquals(cells.contains(new PosImpl(x, y)), cone.contains(x, y));
+                }
+            }
+        }
+        // CHECKSTYLE: MagicNumber ON
+    }
+
     /*
      * This test checks if the move method works as expected.
      * It creates a new agent and then it tries to move it.
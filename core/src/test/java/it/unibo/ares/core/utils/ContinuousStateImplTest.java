@@ -0,0 +1,168 @@
+package it.unibo.ares.core.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.agent.SimpleAgentFactory;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.BufferedState;
+import it.unibo.ares.core.utils.state.ContinuousState;
+import it.unibo.ares.core.utils.state.ContinuousStateImpl;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.State;
+import it.unibo.ares.core.utils.state.StateImpl;
+
+/**
+ * Unit test for {@link ContinuousStateImpl}.
+ */
+class ContinuousStateImplTest {
+    // CHECKSTYLE: MagicNumber OFF
+    private final SimpleAgentFactory factory = new SimpleAgentFactory();
+
+    private static double squaredDistance(final ContinuousState state, final Pos pos, final double x,
+            final double y) {
+        final Pair<Double, Double> point = state.getPoint(pos);
+        final double dx = point.getFirst() - x;
+        final double dy = point.getSecond() - y;
+        return dx * dx + dy * dy;
+    }
+
+    // tutti gli agenti, dal più vicino al più lontano, come le ricerche dello stato
+    private static List<Pos> byDistance(final ContinuousState state, final double x, final double y) {
+        final List<Pos> all = new ArrayList<>(state.getAgents().stream().map(Pair::getFirst).toList());
+        all.sort(Comparator.comparingDouble((Pos pos) -> squaredDistance(state, pos, x, y))
+                .thenComparingInt(Pos::getY).thenComparingInt(Pos::getX));
+        return all;
+    }
+
+    private ContinuousState populate(final ContinuousState state, final Random random, final int count) {
+        final int width = state.getDimensions().getFirst();
+        final int height = state.getDimensions().getSecond();
+        for (int i = 0; i < count; i++) {
+            state.getRandomFreePos(random).ifPresent(pos -> state.addAgent(pos, factory.createAgent()));
+        }
+        for (final Pair<Pos, Agent> agent : state.getAgents()) {
+            state.moveAgent(agent.getFirst(), random.nextDouble(-0.5, width - 0.5),
+                    random.nextDouble(-0.5, height - 0.5));
+        }
+        return state;
+    }
+
+    /**
+     * The agents should move by fractions of a cell, and a move towards a
+     * taken cell should keep the cell of the agent instead of failing.
+     */
+    @Test
+    void testMove() {
+        final ContinuousState state = new ContinuousStateImpl(5, 5);
+        final Agent first = factory.createAgent();
+        final Agent second = factory.createAgent();
+        state.addAgent(new PosImpl(1, 1), first);
+        state.addAgent(new PosImpl(3, 1), second);
+        assertEquals(new Pair<>(1.0, 1.0), state.getPoint(new PosImpl(1, 1)));
+        assertEquals(new PosImpl(1, 1), state.moveAgent(new PosImpl(1, 1), 1.25, 1.25));
+        assertEquals(new Pair<>(1.25, 1.25), state.getPoint(new PosImpl(1, 1)));
+        assertEquals(new PosImpl(2, 1), state.moveAgent(new PosImpl(1, 1), 2.25, 1.0));
+        assertEquals(new PosImpl(2, 1), state.moveAgent(new PosImpl(2, 1), 3.0, 1.25));
+        assertEquals(first, state.getAgentAt(new PosImpl(2, 1)).get());
+        assertEquals(new Pair<>(3.0, 1.25), state.getPoint(new PosImpl(2, 1)));
+        assertEquals(List.of(new PosImpl(3, 1), new PosImpl(2, 1)), state.getAgentsInRange(3, 1, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> state.moveAgent(new PosImpl(2, 1), 4.75, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> state.moveAgent(new PosImpl(0, 0), 1.0, 1.0));
+        state.moveAgent(new PosImpl(3, 1), new PosImpl(3, 3));
+        assertEquals(new Pair<>(3.0, 3.0), state.getPoint(new PosImpl(3, 3)));
+        state.removeAgent(new PosImpl(2, 1), first);
+        assertEquals(List.of(new PosImpl(3, 3)), state.getNearestAgents(0, 0, 2));
+    }
+
+    /**
+     * The range and the nearest neighbors queries should match a scan of all
+     * the agents, also on states of cells with no index.
+     */
+    @Test
+    void testQueries() {
+        final Random random = new Random(7);
+        for (final ContinuousState state : List.of(populate(new ContinuousStateImpl(50, 40), random, 300),
+                populate(new ContinuousStateImpl(new StateImpl(9, 9)), random, 20))) {
+            for (int q = 0; q < 50; q++) {
+                final double x = random.nextDouble(-3, 53);
+                final double y = random.nextDouble(-3, 43);
+                final double radius = random.nextDouble(0, 12);
+                final int count = random.nextInt(0, 25);
+                final List<Pos> all = byDistance(state, x, y);
+                assertEquals(all.stream().filter(pos -> squaredDistance(state, pos, x, y) <= radius * radius)
+                        .toList(), state.getAgentsInRange(x, y, radius));
+                assertEquals(all.subList(0, Math.min(count, all.size())), state.getNearestAgents(x, y, count));
+            }
+        }
+    }
+
+    /**
+     * A copy should not see the moves made after it was taken.
+     */
+    @Test
+    void testCopy() {
+        final ContinuousState state = populate(new ContinuousStateImpl(20, 20), new Random(3), 40);
+        final ContinuousState copy = state.copy().asContinuous().get();
+        final Pos pos = state.getAgents().iterator().next().getFirst();
+        final Pair<Double, Double> point = state.getPoint(pos);
+        final Pos moved = copy.moveAgent(pos, 19.0, 19.0);
+        assertEquals(point, state.getPoint(pos));
+        assertEquals(new Pair<>(19.0, 19.0), copy.getPoint(moved));
+        assertEquals(byDistance(state, 19, 19).subList(0, 5), state.getNearestAgents(19, 19, 5));
+        assertEquals(byDistance(copy, 19, 19).subList(0, 5), copy.getNearestAgents(19, 19, 5));
+    }
+
+    /**
+     * Only the states that keep the precise positions of the agents, and the
+     * views over them, should be continuous.
+     */
+    @Test
+    void testAsContinuous() {
+        final State grid = new DenseStateImpl(3, 3);
+        assertFalse(grid.asContinuous().isPresent());
+        assertFalse(new BufferedState(grid).asContinuous().isPresent());
+        assertTrue(new BufferedState(new ContinuousStateImpl(3, 3)).asContinuous().isPresent());
+    }
+
+    /**
+     * The moves made on a view should be visible to the queries of the view,
+     * and should give the same state once committed.
+     */
+    @Test
+    void testBufferedState() {
+        final Random random = new Random(11);
+        final ContinuousState state = populate(new ContinuousStateImpl(30, 30), random, 120);
+        final ContinuousState expected = state.copy().asContinuous().get();
+        final BufferedState view = new BufferedState(state);
+        final List<Pos> positions = state.getAgents().stream().map(Pair::getFirst).limit(30).toList();
+        for (final Pos pos : positions) {
+            final double x = random.nextDouble(-0.5, 29.5);
+            final double y = random.nextDouble(-0.5, 29.5);
+            assertEquals(expected.moveAgent(pos, x, y), view.moveAgent(pos, x, y));
+        }
+        for (int q = 0; q < 20; q++) {
+            final double x = random.nextDouble(0, 30);
+            final double y = random.nextDouble(0, 30);
+            assertEquals(expected.getAgentsInRange(x, y, 6), view.getAgentsInRange(x, y, 6));
+            assertEquals(expected.getNearestAgents(x, y, 10), view.getNearestAgents(x, y, 10));
+        }
+        view.commit(state);
+        assertEquals(expected.getAgents(), state.getAgents());
+        for (final Pair<Pos, Agent> agent : expected.getAgents()) {
+            assertEquals(expected.getPoint(agent.getFirst()), state.getPoint(agent.getFirst()));
+        }
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
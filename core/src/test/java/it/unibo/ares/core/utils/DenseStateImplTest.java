@@ -0,0 +1,415 @@
+package it.unibo.ares.core.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ares.core.agent.Agent;
+import it.unibo.ares.core.agent.SimpleAgentFactory;
+import it.unibo.ares.core.model.Model;
+import it.unibo.ares.core.model.SchellingModelFactory;
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+import it.unibo.ares.core.utils.state.BufferedState;
+import it.unibo.ares.core.utils.state.DenseStateImpl;
+import it.unibo.ares.core.utils.state.Neighborhood;
+import it.unibo.ares.core.utils.state.State;
+import it.unibo.ares.core.utils.state.StateImpl;
+
+/**
+ * Unit test for {@link DenseStateImpl}.
+ */
+class DenseStateImplTest {
+    // CHECKSTYLE: MagicNumber OFF
+    private final SimpleAgentFactory factory = new SimpleAgentFactory();
+
+    /**
+     * Test the radius functionality, it must match the one of {@link StateImpl}.
+     */
+    @Test
+    void testRadius() {
+        final State state = new DenseStateImpl(5, 5);
+        final State reference = new StateImpl(5, 5);
+        for (int r = 1; r < 5; r++) {
+            assertEquals(reference.getPosByPosAndRadius(new PosImpl(0, 0), r),
+                    state.getPosByPosAndRadius(new PosImpl(0, 0), r));
+            assertEquals(reference.getPosByPosAndRadius(new PosImpl(2, 3), r),
+                    state.getPosByPosAndRadius(new PosImpl(2, 3), r));
+        }
+    }
+
+    /**
+     * Test the neighborhood visitors on both the implementations.
+     */
+    @Test
+    void testVisitors() {
+        for (final State state : List.of(new DenseStateImpl(7, 7), new StateImpl(7, 7))) {
+            state.addAgent(new PosImpl(3, 1), factory.createAgent());
+            state.addAgent(new PosImpl(4, 4), factory.createAgent());
+            state.addAgent(new PosImpl(6, 6), factory.createAgent());
+            final List<Pos> moore = new ArrayList<>();
+            state.forEachPosInRadius(new PosImpl(3, 3), 2, Neighborhood.MOORE,
+                    (x, y, a) -> moore.add(new PosImpl(x, y)));
+            assertEquals(24, moore.size());
+            assertEquals(new PosImpl(1, 1), moore.get(0));
+            final List<Pos> vonNeumann = new ArrayList<>();
+            state.forEachPosInRadius(new PosImpl(3, 3), 2, Neighborhood.VON_NEUMANN,
+                    (x, y, a) -> vonNeumann.add(new PosImpl(x, y)));
+            assertEquals(12, vonNeumann.size());
+            final List<Agent> agents = new ArrayList<>();
+            state.forEachAgentInRadius(new PosImpl(3, 3), 2, Neighborhood.VON_NEUMANN,
+                    (x, y, a) -> agents.add(a));
+            assertEquals(List.of(state.getAgentAt(new PosImpl(3, 1)).get(),
+                    state.getAgentAt(new PosImpl(4, 4)).get()), agents);
+            final List<Pos> corner = new ArrayList<>();
+            state.forEachAgentInRadius(new PosImpl(6, 6), 3, Neighborhood.MOORE,
+                    (x, y, a) -> corner.add(new PosImpl(x, y)));
+            assertEquals(List.of(new PosImpl(4, 4)), corner);
+        }
+    }
+
+    /**
+     * Test adding, moving and removing agents.
+     */
+    @Test
+    void testAgents() {
+        final State state = new DenseStateImpl(4, 3);
+        final Agent a = factory.createAgent();
+        final Agent b = factory.createAgent();
+        final Pos pa = new PosImpl(3, 2);
+        final Pos pb = new PosImpl(0, 1);
+        state.addAgent(pa, a);
+        state.addAgent(pb, b);
+        assertEquals(a, state.getAgentAt(pa).get());
+        assertTrue(state.isOccupied(pb));
+        assertThrows(IllegalArgumentException.class, () -> state.addAgent(pa, b));
+        assertThrows(IllegalArgumentException.class, () -> state.addAgent(new PosImpl(4, 0), b));
+
+        assertThrows(IllegalArgumentException.class, () -> state.moveAgent(pa, pb));
+        assertEquals(a, state.getAgentAt(pa).get());
+        state.moveAgent(pa, new PosImpl(1, 1));
+        assertTrue(state.isFree(pa));
+        assertEquals(a, state.getAgentAt(new PosImpl(1, 1)).get());
+
+        state.removeAgent(pb, b);
+        assertEquals(1, state.getAgents().size());
+        assertThrows(IllegalArgumentException.class, () -> state.removeAgent(pb, b));
+        assertTrue(state.getAgentAt(new PosImpl(-1, 0)).isEmpty());
+    }
+
+    /**
+     * Test that the copy is independent from the original state.
+     */
+    @Test
+    void testCopy() {
+        final State state = new DenseStateImpl(5, 5);
+        state.addAgent(new PosImpl(1, 1), factory.createAgent());
+        final State copy = state.copy();
+        copy.moveAgent(new PosImpl(1, 1), new PosImpl(2, 2));
+        assertTrue(state.isOccupied(new PosImpl(1, 1)));
+        assertFalse(state.isOccupied(new PosImpl(2, 2)));
+        assertTrue(copy.isOccupied(new PosImpl(2, 2)));
+    }
+
+    /**
+     * Copies share their cells until they are changed, a change must never be
+     * visible from the other copies.
+     */
+    @Test
+    void testCopyOnWrite() {
+        final State original = new DenseStateImpl(40, 40);
+        for (int i = 0; i < 40; i++) {
+            original.addAgent(new PosImpl(i, i), factory.createAgent());
+        }
+        final State first = original.copy();
+        final State second = first.copy();
+        first.moveAgent(new PosImpl(0, 0), new PosImpl(39, 0));
+        second.removeAgent(new PosImpl(20, 20), second.getAgentAt(new PosImpl(20, 20)).get());
+        original.addAgent(new PosImpl(0, 39), factory.createAgent());
+
+        assertEquals(41, original.getAgents().size());
+        assertTrue(original.isOccupied(new PosImpl(0, 0)));
+        assertTrue(original.isOccupied(new PosImpl(20, 20)));
+        assertEquals(40, first.getAgents().size());
+        assertTrue(first.isFree(new PosImpl(0, 0)));
+        assertTrue(first.isOccupied(new PosImpl(39, 0)));
+        assertTrue(first.isFree(new PosImpl(0, 39)));
+        assertEquals(39, second.getAgents().size());
+        assertTrue(second.isOccupied(new PosImpl(0, 0)));
+        assertTrue(second.isFree(new PosImpl(20, 20)));
+        assertEquals(original.getAgentAt(new PosImpl(5, 5)), second.getAgentAt(new PosImpl(5, 5)));
+    }
+
+    /**
+     * Random operations must leave the dense state equal to a {@link StateImpl}.
+     */
+    @Test
+    void testSameBehaviourOfStateImpl() {
+        final Random random = new Random(42);
+        final State state = new DenseStateImpl(10, 10);
+        final State reference = new StateImpl(10, 10);
+        for (int i = 0; i < 1000; i++) {
+            final Pos from = new PosImpl(random.nextInt(10), random.nextInt(10));
+            final Pos to = new PosImpl(random.nextInt(10), random.nextInt(10));
+            if (reference.getAgentAt(from).isEmpty()) {
+                final Agent agent = factory.createAgent();
+                agent.setType(random.nextBoolean() ? "A" : "B");
+                state.addAgent(from, agent);
+                reference.addAgent(from, agent);
+            } else if (reference.isFree(to)) {
+                state.moveAgent(from, to);
+                reference.moveAgent(from, to);
+            } else {
+                state.removeAgent(from, reference.getAgentAt(from).get());
+                reference.removeAgent(from, reference.getAgentAt(from).get());
+            }
+            assertEquals(reference.getAgentsByPosAndRadius(to, 2), state.getAgentsByPosAndRadius(to, 2));
+            assertEquals(reference.countAgentsByType("A"), state.countAgentsByType("A"));
+            assertEquals(reference.countFreeCells(), state.countFreeCells());
+            assertEquals(reference.getPosByType("B"), state.getPosByType("B"));
+            assertEquals(reference.getPosByTypeAndRadius(to, i % 10, "A"),
+                    state.getPosByTypeAndRadius(to, i % 10, "A"));
+        }
+        assertEquals(reference.getAgents(), state.getAgents());
+    }
+
+    /**
+     * Test the type index, also on a copy.
+     */
+    @Test
+    void testTypeIndex() {
+        final State state = new DenseStateImpl(20, 20);
+        for (int i = 0; i < 20; i++) {
+            final Agent agent = factory.createAgent();
+            agent.setType(i % 4 == 0 ? "B" : "A");
+            state.addAgent(new PosImpl(i, 0), agent);
+        }
+        assertEquals(15, state.countAgentsByType("A"));
+        assertEquals(5, state.countAgentsByType("B"));
+        assertEquals(0, state.countAgentsByType("C"));
+        assertTrue(state.getPosByType("C").isEmpty());
+
+        final State copy = state.copy();
+        copy.moveAgent(new PosImpl(4, 0), new PosImpl(4, 10));
+        copy.removeAgent(new PosImpl(8, 0), copy.getAgentAt(new PosImpl(8, 0)).get());
+        assertEquals(4, copy.countAgentsByType("B"));
+        assertTrue(copy.getPosByType("B").contains(new PosImpl(4, 10)));
+        assertFalse(copy.getPosByType("B").contains(new PosImpl(4, 0)));
+        assertEquals(5, state.countAgentsByType("B"));
+        assertTrue(state.getPosByType("B").contains(new PosImpl(4, 0)));
+        assertEquals(2, state.getPosByTypeAndRadius(new PosImpl(4, 0), 4, "B").size());
+        assertEquals(1, copy.getPosByTypeAndRadius(new PosImpl(4, 9), 1, "B").size());
+    }
+
+    /**
+     * Test the sampling of the free cells, also on a copy and on a buffered
+     * view.
+     */
+    @Test
+    void testRandomFreePos() {
+        final Random random = new Random(1);
+        for (final State state : List.of(new DenseStateImpl(10, 10), new StateImpl(10, 10))) {
+            for (int x = 0; x < 10; x++) {
+                for (int y = 0; y < 10; y++) {
+                    if (x != 3 || y > 2) {
+                        state.addAgent(new PosImpl(x, y), factory.createAgent());
+                    }
+                }
+            }
+            assertEquals(3, state.countFreeCells());
+            final Set<Pos> drawn = new HashSet<>();
+            for (int i = 0; i < 300; i++) {
+                final Pos pos = state.getRandomFreePos(random).get();
+                assertTrue(state.isFree(pos));
+                drawn.add(pos);
+            }
+            assertEquals(Set.of(new PosImpl(3, 0), new PosImpl(3, 1), new PosImpl(3, 2)), drawn);
+
+            final State copy = state.copy();
+            copy.moveAgent(new PosImpl(9, 9), new PosImpl(3, 0));
+            copy.addAgent(new PosImpl(3, 1), factory.createAgent());
+            copy.addAgent(new PosImpl(3, 2), factory.createAgent());
+            assertEquals(1, copy.countFreeCells());
+            assertEquals(new PosImpl(9, 9), copy.getRandomFreePos(random).get());
+            assertEquals(3, state.countFreeCells());
+
+            final BufferedState view = new BufferedState(copy);
+            view.moveAgent(new PosImpl(0, 0), new PosImpl(9, 9));
+            assertEquals(1, view.countFreeCells());
+            assertEquals(new PosImpl(0, 0), view.getRandomFreePos(random).get());
+            view.addAgent(new PosImpl(0, 0), factory.createAgent());
+            assertTrue(view.getRandomFreePos(random).isEmpty());
+        }
+    }
+
+    /**
+     * The neighbor counts must match the ones of {@link StateImpl} while the
+     * agents move, also on the copies made after the counts were requested and
+     * on a buffered view.
+     */
+    @Test
+    void testNeighborCounts() {
+        final Random random = new Random(5);
+        State state = new DenseStateImpl(12, 9);
+        final State reference = new StateImpl(12, 9);
+        final State first = state;
+        int firstCount = -1;
+        for (int i = 0; i < 1500; i++) {
+            final Pos from = new PosImpl(random.nextInt(12), random.nextInt(9));
+            final Pos to = new PosImpl(random.nextInt(12), random.nextInt(9));
+            if (reference.getAgentAt(from).isEmpty()) {
+                final Agent agent = factory.createAgent();
+                agent.setType(random.nextBoolean() ? "A" : "B");
+                state.addAgent(from, agent);
+                reference.addAgent(from, agent);
+            } else if (reference.isFree(to) && random.nextInt(4) > 0) {
+                state.moveAgent(from, to);
+                reference.moveAgent(from, to);
+            } else {
+                state.removeAgent(from, reference.getAgentAt(from).get());
+                reference.removeAgent(from, reference.getAgentAt(from).get());
+            }
+            final Pos pos = new PosImpl(random.nextInt(-1, 13), random.nextInt(-1, 10));
+            final int radius = List.of(0, 1, 1, 2, 3, 20).get(random.nextInt(6));
+            assertEquals(reference.countAgentsInRadius(pos, radius), state.countAgentsInRadius(pos, radius));
+            assertEquals(reference.getAgentsByPosAndRadius(pos, radius).size(),
+                    state.countAgentsInRadius(pos, radius));
+            for (final String type : List.of("A", "B", "C")) {
+                assertEquals(reference.getPosByTypeAndRadius(pos, radius, type).size(),
+                        state.countAgentsByTypeInRadius(pos, radius, type));
+            }
+            if (i == 200) {
+                firstCount = first.countAgentsInRadius(new PosImpl(5, 5), 2);
+            }
+            if (i % 100 == 0) {
+                state = state.copy();
+            }
+        }
+        assertEquals(firstCount, first.countAgentsInRadius(new PosImpl(5, 5), 2));
+
+        final BufferedState view = new BufferedState(state);
+        final Pos center = new PosImpl(5, 5);
+        final Pos free = view.getPosByPosAndRadius(center, 1).stream().filter(view::isFree).findAny().get();
+        final int before = view.countAgentsByTypeInRadius(center, 1, "C");
+        final Agent agent = factory.createAgent();
+        agent.setType("C");
+        view.addAgent(free, agent);
+        assertEquals(before + 1, view.countAgentsByTypeInRadius(center, 1, "C"));
+        assertEquals(state.countAgentsInRadius(center, 1) + 1, view.countAgentsInRadius(center, 1));
+        view.moveAgent(free, new PosImpl(11, 8).equals(free) ? new PosImpl(0, 0) : new PosImpl(11, 8));
+        assertEquals(before, view.countAgentsByTypeInRadius(center, 1, "C"));
+    }
+
+    /**
+     * Many threads counting on the same state, and building its tables
+     * together, must get the counts of {@link StateImpl}.
+     */
+    @Test
+    void testConcurrentNeighborCounts() {
+        final Random random = new Random(7);
+        final State state = new DenseStateImpl(30, 20);
+        final State reference = new StateImpl(30, 20);
+        for (int i = 0; i < 200; i++) {
+            final Pos pos = new PosImpl(random.nextInt(30), random.nextInt(20));
+            if (reference.isFree(pos)) {
+                final Agent agent = factory.createAgent();
+                agent.setType(random.nextBoolean() ? "A" : "B");
+                state.addAgent(pos, agent);
+                reference.addAgent(pos, agent);
+            }
+        }
+        final List<Pos> cells = new ArrayList<>(reference.getPosByPosAndRadius(new PosImpl(15, 10), 30));
+        for (final int radius : List.of(1, 2, 3, 4, 5)) {
+            final List<Integer> expected = cells.stream()
+                    .map(pos -> reference.countAgentsByTypeInRadius(pos, radius, "A"))
+                    .toList();
+            assertEquals(expected, cells.parallelStream()
+                    .map(pos -> state.countAgentsByTypeInRadius(pos, radius, "A"))
+                    .toList());
+        }
+    }
+
+    /**
+     * The agents visited within a large radius, found through the spatial
+     * hash, must be the ones of {@link StateImpl}, in the same order, while
+     * the agents move around the board and through a view too.
+     */
+    @Test
+    void testAgentsInLargeRadius() {
+        final Random random = new Random(5);
+        State state = new DenseStateImpl(40, 30);
+        final State reference = new StateImpl(40, 30);
+        final List<Pos> occupied = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            final Pos pos = new PosImpl(random.nextInt(40), random.nextInt(30));
+            if (reference.isFree(pos)) {
+                final Agent agent = factory.createAgent();
+                state.addAgent(pos, agent);
+                reference.addAgent(pos, agent);
+                occupied.add(pos);
+            }
+        }
+        for (int i = 0; i < 300; i++) {
+            final int moved = random.nextInt(occupied.size());
+            final Pos to = new PosImpl(random.nextInt(40), random.nextInt(30));
+            if (reference.isFree(to)) {
+                state.moveAgent(occupied.get(moved), to);
+                reference.moveAgent(occupied.get(moved), to);
+                occupied.set(moved, to);
+            }
+            if (i % 50 == 0) {
+                final Pos removed = occupied.remove(random.nextInt(occupied.size()));
+                state.removeAgent(removed, state.getAgentAt(removed).get());
+                reference.removeAgent(removed, reference.getAgentAt(removed).get());
+                state = state.copy();
+            }
+            final Pos center = new PosImpl(random.nextInt(-2, 42), random.nextInt(-2, 32));
+            final int radius = random.nextInt(1, 20);
+            for (final Neighborhood neighborhood : Neighborhood.values()) {
+                assertEquals(visit(reference, center, radius, neighborhood),
+                        visit(state, center, radius, neighborhood));
+            }
+        }
+
+        final BufferedState view = new BufferedState(state);
+        final BufferedState referenceView = new BufferedState(reference);
+        for (final BufferedState v : List.of(view, referenceView)) {
+            v.moveAgent(occupied.get(0), new PosImpl(20, 15).equals(occupied.get(0)) ? new PosImpl(0, 0)
+                    : new PosImpl(20, 15));
+        }
+        assertEquals(visit(referenceView, new PosImpl(19, 14), 15, Neighborhood.MOORE),
+                visit(view, new PosImpl(19, 14), 15, Neighborhood.MOORE));
+    }
+
+    private static List<Pair<Pos, Agent>> visit(final State state, final Pos center, final int radius,
+            final Neighborhood neighborhood) {
+        final List<Pair<Pos, Agent>> visited = new ArrayList<>();
+        state.forEachAgentInRadius(center, radius, neighborhood,
+                (x, y, agent) -> visited.add(new Pair<>(new PosImpl(x, y), agent)));
+        return visited;
+    }
+
+    /**
+     * The grid models are backed by a dense state.
+     */
+    @Test
+    void testModelsUseDenseState() {
+        final Model model = new SchellingModelFactory().getModel();
+        model.setParameter("numeroAgentiTipoA", 10);
+        model.setParameter("numeroAgentiTipoB", 10);
+        model.setParameter(Model.SIZEKEY, 10);
+        final State state = model.initilize();
+        assertTrue(state instanceof DenseStateImpl);
+        assertEquals(20, state.getAgents().size());
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
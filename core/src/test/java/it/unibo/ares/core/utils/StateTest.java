@@ -63,7 +63,7 @@ class StateTest {
             }
 
             @Override
-            public String getId() {
+            public long getId() {
                 throw new UnsupportedOperationException("Unimplemented method 'getId'");
             }
 
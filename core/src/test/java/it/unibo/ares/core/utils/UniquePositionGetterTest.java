@@ -0,0 +1,57 @@
+package it.unibo.ares.core.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ares.core.utils.pos.Pos;
+import it.unibo.ares.core.utils.pos.PosImpl;
+
+/**
+ * Unit test for {@link UniquePositionGetter}.
+ */
+class UniquePositionGetterTest {
+    // CHECKSTYLE: MagicNumber OFF
+
+    private static Set<Pos> drain(final UniquePositionGetter getter) {
+        final Set<Pos> out = new HashSet<>();
+        while (getter.hasNext()) {
+            assertTrue(out.add(getter.next()));
+        }
+        assertThrows(NoSuchElementException.class, getter::next);
+        return out;
+    }
+
+    /**
+     * Every cell of the grid must be extracted exactly once.
+     */
+    @Test
+    void testGrid() {
+        final Set<Pos> expected = IntStream.range(0, 7).boxed()
+                .flatMap(x -> IntStream.range(0, 5).mapToObj(y -> (Pos) new PosImpl(x, y)))
+                .collect(Collectors.toSet());
+        assertEquals(expected, drain(new UniquePositionGetter(7, 5)));
+        assertFalse(new UniquePositionGetter(0, 5).hasNext());
+        assertThrows(IllegalArgumentException.class, () -> new UniquePositionGetter(-1, 5));
+    }
+
+    /**
+     * Every position of the list must be extracted exactly once.
+     */
+    @Test
+    void testList() {
+        final List<Pos> positions = List.of(new PosImpl(1, 1), new PosImpl(2, 3), new PosImpl(9, 0));
+        assertEquals(Set.copyOf(positions), drain(new UniquePositionGetter(positions)));
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
@@ -0,0 +1,60 @@
+package it.unibo.ares.core.utils.directionvector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for the serialized form of {@link DirectionVectorImpl}.
+ */
+class DirectionVectorImplTest {
+    // CHECKSTYLE: MagicNumber OFF
+    // il vettore (3, -4) salvato quando le componenti erano dei Double
+    private static final String BOXED =
+            "rO0ABXNyADxpdC51bmliby5hcmVzLmNvcmUudXRpbHMuZGlyZWN0aW9udmVjdG9yLkRpcmVjdGlvblZl"
+            + "Y3RvckltcGwAAAAAAAAAAQIAA0wACW1hZ25pdHVkZXQAEkxqYXZhL2xhbmcvRG91YmxlO0wAAXhxAH4A"
+            + "AUwAAXlxAH4AAXhwc3IAEGphdmEubGFuZy5Eb3VibGWAs8JKKWv7BAIAAUQABXZhbHVleHIAEGphdmEu"
+            + "bGFuZy5OdW1iZXKGrJUdC5TgiwIAAHhwQBQAAAAAAABzcQB+AANACAAAAAAAAHNxAH4AA8AQAAAAAAAA";
+
+    private static Object read(final byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * A vector saved with the boxed components should still be loaded.
+     *
+     * @throws IOException            if the vector cannot be read
+     * @throws ClassNotFoundException if the class of the vector is missing
+     */
+    @Test
+    void testLoadBoxedForm() throws IOException, ClassNotFoundException {
+        final DirectionVector vector = (DirectionVector) read(Base64.getDecoder().decode(BOXED));
+        assertEquals(new DirectionVectorImpl(3.0, -4.0), vector);
+        assertEquals(5.0, vector.getMagnitude());
+    }
+
+    /**
+     * A vector saved now should be loaded back.
+     *
+     * @throws IOException            if the vector cannot be written or read
+     * @throws ClassNotFoundException if the class of the vector is missing
+     */
+    @Test
+    void testSaveAndLoad() throws IOException, ClassNotFoundException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new DirectionVectorImpl(3.0, -4.0));
+        }
+        assertEquals(new DirectionVectorImpl(3.0, -4.0), read(bytes.toByteArray()));
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
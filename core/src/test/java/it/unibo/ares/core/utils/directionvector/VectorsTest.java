@@ -0,0 +1,50 @@
+package it.unibo.ares.core.utils.directionvector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link Vectors}.
+ */
+class VectorsTest {
+    // CHECKSTYLE: MagicNumber OFF
+
+    /**
+     * The comparison with the smallest cosine should give the same result of
+     * the comparison of the arccosine with the angle, on the border too.
+     */
+    @Test
+    void testWithinAngle() {
+        final Random random = new Random(3);
+        for (int angle = -1; angle <= 200; angle++) {
+            final double radians = Math.toRadians(angle);
+            final double border = Math.cos(radians);
+            final double[] cosines = {
+                -1, 1, 0, -0.0, Math.nextUp(1.0), Math.nextDown(-1.0), Double.NaN,
+                border, Math.nextUp(border), Math.nextDown(border), random.nextDouble(-1, 1),
+            };
+            for (final double cosine : cosines) {
+                assertEquals(Math.acos(cosine) <= radians, Vectors.withinAngle(cosine, angle),
+                        "cosine " + cosine + " angle " + angle);
+            }
+        }
+    }
+
+    /**
+     * The primitive math should match the one of the vectors.
+     */
+    @Test
+    void testSameAsDirectionVector() {
+        final DirectionVector a = new DirectionVectorImpl(3.0, -4.0);
+        final DirectionVector b = new DirectionVectorImpl(0.5, 2.0);
+        assertEquals(a.getMagnitude(), Vectors.magnitude(3, -4));
+        assertEquals(1.0, Vectors.magnitude(0, 0));
+        assertEquals(a.pointProduct(b), Vectors.dot(3, -4, 0.5, 2));
+        assertEquals(a.getNormalized(), Vectors.normalized(3, -4));
+        assertEquals(new DirectionVectorImpl(0, 0), Vectors.normalized(0, 0));
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
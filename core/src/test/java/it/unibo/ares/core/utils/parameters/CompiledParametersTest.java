@@ -0,0 +1,221 @@
+package it.unibo.ares.core.utils.parameters;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for {@link CompiledParameters} and the handles of a
+ * {@link ParameterSchema}.
+ */
+class CompiledParametersTest {
+    // CHECKSTYLE: MagicNumber OFF
+    private static final String RADIUS = "radius";
+    private static final String RATE = "rate";
+    private static final String NAME = "name";
+    private static final ParameterSchema SCHEMA = new ParameterSchema(List.of(
+            new ParameterImpl<>(RADIUS, Integer.class,
+                    new ParameterDomainImpl<>("radius (1 - n)", (Integer i) -> i > 0), true),
+            new ParameterImpl<>(RATE, 0.5, true),
+            new ParameterImpl<>(NAME, String.class, false)));
+    private static final IntParam RADIUS_PARAM = SCHEMA.intParam(RADIUS);
+    private static final DoubleParam RATE_PARAM = SCHEMA.doubleParam(RATE);
+    private static final ObjectParam<String> NAME_PARAM = SCHEMA.objectParam(NAME, String.class);
+
+    private CompiledParameters parameters;
+
+    /**
+     * Creates the parameters of the schema before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        parameters = SCHEMA.newParameters();
+    }
+
+    /**
+     * Test the initial values taken from the schema.
+     */
+    @Test
+    void testInitialValues() {
+        assertEquals(0.5, RATE_PARAM.get(parameters));
+        assertThrows(IllegalStateException.class, () -> RADIUS_PARAM.get(parameters));
+        assertFalse(parameters.areAllParametersSetted());
+        assertEquals(1, parameters.getParametersToset().size());
+        assertEquals(3, parameters.getParameters().size());
+    }
+
+    /**
+     * Test that the values set by key are read by the handles and the other way
+     * round.
+     */
+    @Test
+    void testSetAndGet() {
+        parameters.setParameter(RADIUS, 3);
+        parameters.setParameter(NAME, "boid");
+        assertEquals(3, RADIUS_PARAM.get(parameters));
+        assertEquals("boid", NAME_PARAM.get(parameters));
+        assertTrue(parameters.areAllParametersSetted());
+
+        final Optional<Parameter<Integer>> radius = parameters.getParameter(RADIUS, Integer.class);
+        assertTrue(radius.isPresent());
+        assertEquals(3, radius.get().getValue());
+        assertTrue(radius.get().getDomain().isPresent());
+        assertTrue(parameters.getParameter(RADIUS, Double.class).isEmpty());
+        assertTrue(parameters.getParameter("missing").isEmpty());
+    }
+
+    /**
+     * Test that the values are checked against the type and the domain.
+     */
+    @Test
+    void testValidation() {
+        assertThrows(IllegalArgumentException.class, () -> parameters.setParameter(RADIUS, 0));
+        assertThrows(IllegalArgumentException.class, () -> parameters.setParameter(RADIUS, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> parameters.setParameter("missing", 1));
+        assertThrows(IllegalArgumentException.class, () -> parameters.addParameter(RADIUS, 1, true));
+        assertThrows(IllegalStateException.class, () -> parameters.addParameter("missing", 1, true));
+    }
+
+    /**
+     * Test that the handles write in place without checking the domain, and
+     * validate when they fall back to the lookup by key.
+     */
+    @Test
+    void testHandleSet() {
+        RADIUS_PARAM.set(parameters, 0);
+        RATE_PARAM.set(parameters, 2.5);
+        NAME_PARAM.set(parameters, "fish");
+        assertEquals(0, RADIUS_PARAM.get(parameters));
+        assertEquals(2.5, RATE_PARAM.get(parameters));
+        assertEquals("fish", parameters.getParameter(NAME, String.class).get().getValue());
+
+        final ParametersImpl other = new ParametersImpl();
+        other.addParameter(new ParameterImpl<>(RADIUS, Integer.class,
+                new ParameterDomainImpl<>("radius (1 - n)", (Integer i) -> i > 0), true));
+        RADIUS_PARAM.set(other, 4);
+        assertEquals(4, RADIUS_PARAM.get(other));
+        assertThrows(IllegalArgumentException.class, () -> RADIUS_PARAM.set(other, 0));
+    }
+
+    /**
+     * Test that a copy does not share the values.
+     */
+    @Test
+    void testCopy() {
+        parameters.setParameter(RADIUS, 3);
+        final Parameters copy = parameters.copy();
+        parameters.setParameter(RADIUS, 5);
+        assertEquals(3, RADIUS_PARAM.get(copy));
+        assertEquals(5, RADIUS_PARAM.get(parameters));
+    }
+
+    /**
+     * Test that the values are shared until an agent changes them on its own.
+     */
+    @Test
+    void testSharedValues() {
+        final CompiledParameters other = SCHEMA.newParameters();
+        assertSame(parameters.values(), other.values());
+
+        parameters.setParameter(RADIUS, 2);
+        other.setParameter(RADIUS, 2);
+        assertSame(parameters.values(), other.values());
+        assertNotSame(parameters.values(), SCHEMA.newParameters().values());
+
+        RATE_PARAM.set(other, 0.1);
+        assertNotSame(parameters.values(), other.values());
+        assertEquals(0.5, RATE_PARAM.get(parameters));
+        assertEquals(0.1, RATE_PARAM.get(other));
+        assertEquals(2, RADIUS_PARAM.get(other));
+
+        final Parameters copy = parameters.copy();
+        RADIUS_PARAM.set(parameters, 4);
+        assertEquals(2, RADIUS_PARAM.get(copy));
+        assertEquals(4, RADIUS_PARAM.get(parameters));
+    }
+
+    /**
+     * Test that only the values chosen by the user are shared, and only the
+     * ones chosen recently.
+     */
+    @Test
+    void testSharedValuesBound() {
+        final CompiledParameters other = SCHEMA.newParameters();
+        parameters.setParameter(NAME, "boid");
+        other.setParameter(NAME, "boid");
+        assertNotSame(parameters.values(), other.values());
+
+        final CompiledParameters first = SCHEMA.newParameters();
+        first.setParameter(RADIUS, 2);
+        for (int radius = 3; radius < 100; radius++) {
+            SCHEMA.newParameters().setParameter(RADIUS, radius);
+        }
+        final CompiledParameters last = SCHEMA.newParameters();
+        last.setParameter(RADIUS, 2);
+        assertNotSame(first.values(), last.values());
+        assertEquals(2, RADIUS_PARAM.get(last));
+    }
+
+    /**
+     * Test that the handles read any other parameters by key.
+     */
+    @Test
+    void testFallback() {
+        final ParametersImpl other = new ParametersImpl();
+        other.addParameter(RADIUS, 7, true);
+        assertEquals(7, RADIUS_PARAM.get(other));
+        assertThrows(IllegalArgumentException.class, () -> RATE_PARAM.get(other));
+    }
+
+    /**
+     * Test that parameters saved and loaded again keep the schema of the
+     * handles, so the handles still write in place without checking the
+     * domain.
+     *
+     * @throws IOException            if the parameters cannot be written
+     * @throws ClassNotFoundException if the parameters cannot be read
+     */
+    @Test
+    void testSaveAndLoad() throws IOException, ClassNotFoundException {
+        parameters.setParameter(RADIUS, 3);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(parameters);
+        }
+        final CompiledParameters loaded;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (CompiledParameters) in.readObject();
+        }
+        assertSame(SCHEMA, loaded.getSchema());
+        assertEquals(3, RADIUS_PARAM.get(loaded));
+        RADIUS_PARAM.set(loaded, 0);
+        assertEquals(0, RADIUS_PARAM.get(loaded));
+        assertEquals(3, RADIUS_PARAM.get(parameters));
+    }
+
+    /**
+     * Test the errors of the schema.
+     */
+    @Test
+    void testSchemaErrors() {
+        assertThrows(IllegalArgumentException.class, () -> new ParameterSchema(List.of(
+                new ParameterImpl<>(RADIUS, 1, true), new ParameterImpl<>(RADIUS, 2, true))));
+        assertThrows(IllegalArgumentException.class, () -> SCHEMA.intParam(RATE));
+        assertThrows(IllegalArgumentException.class, () -> SCHEMA.doubleParam("missing"));
+    }
+    // CHECKSTYLE: MagicNumber ON
+}
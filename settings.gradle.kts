@@ -12,3 +12,4 @@ include("gui")
 include("core")
 include("cli")
 include("runner")
+include("benchmarks")